@@ -0,0 +1,831 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A calendar model that keeps its events as fixed-width rows of an {@link EventTable} instead of one object
+ * per event: in parallel primitive arrays ({@link HeapEventTable}, the default) or outside the Java heap
+ * ({@link OffHeapEventTable}).
+ * <p>
+ * A row holds start and end in epoch minutes, subject, location, description and status as string handles,
+ * the series ID and original series ID, flags and the {@link Weekdays} mask. Series are expanded into one
+ * row per occurrence when they are created, so every query is a scan over the start and end columns; the
+ * rows are grouped in blocks of {@value #BLOCK_SIZE}, and each block remembers its smallest start and
+ * largest end so range, date and busy queries skip the blocks that cannot match. Subject and start lookups, used by the
+ * duplicate checks and by edits, go through a hash table chained through the rows.
+ * <p>
+ * New rows are appended, and edits remove the edited rows and append the modified ones; removed rows
+ * are only marked. Once the appended rows outgrow an eighth of the store, or more than half of the rows
+ * are removed, the store is rewritten sorted by start, which keeps the block ranges narrow. Rows with
+ * the same start always stay in the order they were added.
+ * <p>
+ * Queries return views that read a row's fields when they are asked for. A view stays valid until the
+ * next create or edit call; its setters throw {@link UnsupportedOperationException}, and
+ * {@link IEvent#copy()} returns an independent {@link Event}.
+ */
+public class ArrayCalendarModel implements ICalendarModel {
+    private static final Time ALL_DAY_START = Time.of(8, 0);
+    private static final Time ALL_DAY_END = Time.of(17, 0);
+    private static final int BLOCK_SHIFT = 10;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int NO_ROW = -1;
+    private static final int NO_SERIES = (int) IEvent.NO_SERIES;
+    private static final int SERIES_EXCEPTION = 1;
+    private static final int SERIES_FLAG = 2;
+    private static final int REMOVED = 4;
+
+    private final EventTable table;
+    private int[] buckets;
+    private long[] blockMinStarts;
+    private long[] blockMaxEnds;
+    private int rows;
+    private int sortedRows;
+    private int removedRows;
+    private int lastSeriesId;
+
+    /**
+     * Constructs a new, empty ArrayCalendarModel that keeps its rows in arrays on the Java heap.
+     */
+    public ArrayCalendarModel() {
+        this(new HeapEventTable(BLOCK_SIZE));
+    }
+
+    /**
+     * Constructs a new ArrayCalendarModel over an empty table.
+     * @param table the table to keep the rows and strings in; the model takes it over
+     */
+    public ArrayCalendarModel(EventTable table) {
+        this.table = table;
+        this.buckets = new int[BLOCK_SIZE];
+        Arrays.fill(buckets, NO_ROW);
+        this.blockMinStarts = new long[1];
+        this.blockMaxEnds = new long[1];
+        blockMinStarts[0] = Long.MAX_VALUE;
+        blockMaxEnds[0] = Long.MIN_VALUE;
+        this.rows = 0;
+        this.sortedRows = 0;
+        this.removedRows = 0;
+        this.lastSeriesId = NO_SERIES;
+    }
+
+    /**
+     * Gets the number of events in the calendar.
+     * @return the number of rows that are not removed
+     */
+    public int size() {
+        return rows - removedRows;
+    }
+
+    /**
+     * Picks the series ID for a series about to be created or split off; see {@link #claimSeriesId(int)}.
+     * @return the next unused series ID
+     */
+    private int unusedSeriesId() {
+        return lastSeriesId + 1;
+    }
+
+    /**
+     * Marks a series ID as used once the call that picked it has succeeded,
+     * so that a failed call does not use up an ID.
+     * @param seriesId the ID, or {@link IEvent#NO_SERIES}
+     */
+    private void claimSeriesId(int seriesId) {
+        lastSeriesId = Math.max(lastSeriesId, seriesId);
+    }
+
+    /**
+     * Gets the hash bucket of a subject and start.
+     */
+    private int bucketOf(int subject, long start) {
+        long hash = (subject * 0x9E3779B97F4A7C15L) ^ (start * 0xC2B2AE3D27D4EB4FL);
+        return (int) (hash ^ (hash >>> 32)) & (buckets.length - 1);
+    }
+
+    /**
+     * Appends a row, growing the columns and the hash table as needed.
+     * @return the new row
+     */
+    private int appendRow(long start, long end, int subject, int location, int description, int status,
+                          int seriesId, int originalSeriesId, int rowFlags, int rowRepeatDays) {
+        table.ensureCapacity(rows + 1);
+        int row = rows++;
+        table.setRow(row, start, end, subject, location, description, status, seriesId, originalSeriesId, rowFlags, rowRepeatDays);
+        if (rows > buckets.length) {
+            buckets = new int[buckets.length * 2];
+            rehash();
+        } else {
+            link(row);
+        }
+        int block = row >>> BLOCK_SHIFT;
+        if (block == blockMinStarts.length) {
+            blockMinStarts = Arrays.copyOf(blockMinStarts, block * 2);
+            blockMaxEnds = Arrays.copyOf(blockMaxEnds, block * 2);
+            Arrays.fill(blockMinStarts, block, blockMinStarts.length, Long.MAX_VALUE);
+            Arrays.fill(blockMaxEnds, block, blockMaxEnds.length, Long.MIN_VALUE);
+        }
+        blockMinStarts[block] = Math.min(blockMinStarts[block], start);
+        blockMaxEnds[block] = Math.max(blockMaxEnds[block], end);
+        return row;
+    }
+
+    /**
+     * Appends a row holding an event.
+     */
+    private void appendRow(IEvent event) {
+        int rowFlags = (event.isSeriesException() ? SERIES_EXCEPTION : 0);
+        int mask = Weekdays.NONE;
+        if (event instanceof Event) {
+            rowFlags |= ((Event) event).getIsSeriesFlag() ? SERIES_FLAG : 0;
+            mask = ((Event) event).getDaysOfWeekMask();
+        }
+        appendRow(event.getStart().toEpochMinute(), event.getEnd().toEpochMinute(),
+                table.toHandle(event.getSubject()), table.toHandle(event.getLocation()),
+                table.toHandle(event.getDescription()), table.toHandle(event.getStatus()),
+                (int) event.getSeriesId(), (int) event.getOriginalSeriesId(), rowFlags, mask);
+    }
+
+    /**
+     * Puts a row at the head of its hash bucket.
+     */
+    private void link(int row) {
+        int bucket = bucketOf(table.subject(row), table.start(row));
+        table.setNext(row, buckets[bucket]);
+        buckets[bucket] = row;
+    }
+
+    /**
+     * Rebuilds the hash table from the rows that are not removed.
+     */
+    private void rehash() {
+        Arrays.fill(buckets, NO_ROW);
+        for (int row = 0; row < rows; row++) {
+            if ((table.flags(row) & REMOVED) == 0) {
+                link(row);
+            }
+        }
+    }
+
+    /**
+     * Marks a row as removed and takes it out of its hash bucket.
+     * The block bounds are left as they are; they only need to cover the rows of the block.
+     */
+    private void removeRow(int row) {
+        int bucket = bucketOf(table.subject(row), table.start(row));
+        if (buckets[bucket] == row) {
+            buckets[bucket] = table.next(row);
+        } else {
+            int previous = buckets[bucket];
+            while (table.next(previous) != row) {
+                previous = table.next(previous);
+            }
+            table.setNext(previous, table.next(row));
+        }
+        table.setFlags(row, table.flags(row) | REMOVED);
+        removedRows++;
+    }
+
+    /**
+     * Reorders the store once enough rows were added or removed since the last time:
+     * drops the removed rows and sorts the others by start, rows with the same start staying in the
+     * order they were added. Sorted rows give each block a narrow start and end range,
+     * which is what lets the queries skip blocks.
+     */
+    private void reorganizeIfNeeded() {
+        int unsorted = rows - sortedRows;
+        if (unsorted <= Math.max(BLOCK_SIZE, sortedRows >> 3) && (removedRows <= BLOCK_SIZE || removedRows * 2 <= rows)) {
+            return;
+        }
+        Integer[] added = new Integer[unsorted];
+        int addedCount = 0;
+        for (int row = sortedRows; row < rows; row++) {
+            if ((table.flags(row) & REMOVED) == 0) {
+                added[addedCount++] = row;
+            }
+        }
+        Arrays.sort(added, 0, addedCount, Comparator.comparingLong(row -> table.start(row)));
+
+        int[] order = new int[rows - removedRows];
+        int kept = 0;
+        int next = 0;
+        for (int row = 0; row < sortedRows; row++) {
+            if ((table.flags(row) & REMOVED) != 0) {
+                continue;
+            }
+            while (next < addedCount && table.start(added[next]) < table.start(row)) {
+                order[kept++] = added[next++];
+            }
+            order[kept++] = row;
+        }
+        while (next < addedCount) {
+            order[kept++] = added[next++];
+        }
+
+        try {
+            table.reorder(order, kept);
+        } catch (IllegalStateException e) {
+            // reordering only speeds up queries; keep the current rows and try again after the next change
+            return;
+        }
+
+        rows = kept;
+        sortedRows = kept;
+        removedRows = 0;
+        rehash();
+        Arrays.fill(blockMinStarts, Long.MAX_VALUE);
+        Arrays.fill(blockMaxEnds, Long.MIN_VALUE);
+        for (int row = 0; row < rows; row++) {
+            int block = row >>> BLOCK_SHIFT;
+            blockMinStarts[block] = Math.min(blockMinStarts[block], table.start(row));
+            blockMaxEnds[block] = Math.max(blockMaxEnds[block], table.end(row));
+        }
+    }
+
+    /**
+     * Finds the rows with a subject and start, in the order they were added.
+     * @param subject the subject handle, or {@link StringDictionary#NO_HANDLE} to match nothing
+     * @param start the start in epoch minutes
+     * @return the matching rows in ascending order
+     */
+    private int[] rowsStartingAt(int subject, long start) {
+        if (subject == StringDictionary.NO_HANDLE) {
+            return new int[0];
+        }
+        int[] found = new int[4];
+        int count = 0;
+        for (int row = buckets[bucketOf(subject, start)]; row != NO_ROW; row = table.next(row)) {
+            if (table.subject(row) == subject && table.start(row) == start) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = row;
+            }
+        }
+        found = Arrays.copyOf(found, count);
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Checks if an event would be a duplicate of an existing event.
+     * Events are considered duplicates if they have the same subject, start date/time, and end date/time.
+     * @param subject the subject handle, or {@link StringDictionary#NO_HANDLE} if the subject is new
+     * @param start the start in epoch minutes
+     * @param end the end in epoch minutes
+     * @param excludedRow a row to leave out of the check, or {@link #NO_ROW}
+     * @return true if the event is a duplicate, false otherwise
+     */
+    private boolean isDuplicate(int subject, long start, long end, int excludedRow) {
+        if (subject == StringDictionary.NO_HANDLE) {
+            return false;
+        }
+        for (int row = buckets[bucketOf(subject, start)]; row != NO_ROW; row = table.next(row)) {
+            if (row != excludedRow && table.subject(row) == subject && table.start(row) == start && table.end(row) == end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a single calendar event.
+     * @param subject the event subject (required)
+     * @param startDateTime the start date and time (required)
+     * @param endDateTime the end date and time (null for all-day events)
+     * @param description the event description (can be null)
+     * @param location the event location (can be null)
+     * @param status the event status ("public" or "private")
+     * @return true if the event was created successfully, false otherwise
+     */
+    @Override
+    public boolean createEvent(String subject, DateTime startDateTime, DateTime endDateTime, String description, String location, String status) {
+        if (startDateTime == null || subject == null || subject.trim().isEmpty()) {
+            System.err.println("Error: Subject and start date/time are required.");
+            return false;
+        }
+
+        DateTime effectiveStart = startDateTime;
+        DateTime effectiveEnd = endDateTime;
+
+        if (effectiveEnd == null) {
+            Date date = startDateTime.getDate();
+            effectiveStart = new DateTime(date, ALL_DAY_START);
+            effectiveEnd = new DateTime(date, ALL_DAY_END);
+        }
+
+        long start = effectiveStart.toEpochMinute();
+        long end = effectiveEnd.toEpochMinute();
+        if (end < start) {
+            System.err.println("Error: Event end time cannot be before start time.");
+            return false;
+        }
+
+        if (isDuplicate(table.findHandle(subject), start, end, NO_ROW)) {
+            System.err.println("Error: An event with the same subject, start date/time, and end date/time already exists.");
+            return false;
+        }
+
+        appendRow(start, end, table.toHandle(subject), table.toHandle(location), table.toHandle(description),
+                table.toHandle(status != null ? status : "public"), NO_SERIES, NO_SERIES, 0, Weekdays.NONE);
+        reorganizeIfNeeded();
+        return true;
+    }
+
+    /**
+     * Creates a series of recurring calendar events, adding one row per occurrence.
+     * The series must fit in {@link RecurrenceRule#MAX_SERIES_SPAN_DAYS} days, as in {@link CalendarModelImpl}.
+     * The rows for every occurrence are reserved before the first is written, so a table that cannot grow
+     * leaves the model unchanged.
+     * @param subject the event subject (required)
+     * @param seriesStartDateTime the start date and time for the series (required)
+     * @param seriesEndDateTime the end date and time for each event in the series (null for all-day events)
+     * @param description the event description (can be null)
+     * @param location the event location (can be null)
+     * @param status the event status ("public" or "private")
+     * @param repeatDays the days of the week on which to repeat the event, as a {@link Weekdays} mask (required)
+     * @param occurrences the number of occurrences (null if using seriesEndDate)
+     * @param seriesEndDate the date after which to stop creating events (null if using occurrences)
+     * @return true if the event series was created successfully, false otherwise
+     */
+    @Override
+    public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
+                                     String description, String location, String status,
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
+        if (seriesStartDateTime == null || subject == null || subject.trim().isEmpty() || Weekdays.size(repeatDays) == 0) {
+            System.err.println("Error: Subject, start date/time, and repeat days are required for a series.");
+            return false;
+        }
+        if (occurrences == null && seriesEndDate == null) {
+            System.err.println("Error: Either number of occurrences or a series end date must be specified.");
+            return false;
+        }
+        if (occurrences != null && seriesEndDate != null) {
+            System.err.println("Error: Specify either number of occurrences or a series end date, not both.");
+            return false;
+        }
+        if (occurrences != null && occurrences <= 0) {
+            System.err.println("Error: Number of occurrences must be positive.");
+            return false;
+        }
+
+        DateTime effectiveSeriesStart = seriesStartDateTime;
+        DateTime effectiveSeriesEnd = seriesEndDateTime;
+
+        if (effectiveSeriesEnd == null) {
+            Date date = seriesStartDateTime.getDate();
+            effectiveSeriesStart = new DateTime(date, ALL_DAY_START);
+            effectiveSeriesEnd = new DateTime(date, ALL_DAY_END);
+        }
+
+        long firstDay = effectiveSeriesStart.getDate().toEpochDay();
+        if (seriesEndDate != null && seriesEndDate.toEpochDay() < firstDay) {
+            System.err.println("Error: Series end date cannot be before the series start date.");
+            return false;
+        }
+
+        if (effectiveSeriesEnd.getDate().toEpochDay() != firstDay) {
+            System.err.println("Error: For recurring events, the start and end time must be on the same day.");
+            return false;
+        }
+
+        int startMinute = effectiveSeriesStart.getTime().toMinuteOfDay();
+        int endMinute = effectiveSeriesEnd.getTime().toMinuteOfDay();
+        if (endMinute < startMinute) {
+            System.err.println("Error: Event end time cannot be before start time.");
+            return false;
+        }
+
+        long lastDay;
+        try {
+            lastDay = occurrences != null
+                    ? RecurrenceRule.lastDayForCount(repeatDays, firstDay, occurrences)
+                    : RecurrenceRule.lastDayUntil(repeatDays, firstDay, seriesEndDate.toEpochDay());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return false;
+        }
+        if (Weekdays.nextDay(repeatDays, firstDay) > lastDay) {
+            System.err.println("Warning: No events were generated for the series based on the criteria.");
+            return true;
+        }
+
+        int subjectHandle = table.findHandle(subject);
+        int newRows = 0;
+        for (long day = Weekdays.nextDay(repeatDays, firstDay); day <= lastDay; day = Weekdays.nextDay(repeatDays, day + 1)) {
+            long dayStart = day * DateTime.MINUTES_PER_DAY;
+            if (isDuplicate(subjectHandle, dayStart + startMinute, dayStart + endMinute, NO_ROW)) {
+                System.err.println("Error: A generated event in the series conflicts with an existing or another potential series event: "
+                                   + subject + " on " + DateTime.ofEpochMinute(dayStart + startMinute));
+                return false;
+            }
+            newRows++;
+        }
+        try {
+            table.ensureCapacity(rows + newRows);
+        } catch (IllegalStateException e) {
+            System.err.println("Error: " + e.getMessage());
+            return false;
+        }
+
+        int generatedSeriesId = unusedSeriesId();
+        subjectHandle = table.toHandle(subject);
+        int locationHandle = table.toHandle(location);
+        int descriptionHandle = table.toHandle(description);
+        int statusHandle = table.toHandle(status != null ? status : "public");
+        for (long day = Weekdays.nextDay(repeatDays, firstDay); day <= lastDay; day = Weekdays.nextDay(repeatDays, day + 1)) {
+            long dayStart = day * DateTime.MINUTES_PER_DAY;
+            appendRow(dayStart + startMinute, dayStart + endMinute, subjectHandle, locationHandle, descriptionHandle,
+                    statusHandle, generatedSeriesId, generatedSeriesId, SERIES_FLAG, repeatDays);
+        }
+        claimSeriesId(generatedSeriesId);
+        reorganizeIfNeeded();
+        return true;
+    }
+
+    /**
+     * Edits an existing event or series of events.
+     * The targeted rows are replaced by rows holding the modified events, added after all other rows.
+     * @param findSubject the subject of the event to find
+     * @param findStartDateTime the start date/time of the event to find
+     * @param findEndDateTime the end date/time of the event to find (required for "this" scope)
+     * @param edit the property change to apply
+     * @param scope the scope of the edit ("this", "future", or "all")
+     * @return true if the edit was successful, false otherwise
+     */
+    @Override
+    public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                             EventEdit edit, String scope) {
+        int subject = table.findHandle(findSubject);
+        int[] targetRows;
+        int anchor;
+
+        if ("this".equals(scope)) {
+            if (findEndDateTime == null && findStartDateTime != null) {
+                 Date date = findStartDateTime.getDate();
+                 findStartDateTime = new DateTime(date, ALL_DAY_START);
+                 findEndDateTime = new DateTime(date, ALL_DAY_END);
+            }
+            targetRows = new int[0];
+            if (findStartDateTime != null) {
+                long end = findEndDateTime.toEpochMinute();
+                targetRows = Arrays.stream(rowsStartingAt(subject, findStartDateTime.toEpochMinute()))
+                        .filter(row -> table.end(row) == end)
+                        .toArray();
+            }
+            if (targetRows.length == 0) {
+                System.err.println("Error: No event found matching subject '" + findSubject + "', start '" + findStartDateTime + "', and end '" + findEndDateTime + "'.");
+                return false;
+            }
+            if (targetRows.length > 1) {
+                System.err.println("Error: Multiple events found for 'edit event' (this scope). This indicates a data integrity issue or overly broad match.");
+                return false;
+            }
+            anchor = targetRows[0];
+        } else {
+            int[] candidates = findStartDateTime != null
+                    ? rowsStartingAt(subject, findStartDateTime.toEpochMinute()) : new int[0];
+            if (candidates.length == 0) {
+                System.err.println("Error: No event found matching subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
+                return false;
+            }
+            anchor = candidates[0];
+
+            if (candidates.length > 1) {
+                int firstSeriesId = table.seriesId(anchor);
+                if (firstSeriesId == NO_SERIES) {
+                     System.err.println("Error: Ambiguous edit. Multiple non-series events match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
+                     return false;
+                }
+                for (int candidate : candidates) {
+                    if (table.seriesId(candidate) != firstSeriesId) {
+                        System.err.println("Error: Ambiguous edit. Multiple distinct series match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
+                        return false;
+                    }
+                }
+            }
+
+            int seriesIdToMatch = table.seriesId(anchor);
+            if (seriesIdToMatch == NO_SERIES || ("future".equals(scope) && (table.flags(anchor) & SERIES_EXCEPTION) != 0)) {
+                targetRows = new int[] {anchor};
+            } else if ("future".equals(scope)) {
+                targetRows = seriesRows(seriesIdToMatch, table.start(anchor), true);
+            } else if ("all".equals(scope)) {
+                targetRows = seriesRows(seriesIdToMatch, Long.MIN_VALUE, false);
+            } else {
+                targetRows = new int[0];
+            }
+        }
+
+        if (targetRows.length == 0) {
+            System.err.println("Error: No events targeted for modification based on scope '" + scope + "'.");
+            return false;
+        }
+
+        boolean startPropertyChanged = edit.changesStart();
+        int anchorSeriesId = table.seriesId(anchor);
+        int newSeriesIdForSplit = NO_SERIES;
+        int newSeriesIdForFutureScope = NO_SERIES;
+
+        if (scope.equals("future") && anchorSeriesId != NO_SERIES) {
+            newSeriesIdForFutureScope = unusedSeriesId();
+        } else if (startPropertyChanged && anchorSeriesId != NO_SERIES && scope.equals("all")) {
+            newSeriesIdForSplit = unusedSeriesId();
+        }
+
+        IEvent[] modified = new IEvent[targetRows.length];
+        IEvent conflictingEvent = null;
+        for (int i = 0; i < targetRows.length; i++) {
+            int row = targetRows[i];
+            IEvent eventToModify = new Row(row).copy();
+
+            edit.applyTo(eventToModify);
+
+            int currentOriginalId = table.originalSeriesId(row);
+            int currentSeriesId = table.seriesId(row);
+
+            eventToModify.setOriginalSeriesId(currentOriginalId != NO_SERIES ? currentOriginalId : currentSeriesId);
+
+            if (scope.equals("future") && newSeriesIdForFutureScope != NO_SERIES) {
+                eventToModify.setOriginalSeriesId(currentSeriesId);
+                eventToModify.setSeriesId(newSeriesIdForFutureScope);
+                eventToModify.setSeriesException(false);
+            } else if (scope.equals("all")) {
+                if (startPropertyChanged && newSeriesIdForSplit != NO_SERIES) {
+                    eventToModify.setOriginalSeriesId(anchorSeriesId);
+                    eventToModify.setSeriesId(newSeriesIdForSplit);
+                    eventToModify.setSeriesException(false);
+                } else if (!startPropertyChanged && anchorSeriesId != NO_SERIES) {
+                    eventToModify.setSeriesId(anchorSeriesId);
+                    eventToModify.setOriginalSeriesId(anchorSeriesId);
+                    eventToModify.setSeriesException(false);
+                }
+            } else if (scope.equals("this")) {
+                eventToModify.setSeriesId(currentSeriesId);
+                eventToModify.setSeriesException(true);
+            }
+
+            if (isDuplicate(table.findHandle(eventToModify.getSubject()), eventToModify.getStart().toEpochMinute(),
+                    eventToModify.getEnd().toEpochMinute(), row)) {
+                conflictingEvent = eventToModify;
+                break;
+            }
+            modified[i] = eventToModify;
+        }
+        if (conflictingEvent != null) {
+            System.err.println("Error: Modified event (" + conflictingEvent.getSubject() + " at " + conflictingEvent.getStart() + ") conflicts with an existing event.");
+            return false;
+        }
+
+        for (int row : targetRows) {
+            removeRow(row);
+        }
+        for (IEvent event : modified) {
+            appendRow(event);
+        }
+        claimSeriesId(Math.max(newSeriesIdForFutureScope, newSeriesIdForSplit));
+        reorganizeIfNeeded();
+        return true;
+    }
+
+    /**
+     * Finds the rows of a series, ordered by start (rows with the same start in the order they were added).
+     * @param seriesId the series ID
+     * @param from the earliest start to include, in epoch minutes
+     * @param skipExceptions whether to leave out the rows marked as series exceptions
+     * @return the matching rows
+     */
+    private int[] seriesRows(int seriesId, long from, boolean skipExceptions) {
+        int[] found = new int[16];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (table.seriesId(row) == seriesId && table.start(row) >= from && (table.flags(row) & REMOVED) == 0
+                    && !(skipExceptions && (table.flags(row) & SERIES_EXCEPTION) != 0)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = row;
+            }
+        }
+        return Arrays.stream(found, 0, count).boxed()
+                .sorted(Comparator.comparingLong(row -> table.start(row)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Adds the views of the rows that overlap the open range (from, to) to a list:
+     * the rows starting before {@code to} and ending after {@code from}.
+     */
+    private void addRowsOverlapping(long from, long to, List<IEvent> out) {
+        for (int block = 0, firstRow = 0; firstRow < rows; block++, firstRow += BLOCK_SIZE) {
+            if (blockMinStarts[block] >= to || blockMaxEnds[block] <= from) {
+                continue;
+            }
+            int lastRow = Math.min(rows, firstRow + BLOCK_SIZE);
+            for (int row = firstRow; row < lastRow; row++) {
+                if (table.start(row) < to && table.end(row) > from && (table.flags(row) & REMOVED) == 0) {
+                    out.add(new Row(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all events in the calendar.
+     * @return a new list of all events, ordered by start
+     */
+    @Override
+    public List<IEvent> getAllEvents() {
+        List<IEvent> result = new ArrayList<>(size());
+        for (int row = 0; row < rows; row++) {
+            if ((table.flags(row) & REMOVED) == 0) {
+                result.add(new Row(row));
+            }
+        }
+        result.sort(Comparator.comparingLong(event -> ((Row) event).startMinute()));
+        return result;
+    }
+
+    /**
+     * Returns all events that occur on a specific date: the events starting on or before the date
+     * and ending on or after it.
+     * @param date the date to search for events
+     * @return a list of events that occur on the specified date, ordered by start
+     */
+    @Override
+    public List<IEvent> getEventsOnDate(Date date) {
+        long dayStart = date.toEpochDay() * DateTime.MINUTES_PER_DAY;
+        List<IEvent> result = new ArrayList<>();
+        addRowsOverlapping(dayStart - 1, dayStart + DateTime.MINUTES_PER_DAY, result);
+        result.sort(Comparator.comparingLong(event -> ((Row) event).startMinute()));
+        return result;
+    }
+
+    /**
+     * Returns all events that overlap a time range.
+     * @param startRange the start of the range
+     * @param endRange the end of the range
+     * @return a list of events that overlap the range, ordered by start, then end
+     */
+    @Override
+    public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
+        List<IEvent> result = new ArrayList<>();
+        addRowsOverlapping(startRange.toEpochMinute(), endRange.toEpochMinute(), result);
+        result.sort(Comparator.comparingLong((IEvent event) -> ((Row) event).startMinute())
+                .thenComparingLong(event -> ((Row) event).endMinute()));
+        return result;
+    }
+
+    /**
+     * Checks if any event is scheduled at a specific date and time.
+     * @param dateTime the date and time to check
+     * @return true if an event starts at or before the given time and ends after it
+     */
+    @Override
+    public boolean isBusyAt(DateTime dateTime) {
+        long at = dateTime.toEpochMinute();
+        for (int block = 0, firstRow = 0; firstRow < rows; block++, firstRow += BLOCK_SIZE) {
+            if (blockMinStarts[block] > at || blockMaxEnds[block] <= at) {
+                continue;
+            }
+            int lastRow = Math.min(rows, firstRow + BLOCK_SIZE);
+            for (int row = firstRow; row < lastRow; row++) {
+                if (table.start(row) <= at && table.end(row) > at && (table.flags(row) & REMOVED) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A view of one row. It reads the columns on every call, so it is only valid until the rows move.
+     */
+    private final class Row implements IEvent {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        private long startMinute() {
+            return table.start(row);
+        }
+
+        private long endMinute() {
+            return table.end(row);
+        }
+
+        @Override
+        public String getSubject() {
+            return table.string(table.subject(row));
+        }
+
+        @Override
+        public DateTime getStart() {
+            return DateTime.ofEpochMinute(table.start(row));
+        }
+
+        @Override
+        public DateTime getEnd() {
+            return DateTime.ofEpochMinute(table.end(row));
+        }
+
+        @Override
+        public String getLocation() {
+            return table.string(table.location(row));
+        }
+
+        @Override
+        public String getDescription() {
+            return table.string(table.description(row));
+        }
+
+        @Override
+        public String getStatus() {
+            return table.string(table.status(row));
+        }
+
+        @Override
+        public long getSeriesId() {
+            return table.seriesId(row);
+        }
+
+        @Override
+        public boolean isSeriesException() {
+            return (table.flags(row) & SERIES_EXCEPTION) != 0;
+        }
+
+        @Override
+        public long getOriginalSeriesId() {
+            return table.originalSeriesId(row);
+        }
+
+        @Override
+        public void setSubject(String subject) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStart(DateTime start) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setEnd(DateTime end) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLocation(String location) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDescription(String description) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStatus(String status) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSeriesId(long seriesId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSeriesException(boolean isSeriesException) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setOriginalSeriesId(long originalSeriesId) {
+            throw readOnly();
+        }
+
+        @Override
+        public IEvent copy() {
+            Event event = new Event(getSubject(), getLocation(), getStart(), getEnd(), getStatus(), getDescription());
+            event.setSeriesId(getSeriesId());
+            event.setOriginalSeriesId(getOriginalSeriesId());
+            event.setSeriesException(isSeriesException());
+            event.setIsSeriesFlag((table.flags(row) & SERIES_FLAG) != 0);
+            event.setDaysOfWeekMask(table.repeatDays(row));
+            return event;
+        }
+
+        @Override
+        public String toString() {
+            return copy().toString();
+        }
+
+        private UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Events of an array calendar model are views and cannot be changed; edit them through the model.");
+        }
+    }
+}
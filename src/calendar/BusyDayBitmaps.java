@@ -0,0 +1,177 @@
+package calendar;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A bounded cache of per-day busy bitmaps, one bit per minute of the day.
+ * <p>
+ * A day's bitmap is built by the model the first time the day is asked about, and is then kept up to date:
+ * adding an event or a recurrence rule sets its minutes in every cached day it reaches, while removing one
+ * drops the cached days it reached, since a bit cannot tell how many events share a minute.
+ * Checking whether a minute is busy is then a single bit test, and free time is found by scanning whole words.
+ * When the cache is full the day with the smallest epoch day is dropped.
+ * <p>
+ * The map itself is synchronized, so queries running in parallel under a read lock may fill it at once.
+ * The bitmaps are only changed by the add and remove calls, which the caller must not run alongside queries.
+ */
+public class BusyDayBitmaps {
+    /** The number of 64-bit words holding the minutes of one day. */
+    public static final int WORDS_PER_DAY = (DateTime.MINUTES_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+    private final int capacity;
+    private final NavigableMap<Long, long[]> days;
+
+    /**
+     * Constructs an empty BusyDayBitmaps.
+     * @param capacity the largest number of days to keep
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public BusyDayBitmaps(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.days = new TreeMap<>();
+    }
+
+    /**
+     * Gets the cached bitmap of a day.
+     * @param day the epoch day
+     * @return the bitmap, or null if the day is not cached
+     */
+    public synchronized long[] get(long day) {
+        return days.get(day);
+    }
+
+    /**
+     * Caches the bitmap of a day, dropping the earliest cached day if the cache is full.
+     * @param day the epoch day
+     * @param bits the bitmap, {@link #WORDS_PER_DAY} words long
+     */
+    public synchronized void put(long day, long[] bits) {
+        days.put(day, bits);
+        if (days.size() > capacity) {
+            days.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Marks the minutes of an interval as busy in every cached day it reaches.
+     * @param start the start of the interval, in epoch minutes
+     * @param end the end of the interval (exclusive), in epoch minutes
+     */
+    public synchronized void markBusy(long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        long firstDay = Math.floorDiv(start, DateTime.MINUTES_PER_DAY);
+        long lastDay = Math.floorDiv(end - 1, DateTime.MINUTES_PER_DAY);
+        for (Map.Entry<Long, long[]> entry : days.subMap(firstDay, true, lastDay, true).entrySet()) {
+            long dayStart = entry.getKey() * DateTime.MINUTES_PER_DAY;
+            setRange(entry.getValue(), (int) (Math.max(start, dayStart) - dayStart),
+                    (int) (Math.min(end, dayStart + DateTime.MINUTES_PER_DAY) - dayStart));
+        }
+    }
+
+    /**
+     * Marks the occurrences of a recurrence rule as busy in every cached day they fall on.
+     * @param rule the rule
+     */
+    public synchronized void markBusy(RecurrenceRule rule) {
+        int from = rule.getStartTime().toMinuteOfDay();
+        int to = rule.getEndTime().toMinuteOfDay();
+        for (Map.Entry<Long, long[]> entry : days.subMap(rule.getFirstDay(), true, rule.getLastDay(), true).entrySet()) {
+            if (rule.occursOn(entry.getKey())) {
+                setRange(entry.getValue(), from, to);
+            }
+        }
+    }
+
+    /**
+     * Drops every cached day an interval reaches, so they are built again when next needed.
+     * @param start the start of the interval, in epoch minutes
+     * @param end the end of the interval (exclusive), in epoch minutes
+     */
+    public synchronized void invalidate(long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        days.subMap(Math.floorDiv(start, DateTime.MINUTES_PER_DAY), true,
+                Math.floorDiv(end - 1, DateTime.MINUTES_PER_DAY), true).clear();
+    }
+
+    /**
+     * Sets the bits of a range of minutes.
+     * @param bits the bitmap
+     * @param from the first minute of the day to set
+     * @param to the minute of the day to stop at (exclusive)
+     */
+    public static void setRange(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            bits[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        bits[firstWord] |= firstMask;
+        for (int word = firstWord + 1; word < lastWord; word++) {
+            bits[word] = -1L;
+        }
+        bits[lastWord] |= lastMask;
+    }
+
+    /**
+     * Checks whether the bit of a minute is set.
+     * @param bits the bitmap
+     * @param minute the minute of the day
+     * @return true if the minute is busy
+     */
+    public static boolean isSet(long[] bits, int minute) {
+        return (bits[minute >>> 6] & (1L << minute)) != 0;
+    }
+
+    /**
+     * Finds the first busy minute at or after a given one.
+     * @param bits the bitmap
+     * @param from the minute of the day to start at
+     * @return the first set minute, or {@link DateTime#MINUTES_PER_DAY} if there is none
+     */
+    public static int nextSet(long[] bits, int from) {
+        return nextBit(bits, from, 0L);
+    }
+
+    /**
+     * Finds the first free minute at or after a given one.
+     * @param bits the bitmap
+     * @param from the minute of the day to start at
+     * @return the first clear minute, or {@link DateTime#MINUTES_PER_DAY} if there is none
+     */
+    public static int nextClear(long[] bits, int from) {
+        return nextBit(bits, from, -1L);
+    }
+
+    /**
+     * Scans whole words for the first bit at or after {@code from} that differs from the words in {@code skip}.
+     */
+    private static int nextBit(long[] bits, int from, long skip) {
+        if (from >= DateTime.MINUTES_PER_DAY) {
+            return DateTime.MINUTES_PER_DAY;
+        }
+        int word = from >>> 6;
+        long candidates = (bits[word] ^ skip) & (-1L << from);
+        while (candidates == 0) {
+            if (++word == WORDS_PER_DAY) {
+                return DateTime.MINUTES_PER_DAY;
+            }
+            candidates = bits[word] ^ skip;
+        }
+        return Math.min(DateTime.MINUTES_PER_DAY, (word << 6) + Long.numberOfTrailingZeros(candidates));
+    }
+}
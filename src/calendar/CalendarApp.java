@@ -1,5 +1,9 @@
 package calendar;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
 
 /**
  * this is the main class for the calendar application.
@@ -20,13 +24,24 @@ public class CalendarApp {
 
         String modeArg = null;
         String commandFilePath = null;
+        boolean echoCommands = true;
+        int parserThreads = 1;
+        String dataDirectory = null;
+        String snapshotFile = null;
+        String exportFile = null;
+        String store = "objects";
+        String calendarDirectory = null;
+        int maxLoaded = CalendarRegistry.DEFAULT_MAX_LOADED;
+        int parallelThreshold = 0;
 
         if (args[0].equalsIgnoreCase("--mode")) {
             if (args.length > 1) {
                 modeArg = args[1].toLowerCase();
+                int firstOption = 2;
                 if (modeArg.equals("headless")) {
                     if (args.length > 2) {
                         commandFilePath = args[2];
+                        firstOption = 3;
                     } else {
                         System.err.println("Error: Command file path not specified for headless mode.");
                         printUsage();
@@ -37,6 +52,49 @@ public class CalendarApp {
                     printUsage();
                     return;
                 }
+                for (int i = firstOption; i < args.length; i++) {
+                    if (modeArg.equals("headless") && args[i].equalsIgnoreCase("--no-echo")) {
+                        echoCommands = false;
+                    } else if (modeArg.equals("headless") && args[i].equalsIgnoreCase("--parallel")) {
+                        parserThreads = Runtime.getRuntime().availableProcessors();
+                    } else if (args[i].equalsIgnoreCase("--data-dir") && i + 1 < args.length) {
+                        dataDirectory = args[++i];
+                    } else if (args[i].equalsIgnoreCase("--snapshot") && i + 1 < args.length) {
+                        snapshotFile = args[++i];
+                    } else if (args[i].equalsIgnoreCase("--export-snapshot") && i + 1 < args.length) {
+                        exportFile = args[++i];
+                    } else if (args[i].equalsIgnoreCase("--store") && i + 1 < args.length) {
+                        store = args[++i].toLowerCase();
+                    } else if (args[i].equalsIgnoreCase("--calendar-dir") && i + 1 < args.length) {
+                        calendarDirectory = args[++i];
+                    } else if (args[i].equalsIgnoreCase("--max-loaded") && i + 1 < args.length) {
+                        try {
+                            maxLoaded = Integer.parseInt(args[++i]);
+                        } catch (NumberFormatException e) {
+                            maxLoaded = 0;
+                        }
+                        if (maxLoaded < 1) {
+                            System.err.println("Error: --max-loaded needs a positive number.");
+                            printUsage();
+                            return;
+                        }
+                    } else if (args[i].equalsIgnoreCase("--parallel-threshold") && i + 1 < args.length) {
+                        try {
+                            parallelThreshold = Integer.parseInt(args[++i]);
+                        } catch (NumberFormatException e) {
+                            parallelThreshold = -1;
+                        }
+                        if (parallelThreshold < 1) {
+                            System.err.println("Error: --parallel-threshold needs a positive number.");
+                            printUsage();
+                            return;
+                        }
+                    } else {
+                        System.err.println("Error: Unknown option '" + args[i] + "'.");
+                        printUsage();
+                        return;
+                    }
+                }
             } else {
                 System.err.println("Error: Mode value not provided after --mode flag.");
                 printUsage();
@@ -47,24 +105,194 @@ public class CalendarApp {
             printUsage();
             return;
         }
+        if (snapshotFile != null && dataDirectory != null) {
+            System.err.println("Error: --snapshot and --data-dir cannot be used together.");
+            printUsage();
+            return;
+        }
+        if (!store.equals("objects") && !store.equals("arrays") && !store.equals("offheap") && !store.equals("persistent")
+                && !store.equals("sharded") && !store.equals("concurrent")) {
+            System.err.println("Error: Invalid store '" + store + "'. Use 'objects', 'arrays', 'offheap', 'persistent', 'sharded' or 'concurrent'.");
+            printUsage();
+            return;
+        }
+        if (!store.equals("objects") && (snapshotFile != null || dataDirectory != null)) {
+            System.err.println("Error: --store " + store + " cannot be used with --snapshot or --data-dir.");
+            printUsage();
+            return;
+        }
+        if (!store.equals("objects") && calendarDirectory != null) {
+            System.err.println("Error: --store " + store + " cannot be used with --calendar-dir.");
+            printUsage();
+            return;
+        }
+        if (parallelThreshold > 0 && (!store.equals("objects") || snapshotFile != null || dataDirectory != null)) {
+            System.err.println("Error: --parallel-threshold only applies to the default object store.");
+            printUsage();
+            return;
+        }
         
         System.out.println("Calendar Application starting...");
 
-        ICalendarModel model = new CalendarModelImpl();
-        ICalendarView view = new CalendarViewImpl();
-        IController controller = new CalendarControllerImpl(model, view);
+        boolean headless = modeArg.equals("headless");
+        ICalendarModel model;
+        JournaledCalendarModel journaledModel = null;
+        if (dataDirectory != null) {
+            try {
+                // every interactive command is synced on its own; headless runs sync in groups
+                journaledModel = JournaledCalendarModel.open(Paths.get(dataDirectory),
+                        headless ? JournaledCalendarModel.DEFAULT_GROUP_COMMIT_SIZE : 1,
+                        JournaledCalendarModel.DEFAULT_SNAPSHOT_INTERVAL);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Error: Could not open calendar data in '" + dataDirectory + "': " + e.getMessage());
+                return;
+            }
+            System.out.println("Recovered calendar from '" + dataDirectory + "' (snapshot "
+                    + journaledModel.getSnapshotGeneration() + ", " + journaledModel.getRecoveredRecords()
+                    + " journal records) in " + journaledModel.getRecoveryMillis() + " ms.");
+            model = journaledModel;
+        } else if (snapshotFile != null) {
+            try {
+                long started = System.nanoTime();
+                ColumnarSnapshot snapshot = ColumnarSnapshot.open(Paths.get(snapshotFile));
+                System.out.println("Opened read-only snapshot '" + snapshotFile + "' (" + snapshot.size()
+                        + " events) in " + (System.nanoTime() - started) / 1_000_000 + " ms.");
+                model = snapshot;
+            } catch (IOException e) {
+                System.err.println("Error: Could not open snapshot '" + snapshotFile + "': " + e.getMessage());
+                return;
+            }
+        } else {
+            model = newModel(store, parallelThreshold);
+        }
+        // named calendars use the same store as the default one
+        final String namedStore = store;
+        final int namedThreshold = parallelThreshold;
+        CalendarRegistry registry;
+        if (calendarDirectory != null) {
+            try {
+                registry = CalendarRegistry.open(model,
+                        () -> namedThreshold > 0 ? new CalendarModelImpl(namedThreshold) : new CalendarModelImpl(),
+                        Paths.get(calendarDirectory), maxLoaded);
+            } catch (IOException e) {
+                System.err.println("Error: Could not open calendars in '" + calendarDirectory + "': " + e.getMessage());
+                return;
+            }
+        } else {
+            registry = new CalendarRegistry(model, () -> newModel(namedStore, namedThreshold));
+        }
+        ICalendarView view = new CalendarViewImpl(headless);
+        IController controller = new CalendarControllerImpl(registry, view, echoCommands, parserThreads);
+        PrintStream console = System.err;
+        if (headless) {
+            // models and the registry print their own errors; flush the buffered results first to keep them in order
+            System.setErr(new PrintStream(new ViewFlushingStream(view, console), true));
+        }
 
         // Run the application
-        controller.run(modeArg, commandFilePath);
+        try {
+            controller.run(modeArg, commandFilePath);
+        } finally {
+            System.setErr(console);
+            if (exportFile != null) {
+                try {
+                    int written = ColumnarSnapshot.write(Paths.get(exportFile), model);
+                    System.out.println("Wrote " + written + " events to snapshot '" + exportFile + "'.");
+                } catch (IOException e) {
+                    System.err.println("Error: Could not write snapshot '" + exportFile + "': " + e.getMessage());
+                }
+            }
+            try {
+                registry.close();
+            } catch (IOException e) {
+                System.err.println("Error: Could not save calendars: " + e.getMessage());
+            }
+            if (journaledModel != null) {
+                try {
+                    journaledModel.close();
+                } catch (IOException e) {
+                    System.err.println("Error: Could not save calendar data: " + e.getMessage());
+                }
+            }
+        }
 
         System.out.println("calendar application finished.");
     }
 
+/**
+     * makes an empty calendar kept in the given store.
+     * @param store the store name, already validated
+     * @param parallelThreshold the parallel threshold of the object store, or 0 for its default
+     * @return the model
+     */
+    private static ICalendarModel newModel(String store, int parallelThreshold) {
+        switch (store) {
+            case "arrays":
+                return new ArrayCalendarModel();
+            case "offheap":
+                return new ArrayCalendarModel(new OffHeapEventTable());
+            case "persistent":
+                return new PersistentCalendarModel();
+            case "sharded":
+                return new ShardedCalendarModel();
+            case "concurrent":
+                return new ConcurrentCalendarModel();
+            default:
+                return parallelThreshold > 0 ? new CalendarModelImpl(parallelThreshold) : new CalendarModelImpl();
+        }
+    }
+
 /**
       * prints the usage instructions for the calendar application.
       */
     private static void printUsage() {
-        System.err.println("Usage: java calendar.CalendarApp --mode interactive");
-        System.err.println("   or: java calendar.CalendarApp --mode headless <path_to_command_file>");
+        System.err.println("Usage: java calendar.CalendarApp --mode interactive [options]");
+        System.err.println("   or: java calendar.CalendarApp --mode headless <path_to_command_file> [--no-echo] [--parallel] [options]");
+        System.err.println("Options:");
+        System.err.println("   --data-dir <directory>     keep the calendar in a directory across runs");
+        System.err.println("   --snapshot <file>          open a calendar snapshot, read-only");
+        System.err.println("   --export-snapshot <file>   write the calendar to a snapshot file on exit");
+        System.err.println("   --store objects|arrays|offheap|persistent|sharded|concurrent");
+        System.err.println("                              keep events as objects (default), in primitive arrays,");
+        System.err.println("                              in memory outside the Java heap, in immutable versions,");
+        System.err.println("                              in month shards locked separately, or as objects behind");
+        System.err.println("                              a read-write lock");
+        System.err.println("   --calendar-dir <directory> spill idle named calendars to a directory and keep them across runs");
+        System.err.println("                              (object store only; otherwise named calendars use --store)");
+        System.err.println("   --max-loaded <n>           named calendars kept in memory with --calendar-dir (default "
+                + CalendarRegistry.DEFAULT_MAX_LOADED + ")");
+        System.err.println("   --parallel-threshold <n>   gather range queries expected to return n or more events");
+        System.err.println("                              in parallel (default " + CalendarModelImpl.DEFAULT_PARALLEL_THRESHOLD + ")");
+    }
+
+/**
+     * the standard error stream used while headless results are buffered: writes out the view's buffered
+     * messages, then passes the bytes on to the original stream.
+     */
+    private static final class ViewFlushingStream extends OutputStream {
+        private final ICalendarView view;
+        private final PrintStream console;
+
+        private ViewFlushingStream(ICalendarView view, PrintStream console) {
+            this.view = view;
+            this.console = console;
+        }
+
+        @Override
+        public void write(int b) {
+            view.flush();
+            console.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            view.flush();
+            console.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            console.flush();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package calendar;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of binary records with group commit.
+ * Each record is framed as its length, its bytes and a CRC-32 of the bytes. Appended records are
+ * collected in memory and written with a single write and a single fsync once a group of
+ * {@code groupCommitSize} records is complete, or when {@link #commit()} is called; a crash can
+ * therefore lose at most the last, uncommitted group. A record cut short by a crash fails its length
+ * or checksum test and is dropped, together with anything after it, when the journal is read back.
+ */
+public class CalendarJournal implements Closeable {
+    private static final int FRAME_OVERHEAD = 8;
+
+    private final FileChannel channel;
+    private final int groupCommitSize;
+    private final ByteArrayOutputStream pending;
+    private final DataOutputStream pendingOut;
+    private final CRC32 checksum;
+    private int pendingRecords;
+
+    /**
+     * Opens a journal for appending, creating the file if needed.
+     * @param file the journal file
+     * @param groupCommitSize the number of records written and synced together (at least 1)
+     * @throws IOException if the file cannot be opened
+     */
+    public CalendarJournal(Path file, int groupCommitSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.groupCommitSize = Math.max(1, groupCommitSize);
+        this.pending = new ByteArrayOutputStream();
+        this.pendingOut = new DataOutputStream(pending);
+        this.checksum = new CRC32();
+        this.pendingRecords = 0;
+    }
+
+    /**
+     * Appends a record, committing the current group if it is now complete.
+     * @param record the record bytes
+     * @throws IOException if a commit fails
+     */
+    public void append(byte[] record) throws IOException {
+        checksum.reset();
+        checksum.update(record);
+        pendingOut.writeInt(record.length);
+        pendingOut.write(record);
+        pendingOut.writeInt((int) checksum.getValue());
+        if (++pendingRecords >= groupCommitSize) {
+            commit();
+        }
+    }
+
+    /**
+     * Writes every appended record to the file and forces it to storage.
+     * @throws IOException if writing or syncing fails
+     */
+    public void commit() throws IOException {
+        if (pendingRecords == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        pending.reset();
+        pendingRecords = 0;
+    }
+
+    /**
+     * Commits the pending records and closes the file.
+     * @throws IOException if the final commit or closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads every intact record of a journal file, in order.
+     * A torn or corrupt record ends the journal: it and everything after it are cut from the file,
+     * so later appends follow the last intact record.
+     * @param file the journal file; a missing file holds no records
+     * @return the record bytes
+     * @throws IOException if the file cannot be read or truncated
+     */
+    public static List<byte[]> readRecords(Path file) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return records;
+        }
+        long fileSize = Files.size(file);
+        long validSize = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int length = in.readInt();
+                if (length < 0 || length > fileSize - validSize - FRAME_OVERHEAD) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                int storedChecksum = in.readInt();
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != storedChecksum) {
+                    break;
+                }
+                records.add(record);
+                validSize += length + FRAME_OVERHEAD;
+            }
+        } catch (EOFException e) {
+            // a record cut short at the end of the file
+        }
+        if (validSize < fileSize) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validSize);
+                channel.force(false);
+            }
+        }
+        return records;
+    }
+}
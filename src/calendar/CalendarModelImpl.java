@@ -1,47 +1,357 @@
 package calendar;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
-import java.time.DayOfWeek;
 
 /**
  * Implementation of the ICalendarModel interface that manages calendar events.
  * This class handles creating, editing, and querying calendar events and event series.
+ * Single events and edited series occurrences are stored as concrete events; the untouched
+ * occurrences of a series are kept as a {@link RecurrenceRule} and only expanded when queried.
  */
 public class CalendarModelImpl implements ICalendarModel {
-    private List<IEvent> events;
+    private static final Time ALL_DAY_START = Time.of(8, 0);
+    private static final Time ALL_DAY_END = Time.of(17, 0);
+    private static final int BUSY_DAYS_CACHED = 4096;
+    private static final int PARALLEL_LEAF_SIZE = 2048;
+    private static final boolean MULTIPROCESSOR = Runtime.getRuntime().availableProcessors() > 1;
+    private static final Comparator<IEvent> BY_START = Comparator
+            .comparingLong((IEvent event) -> event.getStart().toEpochMinute())
+            .thenComparingLong(CalendarModelImpl::effectiveEndMinute);
+
+    /** The default for the smallest expected range query result gathered in parallel. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+
+    private IntervalTree<IEvent> intervalIndex;
+    private Map<IEvent, List<IEvent>> identityIndex;
+    private Map<Long, List<IEvent>> dayIndex;
+    private Map<Long, List<IEvent>> seriesIndex;
+    private IntervalTree<RecurrenceRule> ruleIndex;
+    private Map<Long, RecurrenceRule> rulesBySeriesId;
+    private StringDictionary strings;
+    private BusyDayBitmaps busyDays;
+    private long lastSeriesId;
+    private final int parallelThreshold;
 
     /**
-     * Constructs a new CalendarModelImpl with an empty list of events.
+     * Constructs a new CalendarModelImpl with no events, using {@link #DEFAULT_PARALLEL_THRESHOLD}.
      */
     public CalendarModelImpl() {
-        this.events = new ArrayList<>();
+        this(DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new CalendarModelImpl with no events.
+     * @param parallelThreshold the number of events a range query is expected to return from which it is
+     *                          gathered on the common ForkJoin pool; {@link Integer#MAX_VALUE} keeps every query sequential
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public CalendarModelImpl(int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("The parallel threshold must be positive.");
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.intervalIndex = new IntervalTree<>();
+        this.identityIndex = new HashMap<>();
+        this.dayIndex = new HashMap<>();
+        this.seriesIndex = new HashMap<>();
+        this.ruleIndex = new IntervalTree<>();
+        this.rulesBySeriesId = new HashMap<>();
+        this.strings = new StringDictionary();
+        this.busyDays = new BusyDayBitmaps(BUSY_DAYS_CACHED);
+        this.lastSeriesId = IEvent.NO_SERIES;
+    }
+
+    /**
+     * Gets the series ID the next new series will use.
+     * IDs count up from 1 and are only used up by calls that succeed (see {@link #claimSeriesId(long)}),
+     * so they stay compact and replaying the successful calls of a history allocates the same ones.
+     * @return an ID no series of this model has used
+     */
+    private long unusedSeriesId() {
+        return lastSeriesId + 1;
+    }
+
+    /**
+     * Marks a series ID from {@link #unusedSeriesId()} as used.
+     * @param seriesId the ID, or {@link IEvent#NO_SERIES} if no new series was made
+     */
+    private void claimSeriesId(long seriesId) {
+        lastSeriesId = Math.max(lastSeriesId, seriesId);
+    }
+
+    /**
+     * Replaces the text fields of an event entering the model with their shared dictionary instances.
+     * @param event the event to update
+     */
+    private void internStrings(IEvent event) {
+        event.setSubject(strings.intern(event.getSubject()));
+        event.setLocation(strings.intern(event.getLocation()));
+        event.setDescription(strings.intern(event.getDescription()));
+        event.setStatus(strings.intern(event.getStatus()));
+    }
+
+    /**
+     * Inserts an event into the bucket of every day it touches, keeping each bucket ordered by start.
+     * @param event the event to index
+     */
+    private void addToDayIndex(IEvent event) {
+        long start = event.getStart().toEpochMinute();
+        long firstDay = event.getStart().getDate().toEpochDay();
+        long lastDay = Math.floorDiv(effectiveEndMinute(event), DateTime.MINUTES_PER_DAY);
+        for (long day = firstDay; day <= lastDay; day++) {
+            List<IEvent> bucket = dayIndex.computeIfAbsent(day, key -> new ArrayList<>());
+            int position = bucket.size();
+            while (position > 0 && start < bucket.get(position - 1).getStart().toEpochMinute()) {
+                position--;
+            }
+            bucket.add(position, event);
+        }
+    }
+
+    /**
+     * Removes an event from the bucket of every day it touches.
+     * @param event the event to remove (matched by identity)
+     */
+    private void removeFromDayIndex(IEvent event) {
+        long firstDay = event.getStart().getDate().toEpochDay();
+        long lastDay = Math.floorDiv(effectiveEndMinute(event), DateTime.MINUTES_PER_DAY);
+        for (long day = firstDay; day <= lastDay; day++) {
+            List<IEvent> bucket = dayIndex.get(day);
+            if (bucket == null) {
+                continue;
+            }
+            bucket.removeIf(existing -> existing == event);
+            if (bucket.isEmpty()) {
+                dayIndex.remove(day);
+            }
+        }
+    }
+
+    /**
+     * Gets the end used for indexing and overlap checks, falling back to 17:00 on the start date.
+     * @param event the event whose end is needed
+     * @return the effective end of the event, in epoch minutes
+     */
+    private static long effectiveEndMinute(IEvent event) {
+        if (event.getEnd() != null) {
+            return event.getEnd().toEpochMinute();
+        }
+        return event.getStart().getDate().toEpochDay() * DateTime.MINUTES_PER_DAY + ALL_DAY_END.toMinuteOfDay();
+    }
+
+    /**
+     * Finds the position of the first event in a start-ordered list that does not start before the given time.
+     * @param ordered a list of events ordered by start
+     * @param start the start to search for, in epoch minutes
+     * @return the index of the first event starting at or after {@code start}, or the list size if there is none
+     */
+    private static int firstStartingAtOrAfter(List<IEvent> ordered, long start) {
+        int low = 0;
+        int high = ordered.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ordered.get(mid).getStart().toEpochMinute() < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Inserts an event into the member list of its series, keeping the list ordered by start.
+     * @param event the event to index; ignored if it has no series ID
+     */
+    private void addToSeriesIndex(IEvent event) {
+        if (event.getSeriesId() == IEvent.NO_SERIES) {
+            return;
+        }
+        List<IEvent> members = seriesIndex.computeIfAbsent(event.getSeriesId(), key -> new ArrayList<>());
+        long start = event.getStart().toEpochMinute();
+        int position = members.size();
+        if (position > 0 && start < members.get(position - 1).getStart().toEpochMinute()) {
+            position = firstStartingAtOrAfter(members, start);
+            while (position < members.size() && members.get(position).getStart().toEpochMinute() == start) {
+                position++;
+            }
+        }
+        members.add(position, event);
+    }
+
+    /**
+     * Removes an event from the member list of its series.
+     * @param event the event to remove (matched by identity)
+     */
+    private void removeFromSeriesIndex(IEvent event) {
+        if (event.getSeriesId() == IEvent.NO_SERIES) {
+            return;
+        }
+        List<IEvent> members = seriesIndex.get(event.getSeriesId());
+        if (members == null) {
+            return;
+        }
+        members.removeIf(existing -> existing == event);
+        if (members.isEmpty()) {
+            seriesIndex.remove(event.getSeriesId());
+        }
+    }
+
+    /**
+     * Adds an event to the calendar and to every index kept over it.
+     * @param event the event to add
+     */
+    private void addEvent(IEvent event) {
+        internStrings(event);
+        intervalIndex.insert(event.getStart().toEpochMinute(), effectiveEndMinute(event), event);
+        busyDays.markBusy(event.getStart().toEpochMinute(), effectiveEndMinute(event));
+        identityIndex.computeIfAbsent(event, key -> new ArrayList<>(1)).add(event);
+        addToDayIndex(event);
+        addToSeriesIndex(event);
+    }
+
+    /**
+     * Removes an event from the calendar and from every index kept over it.
+     * @param event the event to remove (matched by identity)
+     */
+    private void removeEvent(IEvent event) {
+        if (intervalIndex.remove(event)) {
+            List<IEvent> sameIdentity = identityIndex.get(event);
+            sameIdentity.removeIf(existing -> existing == event);
+            if (sameIdentity.isEmpty()) {
+                identityIndex.remove(event);
+            }
+            removeFromDayIndex(event);
+            removeFromSeriesIndex(event);
+            busyDays.invalidate(event.getStart().toEpochMinute(), effectiveEndMinute(event));
+        }
+    }
+
+    /**
+     * Adds a recurrence rule to the calendar and indexes it by its span and series ID.
+     * @param rule the rule to add
+     */
+    private void addRule(RecurrenceRule rule) {
+        ruleIndex.insert(rule.spanStart(), rule.spanEnd(), rule);
+        rulesBySeriesId.put(rule.getSeriesId(), rule);
+        busyDays.markBusy(rule);
+    }
+
+    /**
+     * Removes a recurrence rule from the calendar.
+     * @param rule the rule to remove (matched by identity)
+     */
+    private void removeRule(RecurrenceRule rule) {
+        if (ruleIndex.remove(rule)) {
+            rulesBySeriesId.remove(rule.getSeriesId());
+            busyDays.invalidate(rule.spanStart(), rule.spanEnd());
+        }
+    }
+
+    /**
+     * Gets the rules whose span reaches the given instant, the only ones that can have an occurrence starting there.
+     * @param at the instant, in epoch minutes
+     * @return the rules around the instant
+     */
+    private List<RecurrenceRule> rulesAround(long at) {
+        return ruleIndex.overlapping(at - 1, at + 1);
+    }
+
+    /**
+     * Sorts a list of events by start, then by end, keeping the relative order of ties.
+     * @param events the list to sort
+     */
+    private static void sortByStart(List<IEvent> events) {
+        events.sort(BY_START);
+    }
+
+    /**
+     * Gets the number of events a range query is expected to return from which it is gathered in parallel.
+     * @return the threshold
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
     }
 
     /**
      * Checks if an event would be a duplicate of an existing event.
-     * Events are considered duplicates if they have the same subject, start date/time, and end date/time.
+     * Events are considered duplicates if they have the same subject, start date/time, and end date/time,
+     * which is exactly {@link Event#equals(Object)}, so concrete events are found with a single lookup
+     * in the identity index and rule occurrences by asking the rules around the start.
      * @param eventToCheck the event to check for duplication
      * @param eventToExclude an event to exclude from the duplicate check (can be null)
+     * @param excludedRule the rule that produced eventToExclude, if it is a rule occurrence (can be null)
      * @return true if the event is a duplicate, false otherwise
      */
-    private boolean isDuplicate(IEvent eventToCheck, IEvent eventToExclude) {
-        for (IEvent existingEvent : events) {
-            if (existingEvent == eventToExclude) {
-                continue;
+    private boolean isDuplicate(IEvent eventToCheck, IEvent eventToExclude, RecurrenceRule excludedRule) {
+        List<IEvent> sameIdentity = identityIndex.get(eventToCheck);
+        if (sameIdentity != null) {
+            for (IEvent existingEvent : sameIdentity) {
+                if (existingEvent != eventToExclude) {
+                    return true;
+                }
             }
-            if (existingEvent.getSubject().equals(eventToCheck.getSubject()) &&
-                existingEvent.getStart().equals(eventToCheck.getStart()) &&
-                Objects.equals(existingEvent.getEnd(), eventToCheck.getEnd())) {
+        }
+        if (eventToCheck.getEnd() == null) {
+            return false;
+        }
+        long start = eventToCheck.getStart().toEpochMinute();
+        long end = eventToCheck.getEnd().toEpochMinute();
+        long excludedDay = eventToExclude == null ? RecurrenceRule.NO_OCCURRENCE : eventToExclude.getStart().getDate().toEpochDay();
+        for (RecurrenceRule rule : rulesAround(start)) {
+            long day = rule.matchingOccurrenceDay(eventToCheck.getSubject(), start, end);
+            if (day != RecurrenceRule.NO_OCCURRENCE && (rule != excludedRule || day != excludedDay)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Finds the first occurrence of a rule that duplicates an event already in the calendar,
+     * either a concrete event or an occurrence of another rule with the same subject and times.
+     * @param candidate the rule to check
+     * @param excludedRule a rule to leave out of the check (can be null)
+     * @return the epoch day of the first conflicting occurrence, or {@link RecurrenceRule#NO_OCCURRENCE} if there is none
+     */
+    private long firstConflictingDay(RecurrenceRule candidate, RecurrenceRule excludedRule) {
+        long conflictDay = RecurrenceRule.NO_OCCURRENCE;
+        long from = candidate.spanStart() - 1;
+        long to = candidate.spanEnd() + 1;
+        for (IEvent existingEvent : intervalIndex.overlapping(from, to)) {
+            if (existingEvent.getEnd() == null) {
+                continue;
+            }
+            long day = candidate.matchingOccurrenceDay(existingEvent.getSubject(),
+                    existingEvent.getStart().toEpochMinute(), existingEvent.getEnd().toEpochMinute());
+            if (day != RecurrenceRule.NO_OCCURRENCE) {
+                conflictDay = day;
+                break;
+            }
+        }
+        for (RecurrenceRule otherRule : ruleIndex.overlapping(from, to)) {
+            if (otherRule == excludedRule
+                    || !otherRule.getSubject().equals(candidate.getSubject())
+                    || otherRule.getStartTime().toMinuteOfDay() != candidate.getStartTime().toMinuteOfDay()
+                    || otherRule.getEndTime().toMinuteOfDay() != candidate.getEndTime().toMinuteOfDay()) {
+                continue;
+            }
+            conflictDay = Math.min(conflictDay, candidate.firstCommonDay(otherRule));
+        }
+        return conflictDay;
+    }
+
     /**
      * Creates a single calendar event.
      * @param subject the event subject (required)
@@ -64,8 +374,8 @@ public class CalendarModelImpl implements ICalendarModel {
 
         if (effectiveEnd == null) {
             Date date = startDateTime.getDate();
-            effectiveStart = new DateTime(date, new Time(8, 0));
-            effectiveEnd = new DateTime(date, new Time(17, 0));
+            effectiveStart = new DateTime(date, ALL_DAY_START);
+            effectiveEnd = new DateTime(date, ALL_DAY_END);
         }
 
         if (effectiveEnd.isBefore(effectiveStart)) {
@@ -75,24 +385,27 @@ public class CalendarModelImpl implements ICalendarModel {
 
         IEvent newEvent = new Event(subject, location, effectiveStart, effectiveEnd, status, description);
 
-        if (isDuplicate(newEvent, null)) {
+        if (isDuplicate(newEvent, null, null)) {
             System.err.println("Error: An event with the same subject, start date/time, and end date/time already exists.");
             return false;
         }
 
-        events.add(newEvent);
+        addEvent(newEvent);
         return true;
     }
 
     /**
      * Creates a series of recurring calendar events.
+     * The series is stored as one recurrence rule, so creating it costs the same however many occurrences it has.
+     * It must fit in {@link RecurrenceRule#MAX_SERIES_SPAN_DAYS} days: a count that does not is refused, and
+     * occurrences past that limit before the series end date are not generated.
      * @param subject the event subject (required)
      * @param seriesStartDateTime the start date and time for the series (required)
      * @param seriesEndDateTime the end date and time for each event in the series (null for all-day events)
      * @param description the event description (can be null)
      * @param location the event location (can be null)
      * @param status the event status ("public" or "private")
-     * @param repeatDays the days of the week on which to repeat the event (required)
+     * @param repeatDays the days of the week on which to repeat the event, as a {@link Weekdays} mask (required)
      * @param occurrences the number of occurrences (null if using seriesEndDate)
      * @param seriesEndDate the date after which to stop creating events (null if using occurrences)
      * @return true if the event series was created successfully, false otherwise
@@ -100,9 +413,9 @@ public class CalendarModelImpl implements ICalendarModel {
     @Override
     public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
                                      String description, String location, String status,
-                                     List<DayOfWeek> repeatDays, Integer occurrences, Date seriesEndDate) {
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
 
-        if (seriesStartDateTime == null || subject == null || subject.trim().isEmpty() || repeatDays == null || repeatDays.isEmpty()) {
+        if (seriesStartDateTime == null || subject == null || subject.trim().isEmpty() || Weekdays.size(repeatDays) == 0) {
             System.err.println("Error: Subject, start date/time, and repeat days are required for a series.");
             return false;
         }
@@ -124,127 +437,111 @@ public class CalendarModelImpl implements ICalendarModel {
 
         if (effectiveSeriesEnd == null) {
             Date date = seriesStartDateTime.getDate();
-            effectiveSeriesStart = new DateTime(date, new Time(8, 0));
-            effectiveSeriesEnd = new DateTime(date, new Time(17, 0));
+            effectiveSeriesStart = new DateTime(date, ALL_DAY_START);
+            effectiveSeriesEnd = new DateTime(date, ALL_DAY_END);
         }
         
-        if (seriesEndDate != null) {
-            boolean endDateIsBeforeStartDate = seriesEndDate.getYear() < effectiveSeriesStart.getDate().getYear() ||
-               (seriesEndDate.getYear() == effectiveSeriesStart.getDate().getYear() && seriesEndDate.getMonth() < effectiveSeriesStart.getDate().getMonth()) ||
-               (seriesEndDate.getYear() == effectiveSeriesStart.getDate().getYear() && seriesEndDate.getMonth() == effectiveSeriesStart.getDate().getMonth() && seriesEndDate.getDay() < effectiveSeriesStart.getDate().getDay());
-            if (endDateIsBeforeStartDate) {
-                System.err.println("Error: Series end date cannot be before the series start date.");
-                return false;
-            }
+        long firstDay = effectiveSeriesStart.getDate().toEpochDay();
+        if (seriesEndDate != null && seriesEndDate.toEpochDay() < firstDay) {
+            System.err.println("Error: Series end date cannot be before the series start date.");
+            return false;
         }
 
-        if (effectiveSeriesStart.getDate().getYear() != effectiveSeriesEnd.getDate().getYear() ||
-            effectiveSeriesStart.getDate().getMonth() != effectiveSeriesEnd.getDate().getMonth() ||
-            effectiveSeriesStart.getDate().getDay() != effectiveSeriesEnd.getDate().getDay()) {
+        if (effectiveSeriesEnd.getDate().toEpochDay() != firstDay) {
             System.err.println("Error: For recurring events, the start and end time must be on the same day.");
             return false;
         }
 
-        List<IEvent> potentialSeriesEvents = new ArrayList<>();
-        Date currentDate = new Date(effectiveSeriesStart.getDate().getDay(), effectiveSeriesStart.getDate().getMonth(), effectiveSeriesStart.getDate().getYear());
-        int eventsCreated = 0;
-        String generatedSeriesId = UUID.randomUUID().toString();
-
         Time startTime = effectiveSeriesStart.getTime();
         Time endTime = effectiveSeriesEnd.getTime();
+        if (endTime.toMinuteOfDay() < startTime.toMinuteOfDay()) {
+            System.err.println("Error: Event end time cannot be before start time.");
+            return false;
+        }
 
-        int safetyBreak = 0;
-
-        while (safetyBreak++ < (366 * 5)) {
-            if (occurrences != null && eventsCreated >= occurrences) {
-                break;
-            }
-            if (seriesEndDate != null && 
-                (currentDate.getYear() > seriesEndDate.getYear() ||
-                 (currentDate.getYear() == seriesEndDate.getYear() && currentDate.getMonth() > seriesEndDate.getMonth()) ||
-                 (currentDate.getYear() == seriesEndDate.getYear() && currentDate.getMonth() == seriesEndDate.getMonth() && currentDate.getDay() > seriesEndDate.getDay()))) {
-                break;
-            }
-
-            java.time.LocalDate tempLocalDate = java.time.LocalDate.of(currentDate.getYear(), currentDate.getMonth(), currentDate.getDay());
-            if (repeatDays.contains(tempLocalDate.getDayOfWeek())) {
-                DateTime eventStartDt = new DateTime(new Date(currentDate.getDay(), currentDate.getMonth(), currentDate.getYear()), startTime);
-                DateTime eventEndDt = new DateTime(new Date(currentDate.getDay(), currentDate.getMonth(), currentDate.getYear()), endTime);
-                
-                IEvent seriesInstance = new Event(subject, location, eventStartDt, eventEndDt, status, description);
-                seriesInstance.setSeriesId(generatedSeriesId);
-                seriesInstance.setOriginalSeriesId(generatedSeriesId);
-                if (seriesInstance instanceof Event) {
-                    ((Event) seriesInstance).setIsSeriesFlag(true);
-                    ((Event) seriesInstance).setDaysOfWeekList(new ArrayList<>(repeatDays));
-                }
-
-                boolean conflict = false;
-                if (isDuplicate(seriesInstance, null)) {
-                    conflict = true;
-                }
-                if (!conflict) {
-                    for (IEvent potentialEvent : potentialSeriesEvents) {
-                        if (potentialEvent.getSubject().equals(seriesInstance.getSubject()) &&
-                            potentialEvent.getStart().equals(seriesInstance.getStart()) &&
-                            Objects.equals(potentialEvent.getEnd(), seriesInstance.getEnd())) {
-                            conflict = true;
-                            break;
-                        }
-                    }
-                }
-
-                if (conflict) {
-                    System.err.println("Error: A generated event in the series conflicts with an existing or another potential series event: "
-                                       + seriesInstance.getSubject() + " on " + seriesInstance.getStart());
-                    return false; 
-                }
-                potentialSeriesEvents.add(seriesInstance);
-                eventsCreated++;
-            }
-            currentDate.advance(1);
+        long generatedSeriesId = unusedSeriesId();
+        IEvent template = new Event(subject, location, effectiveSeriesStart, effectiveSeriesEnd, status, description);
+        template.setSeriesId(generatedSeriesId);
+        template.setOriginalSeriesId(generatedSeriesId);
+        if (template instanceof Event) {
+            ((Event) template).setIsSeriesFlag(true);
+            ((Event) template).setDaysOfWeekMask(repeatDays);
         }
-        
-        if (safetyBreak >= (366*5) && (occurrences == null || eventsCreated < occurrences) && seriesEndDate == null) {
-            System.err.println("Error: Series generation exceeded safety limit. Please specify occurrences or a valid end date.");
+        internStrings(template);
+
+        RecurrenceRule rule;
+        try {
+            rule = occurrences != null
+                    ? RecurrenceRule.forCount(template, startTime, endTime, repeatDays, firstDay, occurrences)
+                    : RecurrenceRule.forUntil(template, startTime, endTime, repeatDays, firstDay, seriesEndDate.toEpochDay());
+        } catch (IllegalArgumentException e) {
+            // a series too long for the span limit is refused before conflicts are looked for
+            System.err.println("Error: " + e.getMessage());
             return false;
         }
 
-        if (potentialSeriesEvents.isEmpty() && (occurrences != null && occurrences > 0 || seriesEndDate != null)) {
+        if (rule == null) {
             System.err.println("Warning: No events were generated for the series based on the criteria.");
+            return true;
+        }
+
+        long conflictDay = firstConflictingDay(rule, null);
+        if (conflictDay != RecurrenceRule.NO_OCCURRENCE) {
+            IEvent conflictingInstance = rule.occurrence(conflictDay);
+            System.err.println("Error: A generated event in the series conflicts with an existing or another potential series event: "
+                               + conflictingInstance.getSubject() + " on " + conflictingInstance.getStart());
+            return false;
         }
 
-        this.events.addAll(potentialSeriesEvents);
+        addRule(rule);
+        claimSeriesId(generatedSeriesId);
         return true;
     }
     
     /**
      * Edits an existing event or series of events.
+     * Edits to a single series occurrence detach it from its rule and store it as a concrete event.
+     * Subject, description, location and status edits to a whole series, or to its future part,
+     * replace the rule (split at the anchor for "future") without expanding it; start and end edits
+     * turn the affected occurrences into concrete events, since each one then gets its own absolute time.
      * @param findSubject the subject of the event to find
      * @param findStartDateTime the start date/time of the event to find
      * @param findEndDateTime the end date/time of the event to find (required for "this" scope)
-     * @param propertyToChange the property to modify (subject, start, end, description, location, status)
-     * @param newValue the new value for the property
+     * @param edit the property change to apply
      * @param scope the scope of the edit ("this", "future", or "all")
      * @return true if the edit was successful, false otherwise
      */
     @Override
     public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
-                             String propertyToChange, Object newValue, String scope) {
+                             EventEdit edit, String scope) {
         List<IEvent> targetEvents = new ArrayList<>();
+        Map<IEvent, RecurrenceRule> occurrenceRules = new IdentityHashMap<>();
+        RecurrenceRule targetRule = null;
+        RecurrenceRule ruleTail = null;
+        RecurrenceRule ruleHead = null;
         IEvent anchorEvent = null;
 
         if ("this".equals(scope)) {
             if (findEndDateTime == null && findStartDateTime != null) {
                  Date date = findStartDateTime.getDate();
-                 findStartDateTime = new DateTime(date, new Time(8,0));
-                 findEndDateTime = new DateTime(date, new Time(17,0));
+                 findStartDateTime = new DateTime(date, ALL_DAY_START);
+                 findEndDateTime = new DateTime(date, ALL_DAY_END);
             }
-            for (IEvent event : events) {
-                if (event.getSubject().equals(findSubject) &&
-                    event.getStart().equals(findStartDateTime) &&
-                    Objects.equals(event.getEnd(), findEndDateTime)) {
-                    targetEvents.add(event);
+            if (findSubject != null && findStartDateTime != null) {
+                IEvent probe = new Event(findSubject, null, findStartDateTime, findEndDateTime, null, null);
+                List<IEvent> sameIdentity = identityIndex.get(probe);
+                if (sameIdentity != null) {
+                    targetEvents.addAll(sameIdentity);
+                }
+                long start = findStartDateTime.toEpochMinute();
+                long end = findEndDateTime.toEpochMinute();
+                for (RecurrenceRule rule : rulesAround(start)) {
+                    long day = rule.matchingOccurrenceDay(findSubject, start, end);
+                    if (day != RecurrenceRule.NO_OCCURRENCE) {
+                        IEvent occurrence = rule.occurrence(day);
+                        occurrenceRules.put(occurrence, rule);
+                        targetEvents.add(occurrence);
+                    }
                 }
             }
             if (targetEvents.isEmpty()) {
@@ -256,11 +553,30 @@ public class CalendarModelImpl implements ICalendarModel {
                 return false;
             }
             anchorEvent = targetEvents.get(0);
+            targetRule = occurrenceRules.get(anchorEvent);
+            if (targetRule != null) {
+                RecurrenceRule remaining = targetRule.withException(anchorEvent.getStart().getDate().toEpochDay());
+                ruleHead = remaining.hasOccurrences() ? remaining : null;
+            }
         } else {
             List<IEvent> candidates = new ArrayList<>();
-            for (IEvent event : events) {
-                if (event.getSubject().equals(findSubject) && event.getStart().equals(findStartDateTime)) {
-                    candidates.add(event);
+            if (findStartDateTime != null) {
+                long start = findStartDateTime.toEpochMinute();
+                for (RecurrenceRule rule : rulesAround(start)) {
+                    long day = rule.getSubject().equals(findSubject) ? rule.occurrenceDayStartingAt(start) : RecurrenceRule.NO_OCCURRENCE;
+                    if (day != RecurrenceRule.NO_OCCURRENCE) {
+                        IEvent occurrence = rule.occurrence(day);
+                        occurrenceRules.put(occurrence, rule);
+                        candidates.add(occurrence);
+                    }
+                }
+                List<IEvent> sameDay = dayIndex.get(findStartDateTime.getDate().toEpochDay());
+                if (sameDay != null) {
+                    for (IEvent event : sameDay) {
+                        if (event.getSubject().equals(findSubject) && event.getStart().equals(findStartDateTime)) {
+                            candidates.add(event);
+                        }
+                    }
                 }
             }
             if (candidates.isEmpty()) {
@@ -270,29 +586,42 @@ public class CalendarModelImpl implements ICalendarModel {
             anchorEvent = candidates.get(0);
             
             if (candidates.size() > 1) {
-                String firstSeriesId = anchorEvent.getSeriesId();
-                if (firstSeriesId == null) {
+                long firstSeriesId = anchorEvent.getSeriesId();
+                if (firstSeriesId == IEvent.NO_SERIES) {
                      System.err.println("Error: Ambiguous edit. Multiple non-series events match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
                      return false;
                 }
                 for (IEvent candidate : candidates) {
-                    if (!firstSeriesId.equals(candidate.getSeriesId())) {
+                    if (firstSeriesId != candidate.getSeriesId()) {
                         System.err.println("Error: Ambiguous edit. Multiple distinct series match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
                         return false;
                     }
                 }
             }
 
+            long seriesIdToMatch = anchorEvent.getSeriesId();
             if ("future".equals(scope)) {
-                if (anchorEvent.getSeriesId() != null) {
+                if (seriesIdToMatch != IEvent.NO_SERIES) {
                     if (anchorEvent.isSeriesException()) {
                         targetEvents.add(anchorEvent);
                     } else {
-                        for (IEvent event : events) {
-                            if (anchorEvent.getSeriesId().equals(event.getSeriesId()) &&
-                                !event.getStart().isBefore(anchorEvent.getStart()) &&
-                                !event.isSeriesException()) {
-                                targetEvents.add(event);
+                        long anchorStart = anchorEvent.getStart().toEpochMinute();
+                        List<IEvent> members = seriesIndex.get(seriesIdToMatch);
+                        if (members != null) {
+                            List<IEvent> thisAndFuture = members.subList(firstStartingAtOrAfter(members, anchorStart), members.size());
+                            for (IEvent event : thisAndFuture) {
+                                if (!event.isSeriesException()) {
+                                    targetEvents.add(event);
+                                }
+                            }
+                        }
+                        RecurrenceRule rule = rulesBySeriesId.get(seriesIdToMatch);
+                        if (rule != null) {
+                            long splitDay = -Math.floorDiv(rule.getStartTime().toMinuteOfDay() - anchorStart, DateTime.MINUTES_PER_DAY);
+                            ruleTail = rule.from(splitDay);
+                            if (ruleTail != null) {
+                                targetRule = rule;
+                                ruleHead = rule.until(splitDay);
                             }
                         }
                     }
@@ -300,65 +629,76 @@ public class CalendarModelImpl implements ICalendarModel {
                     targetEvents.add(anchorEvent);
                 }
             } else if ("all".equals(scope)) {
-                String seriesIdToMatch = anchorEvent.getSeriesId();
-                if (seriesIdToMatch != null) {
-                    for (IEvent event : events) {
-                        if (seriesIdToMatch.equals(event.getSeriesId())) {
-                            targetEvents.add(event);
-                        }
+                if (seriesIdToMatch != IEvent.NO_SERIES) {
+                    List<IEvent> members = seriesIndex.get(seriesIdToMatch);
+                    if (members != null) {
+                        targetEvents.addAll(members);
                     }
+                    targetRule = rulesBySeriesId.get(seriesIdToMatch);
+                    ruleTail = targetRule;
                 } else {
                     targetEvents.add(anchorEvent);
                 }
             }
         }
 
-        if (targetEvents.isEmpty()) {
+        if (targetEvents.isEmpty() && ruleTail == null) {
             System.err.println("Error: No events targeted for modification based on scope '" + scope + "'.");
             return false;
         }
 
         List<IEvent> eventsToRemove = new ArrayList<>();
         List<IEvent> eventsToAdd = new ArrayList<>();
-        boolean startPropertyChanged = propertyToChange.equalsIgnoreCase("start");
-        String newSeriesIdForSplit = null;
-        String newSeriesIdForFutureScope = null;
+        boolean startPropertyChanged = edit.changesStart();
+        boolean timePropertyChanged = edit.changesTime();
+        long newSeriesIdForSplit = IEvent.NO_SERIES;
+        long newSeriesIdForFutureScope = IEvent.NO_SERIES;
 
-        if (scope.equals("future") && anchorEvent != null && anchorEvent.getSeriesId() != null && !targetEvents.isEmpty()) {
-            newSeriesIdForFutureScope = UUID.randomUUID().toString();
-        } else if (startPropertyChanged && anchorEvent != null && anchorEvent.getSeriesId() != null && scope.equals("all") && !targetEvents.isEmpty()) {
-            newSeriesIdForSplit = UUID.randomUUID().toString();
+        if (scope.equals("future") && anchorEvent != null && anchorEvent.getSeriesId() != IEvent.NO_SERIES) {
+            newSeriesIdForFutureScope = unusedSeriesId();
+        } else if (startPropertyChanged && anchorEvent != null && anchorEvent.getSeriesId() != IEvent.NO_SERIES && scope.equals("all")) {
+            newSeriesIdForSplit = unusedSeriesId();
         }
 
-        for (IEvent originalEvent : targetEvents) {
+        IEvent ruleTemplate = null;
+        List<IEvent> originals = new ArrayList<>();
+        if (ruleTail != null && timePropertyChanged) {
+            List<IEvent> occurrences = new ArrayList<>();
+            ruleTail.addAllOccurrences(occurrences);
+            for (IEvent occurrence : occurrences) {
+                occurrenceRules.put(occurrence, targetRule);
+            }
+            targetEvents.addAll(occurrences);
+            targetEvents.sort(Comparator.comparingLong(event -> event.getStart().toEpochMinute()));
+        } else if (ruleTail != null) {
+            ruleTemplate = ruleTail.getTemplate();
+            originals.add(ruleTemplate);
+        }
+        originals.addAll(targetEvents);
+
+        IEvent newRuleTemplate = null;
+        IEvent conflictingEvent = null;
+        for (IEvent originalEvent : originals) {
             IEvent eventToModify = originalEvent.copy();
 
-            switch (propertyToChange.toLowerCase()) {
-                case "subject": eventToModify.setSubject((String) newValue); break;
-                case "start": eventToModify.setStart((DateTime) newValue); break;
-                case "end": eventToModify.setEnd((DateTime) newValue); break;
-                case "description": eventToModify.setDescription((String) newValue); break;
-                case "location": eventToModify.setLocation((String) newValue); break;
-                case "status": eventToModify.setStatus((String) newValue); break;
-                default: System.err.println("Error: Unknown property to change: " + propertyToChange); return false;
-            }
+            edit.applyTo(eventToModify);
 
-            String currentOriginalId = originalEvent.getOriginalSeriesId();
-            String currentSeriesId = originalEvent.getSeriesId();
+            long currentOriginalId = originalEvent.getOriginalSeriesId();
+            long currentSeriesId = originalEvent.getSeriesId();
 
-            eventToModify.setOriginalSeriesId(currentOriginalId != null ? currentOriginalId : currentSeriesId);
+            eventToModify.setOriginalSeriesId(currentOriginalId != IEvent.NO_SERIES ? currentOriginalId : currentSeriesId);
 
-            if (scope.equals("future") && newSeriesIdForFutureScope != null) {
+            if (scope.equals("future") && newSeriesIdForFutureScope != IEvent.NO_SERIES) {
                 eventToModify.setOriginalSeriesId(originalEvent.getSeriesId());
                 eventToModify.setSeriesId(newSeriesIdForFutureScope);
                 eventToModify.setSeriesException(false);
             } else if (scope.equals("all")) {
-                String masterSeriesIdForAnchor = anchorEvent.getSeriesId();
-                if (startPropertyChanged && newSeriesIdForSplit != null) {
+                long masterSeriesIdForAnchor = anchorEvent.getSeriesId();
+                if (startPropertyChanged && newSeriesIdForSplit != IEvent.NO_SERIES) {
                     eventToModify.setOriginalSeriesId(masterSeriesIdForAnchor);
                     eventToModify.setSeriesId(newSeriesIdForSplit);
                     eventToModify.setSeriesException(false);
-                } else if (!startPropertyChanged && masterSeriesIdForAnchor != null) {
+                } else if (!startPropertyChanged && masterSeriesIdForAnchor != IEvent.NO_SERIES) {
                     eventToModify.setSeriesId(masterSeriesIdForAnchor);
                     eventToModify.setOriginalSeriesId(masterSeriesIdForAnchor);
                     eventToModify.setSeriesException(false);
@@ -368,105 +708,368 @@ public class CalendarModelImpl implements ICalendarModel {
                 eventToModify.setSeriesException(true);
             }
 
-            if (isDuplicate(eventToModify, originalEvent)) {
-                System.err.println("Error: Modified event (" + eventToModify.getSubject() + " at " + eventToModify.getStart() + ") conflicts with an existing event.");
-                return false;
+            if (originalEvent == ruleTemplate) {
+                newRuleTemplate = eventToModify;
+                continue;
+            }
+
+            if (isDuplicate(eventToModify, originalEvent, occurrenceRules.get(originalEvent))) {
+                conflictingEvent = eventToModify;
+                break;
             }
             
             eventsToRemove.add(originalEvent);
             eventsToAdd.add(eventToModify);
         }
 
-        this.events.removeAll(eventsToRemove);
-        this.events.addAll(eventsToAdd);
+        RecurrenceRule replacementRule = null;
+        if (newRuleTemplate != null) {
+            internStrings(newRuleTemplate);
+            replacementRule = ruleTail.withTemplate(newRuleTemplate);
+            long conflictDay = firstConflictingDay(replacementRule, targetRule);
+            if (conflictDay != RecurrenceRule.NO_OCCURRENCE) {
+                IEvent conflictingOccurrence = replacementRule.occurrence(conflictDay);
+                if (conflictingEvent == null || conflictingOccurrence.getStart().isBefore(conflictingEvent.getStart())) {
+                    conflictingEvent = conflictingOccurrence;
+                }
+            }
+        }
+        if (conflictingEvent != null) {
+            System.err.println("Error: Modified event (" + conflictingEvent.getSubject() + " at " + conflictingEvent.getStart() + ") conflicts with an existing event.");
+            return false;
+        }
+
+        for (IEvent removed : eventsToRemove) {
+            removeEvent(removed);
+        }
+        if (targetRule != null) {
+            removeRule(targetRule);
+            if (ruleHead != null) {
+                addRule(ruleHead);
+            }
+            if (replacementRule != null) {
+                addRule(replacementRule);
+            }
+        }
+        for (IEvent added : eventsToAdd) {
+            addEvent(added);
+        }
+        claimSeriesId(Math.max(newSeriesIdForFutureScope, newSeriesIdForSplit));
         return true;
     }
 
     /**
-     * Returns all events in the calendar.
-     * @return a copy of the list of all events
+     * Returns all events in the calendar, expanding every recurrence rule.
+     * Events with the same start keep the order the date queries list them in:
+     * concrete events in the order they were added, then rule occurrences in rule index order.
+     * @return a new list of all events, ordered by start
      */
     @Override
     public List<IEvent> getAllEvents() {
-        return new ArrayList<>(events);
+        List<IEvent> result = concreteEventsByStart();
+        for (RecurrenceRule rule : ruleIndex.values()) {
+            rule.addAllOccurrences(result);
+        }
+        result.sort(Comparator.comparingLong(event -> event.getStart().toEpochMinute()));
+        return result;
+    }
+
+    /**
+     * Lists the concrete events by start, those with the same start in the order they were added.
+     * Each event is taken from the index bucket of its first day, which already has that order.
+     * @return a new list of the concrete events
+     */
+    private List<IEvent> concreteEventsByStart() {
+        List<IEvent> result = new ArrayList<>(intervalIndex.size());
+        for (long day : new TreeSet<>(dayIndex.keySet())) {
+            for (IEvent event : dayIndex.get(day)) {
+                if (event.getStart().getDate().toEpochDay() == day) {
+                    result.add(event);
+                }
+            }
+        }
+        return result;
     }
 
     /**
      * Returns all events that occur on a specific date.
+     * Multi-day events are indexed under every day they span, so this costs time proportional to that day's events;
+     * only the rules whose span covers the date are asked for an occurrence.
      * @param date the date to search for events
-     * @return a list of events that occur on the specified date
+     * @return a list of events that occur on the specified date, ordered by start
      */
     @Override
     public List<IEvent> getEventsOnDate(Date date) {
-        List<IEvent> result = new ArrayList<>();
-        for (IEvent event : events) {
-            DateTime start = event.getStart();
-            DateTime end = event.getEnd() != null ? event.getEnd() : new DateTime(start.getDate(), new Time(17,0));
-
-            boolean startsBeforeOrOn = start.getDate().getYear() < date.getYear() ||
-                                     (start.getDate().getYear() == date.getYear() && start.getDate().getMonth() < date.getMonth()) ||
-                                     (start.getDate().getYear() == date.getYear() && start.getDate().getMonth() == date.getMonth() && start.getDate().getDay() <= date.getDay());
-
-            boolean endsAfterOrOn = end.getDate().getYear() > date.getYear() ||
-                                   (end.getDate().getYear() == date.getYear() && end.getDate().getMonth() > date.getMonth()) ||
-                                   (end.getDate().getYear() == date.getYear() && end.getDate().getMonth() == date.getMonth() && end.getDate().getDay() >= date.getDay());
-            
-            if (startsBeforeOrOn && endsAfterOrOn) {
-                if ( (start.getDate().getYear() < date.getYear() || (start.getDate().getYear() == date.getYear() && (start.getDate().getMonth() < date.getMonth() || (start.getDate().getMonth() == date.getMonth() && start.getDate().getDay() <= date.getDay())))) &&
-                     (end.getDate().getYear() > date.getYear() || (end.getDate().getYear() == date.getYear() && (end.getDate().getMonth() > date.getMonth() || (end.getDate().getMonth() == date.getMonth() && end.getDate().getDay() >= date.getDay())))) )
-                {
-                    boolean dateIsAfterOrSameAsStart = date.getYear() > start.getDate().getYear() ||
-                        (date.getYear() == start.getDate().getYear() && (date.getMonth() > start.getDate().getMonth() ||
-                        (date.getMonth() == start.getDate().getMonth() && date.getDay() >= start.getDate().getDay())));
-
-                    boolean dateIsBeforeOrSameAsEnd = date.getYear() < end.getDate().getYear() ||
-                        (date.getYear() == end.getDate().getYear() && (date.getMonth() < end.getDate().getMonth() ||
-                        (date.getMonth() == end.getDate().getMonth() && date.getDay() <= end.getDate().getDay())));
-                    
-                    if(dateIsAfterOrSameAsStart && dateIsBeforeOrSameAsEnd) {
-                        result.add(event);
-                    }
-                }
+        long day = date.toEpochDay();
+        List<IEvent> bucket = dayIndex.get(day);
+        List<IEvent> result = bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+        List<RecurrenceRule> rules = ruleIndex.overlapping(day * DateTime.MINUTES_PER_DAY - 1, (day + 1) * DateTime.MINUTES_PER_DAY);
+        if (rules.isEmpty()) {
+            return result;
+        }
+        for (RecurrenceRule rule : rules) {
+            if (rule.occursOn(day)) {
+                result.add(rule.occurrence(day));
             }
         }
+        result.sort(Comparator.comparingLong(event -> event.getStart().toEpochMinute()));
         return result;
     }
 
     /**
      * Returns all events that occur within a specified date-time range.
+     * Answered from the interval indexes, so the cost is O(log n + k) for k matching events
+     * plus the days of the range visited for each overlapping rule.
+     * On machines with more than one processor, queries expected to return at least {@link #getParallelThreshold()}
+     * events are gathered in parallel on the common ForkJoin pool; the result is the same either way.
      * @param startRange the start of the range (inclusive)
      * @param endRange the end of the range (exclusive)
-     * @return a list of events that overlap with the specified range
+     * @return a list of events that overlap with the specified range, ordered by start
      */
     @Override
     public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
-        List<IEvent> result = new ArrayList<>();
-        for (IEvent event : events) {
-            DateTime eventStart = event.getStart();
-            DateTime eventEnd = event.getEnd() != null ? event.getEnd() : new DateTime(eventStart.getDate(), new Time(17,0));
-
-            if (eventStart.isBefore(endRange) && eventEnd.isAfter(startRange)) {
-                result.add(event);
-            }
+        long from = startRange.toEpochMinute();
+        long to = endRange.toEpochMinute();
+        List<RecurrenceRule> rules = ruleIndex.overlapping(from, to);
+        if (MULTIPROCESSOR && estimatedRangeSize(from, to, rules) >= parallelThreshold) {
+            return getEventsInRangeInParallel(from, to, rules);
         }
+        List<IEvent> result = intervalIndex.overlapping(from, to);
+        if (rules.isEmpty()) {
+            return result;
+        }
+        for (RecurrenceRule rule : rules) {
+            rule.addOccurrencesOverlapping(from, to, result);
+        }
+        sortByStart(result);
         return result;
     }
 
+    /**
+     * Estimates how many events a range query returns without collecting them: the concrete events starting
+     * in the range, found by ranking both ends in the interval index, plus the days each overlapping rule spans
+     * inside the range. Events starting before the range are missed and rule days without an occurrence are not,
+     * which is close enough to choose between the sequential and the parallel path.
+     * @param from the start of the range, in epoch minutes
+     * @param to the end of the range, in epoch minutes
+     * @param rules the rules overlapping the range
+     * @return the estimated number of events
+     */
+    private long estimatedRangeSize(long from, long to, List<RecurrenceRule> rules) {
+        long estimate = (long) intervalIndex.countStartingBefore(to) - intervalIndex.countStartingBefore(from);
+        long fromDay = Math.floorDiv(from, DateTime.MINUTES_PER_DAY);
+        long toDay = Math.floorDiv(to, DateTime.MINUTES_PER_DAY);
+        for (RecurrenceRule rule : rules) {
+            estimate += Math.min(rule.getLastDay(), toDay) - Math.max(rule.getFirstDay(), fromDay) + 1;
+        }
+        return estimate;
+    }
+
+    /**
+     * Gathers the events of a large range query on the common ForkJoin pool.
+     * The interval index is split into subtrees walked in parallel, each rule expands its occurrences in its own task,
+     * and the pieces are joined in the order the sequential path collects them before a stable parallel sort,
+     * so events with the same start and end come out in the same order as from {@link #getEventsInRange}.
+     * The model must not be changed until the call returns.
+     * @param from the start of the range, in epoch minutes
+     * @param to the end of the range, in epoch minutes
+     * @param rules the rules overlapping the range
+     * @return a list of events that overlap with the range, ordered by start
+     */
+    private List<IEvent> getEventsInRangeInParallel(long from, long to, List<RecurrenceRule> rules) {
+        List<IEvent> result = intervalIndex.overlappingInParallel(from, to, PARALLEL_LEAF_SIZE);
+        if (rules.isEmpty()) {
+            return result;
+        }
+        List<List<IEvent>> occurrences = rules.parallelStream().map(rule -> {
+            List<IEvent> out = new ArrayList<>();
+            rule.addOccurrencesOverlapping(from, to, out);
+            return out;
+        }).collect(Collectors.toList());
+        for (List<IEvent> ruleOccurrences : occurrences) {
+            result.addAll(ruleOccurrences);
+        }
+        IEvent[] sorted = result.toArray(new IEvent[0]);
+        Arrays.parallelSort(sorted, BY_START);
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
     /**
      * Checks if the calendar has any events at the specified date and time.
+     * Answered with a bit test on the busy bitmap of the day, which is built from the interval indexes the first time it is needed.
      * @param dateTime the date and time to check
      * @return true if there is an event at the specified time, false otherwise
      */
     @Override
     public boolean isBusyAt(DateTime dateTime) {
-        for (IEvent event : events) {
-            DateTime eventStart = event.getStart();
-            DateTime eventEnd = event.getEnd() != null ? event.getEnd() : new DateTime(eventStart.getDate(), new Time(17,0));
+        long at = dateTime.toEpochMinute();
+        long day = Math.floorDiv(at, DateTime.MINUTES_PER_DAY);
+        return BusyDayBitmaps.isSet(busyBitmap(day), (int) (at - day * DateTime.MINUTES_PER_DAY));
+    }
 
-            if (!dateTime.isBefore(eventStart) && dateTime.isBefore(eventEnd)) {
-                return true;
+    /**
+     * {@inheritDoc}
+     * Free time is found by scanning the busy bitmap of each day in the range word by word,
+     * so the cost does not depend on how many events the range holds.
+     */
+    @Override
+    public List<TimeSlot> findFreeSlots(DateTime startRange, DateTime endRange, int minutes) {
+        List<TimeSlot> slots = new ArrayList<>();
+        scanFreeSlots(startRange, endRange, minutes, slots, false);
+        return slots;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Scans the busy bitmaps of the range like {@link #findFreeSlots} and stops at the first gap long enough.
+     */
+    @Override
+    public TimeSlot findFirstFreeSlot(DateTime startRange, DateTime endRange, int minutes) {
+        List<TimeSlot> slots = new ArrayList<>(1);
+        scanFreeSlots(startRange, endRange, minutes, slots, true);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    /**
+     * Scans the busy bitmaps of the days in a range word by word, collecting the free gaps of at least the given length.
+     * When only the first is wanted the scan stops as soon as a gap is long enough, and that gap is cut to the length.
+     * @param startRange the start of the range
+     * @param endRange the end of the range (exclusive)
+     * @param minutes the shortest gap to collect
+     * @param slots the list to add the gaps to
+     * @param firstOnly whether to stop after the first gap
+     * @throws IllegalArgumentException if the range is empty or {@code minutes} is not positive
+     */
+    private void scanFreeSlots(DateTime startRange, DateTime endRange, int minutes, List<TimeSlot> slots,
+                               boolean firstOnly) {
+        if (minutes <= 0 || !endRange.isAfter(startRange)) {
+            throw new IllegalArgumentException("A free slot search needs a non-empty range and a positive length.");
+        }
+        long from = startRange.toEpochMinute();
+        long to = endRange.toEpochMinute();
+        long freeSince = -1;
+        boolean free = false;
+        for (long day = Math.floorDiv(from, DateTime.MINUTES_PER_DAY); day * DateTime.MINUTES_PER_DAY < to; day++) {
+            long dayStart = day * DateTime.MINUTES_PER_DAY;
+            long[] bits = busyBitmap(day);
+            int minute = (int) Math.max(0, from - dayStart);
+            int last = (int) Math.min(DateTime.MINUTES_PER_DAY, to - dayStart);
+            while (minute < last) {
+                if (!free) {
+                    minute = BusyDayBitmaps.nextClear(bits, minute);
+                    if (minute >= last) {
+                        break;
+                    }
+                    freeSince = dayStart + minute;
+                    free = true;
+                }
+                minute = BusyDayBitmaps.nextSet(bits, minute);
+                if (firstOnly && dayStart + Math.min(minute, last) - freeSince >= minutes) {
+                    addSlotIfLongEnough(slots, freeSince, freeSince + minutes, minutes);
+                    return;
+                }
+                if (minute >= last) {
+                    break;
+                }
+                addSlotIfLongEnough(slots, freeSince, dayStart + minute, minutes);
+                free = false;
             }
         }
-        return false;
+        if (free) {
+            addSlotIfLongEnough(slots, freeSince, to, minutes);
+        }
+    }
+
+    /**
+     * Adds a free slot to a result if it is at least the requested length.
+     */
+    private static void addSlotIfLongEnough(List<TimeSlot> slots, long start, long end, int minutes) {
+        if (end - start >= minutes) {
+            slots.add(new TimeSlot(DateTime.ofEpochMinute(start), DateTime.ofEpochMinute(end)));
+        }
+    }
+
+    /**
+     * Gets the busy bitmap of a day, building it from the indexes and caching it if it is not cached yet.
+     * @param day the epoch day
+     * @return one bit per minute of the day, set where some event or rule occurrence covers the minute
+     */
+    private long[] busyBitmap(long day) {
+        long[] bits = busyDays.get(day);
+        if (bits != null) {
+            return bits;
+        }
+        bits = new long[BusyDayBitmaps.WORDS_PER_DAY];
+        long dayStart = day * DateTime.MINUTES_PER_DAY;
+        long dayEnd = dayStart + DateTime.MINUTES_PER_DAY;
+        for (IEvent event : intervalIndex.overlapping(dayStart, dayEnd)) {
+            long start = event.getStart().toEpochMinute();
+            long end = effectiveEndMinute(event);
+            BusyDayBitmaps.setRange(bits, (int) (Math.max(start, dayStart) - dayStart),
+                    (int) (Math.min(end, dayEnd) - dayStart));
+        }
+        for (RecurrenceRule rule : ruleIndex.overlapping(dayStart, dayEnd)) {
+            if (rule.occursOn(day)) {
+                BusyDayBitmaps.setRange(bits, rule.getStartTime().toMinuteOfDay(), rule.getEndTime().toMinuteOfDay());
+            }
+        }
+        busyDays.put(day, bits);
+        return bits;
+    }
+
+    /**
+     * Gets the number of concrete events stored: single events and detached series occurrences.
+     * @return the size of the event index
+     */
+    int storedEventCount() {
+        return intervalIndex.size();
+    }
+
+    /**
+     * Gets the number of recurrence rules stored, each standing for the untouched occurrences of one series.
+     * @return the size of the rule index
+     */
+    int storedRuleCount() {
+        return ruleIndex.size();
+    }
+
+    /**
+     * Writes the whole state of the model: the last series ID allocated, every concrete event, then every recurrence rule.
+     * Events are written by start, those with the same start in the order they were added, and rules in index order,
+     * so a model read back with {@link #readSnapshot(DataInput)} resolves ties between equal starts the same way.
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void writeSnapshot(DataOutput out) throws IOException {
+        out.writeLong(lastSeriesId);
+        List<IEvent> events = concreteEventsByStart();
+        out.writeInt(events.size());
+        for (IEvent event : events) {
+            RecordCodec.writeEvent(out, event);
+        }
+        List<RecurrenceRule> rules = ruleIndex.values();
+        out.writeInt(rules.size());
+        for (RecurrenceRule rule : rules) {
+            rule.writeTo(out);
+        }
+    }
+
+    /**
+     * Loads a state written by {@link #writeSnapshot(DataOutput)} into this model, which must be empty.
+     * @param in the input to read from
+     * @throws IOException if reading fails
+     * @throws IllegalStateException if the model already holds events
+     */
+    void readSnapshot(DataInput in) throws IOException {
+        if (intervalIndex.size() > 0 || ruleIndex.size() > 0) {
+            throw new IllegalStateException("A snapshot can only be loaded into an empty model.");
+        }
+        lastSeriesId = in.readLong();
+        for (int count = in.readInt(); count > 0; count--) {
+            addEvent(RecordCodec.readEvent(in));
+        }
+        for (int count = in.readInt(); count > 0; count--) {
+            addRule(RecurrenceRule.readFrom(in));
+        }
     }
-}
\ No newline at end of file
+}
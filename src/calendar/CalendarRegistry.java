@@ -0,0 +1,489 @@
+package calendar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Hosts many named calendars in one process and runs every model call against the one in use.
+ * <p>
+ * The registry starts with the calendar the application was opened with, named {@value #DEFAULT_CALENDAR}, in use.
+ * That calendar always stays in memory. Calendars created by command are made by the factory the registry is
+ * given, so they use the same store as the default one; a registry with a spill directory only makes
+ * {@link CalendarModelImpl}s, whose snapshots are what it spills. When the registry has a spill directory, at most {@code maxLoaded} of them are kept in memory: using another
+ * one beyond that spills the least recently used to {@code <name>.cal} in the directory and drops it, and a
+ * spilled calendar is read back only when it is next used. Calendars spilled by an earlier run are found
+ * when the registry is opened and loaded the same lazy way, and {@link #close()} spills every calendar
+ * changed since it was loaded, so the directory keeps them across runs. Without a directory nothing is spilled.
+ * <p>
+ * The registry counts the calls, loads and spills of each calendar and estimates the heap it takes
+ * (see {@link #getStats()}). Like {@link CalendarModelImpl} it is not synchronized.
+ * <p>
+ * Calendar commands report their errors as exceptions. A spill that fails while another call runs cannot,
+ * since that call succeeded; its error is kept for {@link #takeErrors()} and the calendar stays in memory.
+ */
+public class CalendarRegistry implements ICalendarModel, Closeable {
+    /** The name of the calendar the registry starts with. */
+    public static final String DEFAULT_CALENDAR = "default";
+
+    /** Calendars kept in memory at once by default, besides the default one. */
+    public static final int DEFAULT_MAX_LOADED = 64;
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String SPILL_SUFFIX = ".cal";
+    private static final int SPILL_MAGIC = 0x43414C52;
+    private static final int SPILL_VERSION = 1;
+    private static final int SPILL_BUFFER_SIZE = 1 << 16;
+    // heap per stored item, measured on a CalendarModelImpl holding a million events, indexes included
+    private static final long EVENT_BYTES = 310;
+    private static final long RULE_BYTES = 420;
+
+    /**
+     * The registry's record of one calendar.
+     */
+    private static final class Entry {
+        private final String name;
+        private final boolean pinned;
+        private ICalendarModel model;
+        private boolean dirty;
+        private long diskBytes;
+        private long accesses;
+        private int loads;
+        private int spills;
+
+        private Entry(String name, ICalendarModel model, boolean pinned) {
+            this.name = name;
+            this.model = model;
+            this.pinned = pinned;
+        }
+    }
+
+    private final Supplier<? extends ICalendarModel> newCalendars;
+    private final Path directory;
+    private final int maxLoaded;
+    private final Map<String, Entry> calendars;
+    private final LinkedHashMap<String, Entry> loaded;
+    private final List<String> errors;
+    private Entry current;
+
+    /**
+     * Constructs a new CalendarRegistry that keeps every calendar in memory and makes new ones as {@link CalendarModelImpl}s.
+     * @param defaultCalendar the calendar to start with
+     * @throws IllegalArgumentException if the calendar is null
+     */
+    public CalendarRegistry(ICalendarModel defaultCalendar) {
+        this(defaultCalendar, CalendarModelImpl::new);
+    }
+
+    /**
+     * Constructs a new CalendarRegistry that keeps every calendar in memory.
+     * @param defaultCalendar the calendar to start with
+     * @param newCalendars makes the empty model of each calendar created by {@link #createCalendar(String)}
+     * @throws IllegalArgumentException if the calendar or the factory is null
+     */
+    public CalendarRegistry(ICalendarModel defaultCalendar, Supplier<? extends ICalendarModel> newCalendars) {
+        this(defaultCalendar, newCalendars, null, DEFAULT_MAX_LOADED);
+    }
+
+    private CalendarRegistry(ICalendarModel defaultCalendar, Supplier<? extends ICalendarModel> newCalendars,
+                             Path directory, int maxLoaded) {
+        if (defaultCalendar == null || newCalendars == null) {
+            throw new IllegalArgumentException("The default calendar and the calendar factory cannot be null.");
+        }
+        if (maxLoaded < 1) {
+            throw new IllegalArgumentException("At least one calendar must be allowed in memory.");
+        }
+        this.newCalendars = newCalendars;
+        this.directory = directory;
+        this.maxLoaded = maxLoaded;
+        this.calendars = new TreeMap<>();
+        this.loaded = new LinkedHashMap<>(16, 0.75f, true);
+        this.errors = new ArrayList<>();
+        this.current = new Entry(DEFAULT_CALENDAR, defaultCalendar, true);
+        calendars.put(DEFAULT_CALENDAR, current);
+    }
+
+    /**
+     * Opens a registry that spills calendars to a directory, creating the directory if needed.
+     * Calendars spilled there by an earlier run are registered without being loaded.
+     * @param defaultCalendar the calendar to start with
+     * @param newCalendars makes the empty model of each calendar created or read back
+     * @param directory the spill directory
+     * @param maxLoaded the largest number of calendars kept in memory, besides the default one
+     * @return the registry
+     * @throws IOException if the directory cannot be created or listed
+     * @throws IllegalArgumentException if the calendar or the factory is null, or {@code maxLoaded} is not positive
+     */
+    public static CalendarRegistry open(ICalendarModel defaultCalendar, Supplier<CalendarModelImpl> newCalendars,
+                                        Path directory, int maxLoaded) throws IOException {
+        CalendarRegistry registry = new CalendarRegistry(defaultCalendar, newCalendars, directory, maxLoaded);
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SPILL_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - SPILL_SUFFIX.length());
+                if (NAME_PATTERN.matcher(name).matches() && !registry.calendars.containsKey(name)) {
+                    Entry entry = new Entry(name, null, false);
+                    entry.diskBytes = Files.size(file);
+                    registry.calendars.put(name, entry);
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Creates a new, empty calendar. The calendar in use does not change.
+     * @param name the name, of 1 to 64 letters, digits, '-' or '_'
+     * @throws IllegalArgumentException if the name is invalid or taken
+     */
+    public void createCalendar(String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid calendar name '" + name + "'. Use 1 to 64 letters, digits, '-' or '_'.");
+        }
+        if (calendars.containsKey(name)) {
+            throw new IllegalArgumentException("Calendar '" + name + "' already exists.");
+        }
+        Entry entry = new Entry(name, newCalendars.get(), false);
+        entry.dirty = true;
+        calendars.put(name, entry);
+        loaded.put(name, entry);
+        spillLeastRecentlyUsed();
+    }
+
+    /**
+     * Makes a calendar the one every model call runs against, loading it if it was spilled.
+     * @param name the name of the calendar
+     * @throws IllegalArgumentException if the calendar does not exist
+     * @throws IllegalStateException if the calendar was spilled and cannot be read back; the calendar in use does not change
+     */
+    public void useCalendar(String name) {
+        if (name == null || !calendars.containsKey(name)) {
+            throw new IllegalArgumentException("Calendar '" + name + "' does not exist.");
+        }
+        current = loadedEntry(name);
+        spillLeastRecentlyUsed();
+    }
+
+    /**
+     * Gets and forgets the errors of the spills that failed since the last call.
+     * @return the error messages, oldest first
+     */
+    public List<String> takeErrors() {
+        List<String> taken = new ArrayList<>(errors);
+        errors.clear();
+        return taken;
+    }
+
+    /**
+     * Finds the earliest slot of a given length that is free in every one of several calendars,
+     * with {@link SlotFinder#findFirstCommonSlot}. The calendar in use does not change.
+     * Spilled calendars are read back one at a time as the search reaches them, and the least recently
+     * used are spilled again as it goes, so no more than {@code maxLoaded} are in memory at once.
+     * @param names the names of the calendars; a name given twice is searched once
+     * @param startRange the earliest the slot may start
+     * @param endRange the latest the slot may end
+     * @param minutes the length of the slot
+     * @return the earliest such slot, exactly {@code minutes} long, or null if the range has none
+     * @throws IllegalArgumentException if a calendar does not exist, the range is empty or the length is not positive
+     * @throws IllegalStateException if a spilled calendar cannot be read back
+     */
+    public TimeSlot findFirstCommonSlot(Collection<String> names, DateTime startRange, DateTime endRange, int minutes) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(names));
+        for (String name : distinct) {
+            if (!calendars.containsKey(name)) {
+                throw new IllegalArgumentException("Calendar '" + name + "' does not exist.");
+            }
+        }
+        return SlotFinder.findFirstCommonSlot(new AbstractList<ICalendarModel>() {
+            @Override
+            public ICalendarModel get(int index) {
+                return participant(distinct.get(index));
+            }
+
+            @Override
+            public int size() {
+                return distinct.size();
+            }
+        }, startRange, endRange, minutes);
+    }
+
+    /**
+     * Gets the model of a calendar taking part in a search, loading it if it was spilled.
+     * @param name the name of an existing calendar
+     * @return the model
+     * @throws IllegalStateException if the calendar cannot be loaded
+     */
+    private ICalendarModel participant(String name) {
+        Entry entry = loadedEntry(name);
+        entry.accesses++;
+        ICalendarModel model = entry.model;
+        spillLeastRecentlyUsed();
+        return model;
+    }
+
+    /**
+     * Gets an existing calendar, reading it back if it was spilled and marking it as the most recently used.
+     * @param name the name of an existing calendar
+     * @return its entry, with the model in memory
+     * @throws IllegalStateException if the calendar cannot be read back
+     */
+    private Entry loadedEntry(String name) {
+        Entry entry = calendars.get(name);
+        if (entry.model == null) {
+            try {
+                load(entry);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not load calendar '" + name + "': " + e.getMessage(), e);
+            }
+        } else if (!entry.pinned) {
+            loaded.get(name);
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the name of the calendar in use.
+     * @return the name
+     */
+    public String getCurrentName() {
+        return current.name;
+    }
+
+    /**
+     * Gets the number of calendars, in memory or spilled.
+     * @return the calendar count
+     */
+    public int size() {
+        return calendars.size();
+    }
+
+    /**
+     * Gets the number of calendars in memory, the default one included.
+     * @return the loaded count
+     */
+    public int loadedCount() {
+        return loaded.size() + 1;
+    }
+
+    /**
+     * Gets the memory and access figures of every calendar.
+     * Heap sizes are estimates from the number of events and rules a {@link CalendarModelImpl} stores.
+     * @return one entry per calendar, ordered by name
+     */
+    public List<CalendarStats> getStats() {
+        List<CalendarStats> stats = new ArrayList<>(calendars.size());
+        for (Entry entry : calendars.values()) {
+            long storedItems = CalendarStats.UNKNOWN;
+            long heapBytes = CalendarStats.UNKNOWN;
+            if (entry.model == null) {
+                heapBytes = 0;
+            } else if (entry.model instanceof CalendarModelImpl) {
+                CalendarModelImpl model = (CalendarModelImpl) entry.model;
+                storedItems = model.storedEventCount() + model.storedRuleCount();
+                heapBytes = model.storedEventCount() * EVENT_BYTES + model.storedRuleCount() * RULE_BYTES;
+            }
+            stats.add(new CalendarStats(entry.name, entry == current, entry.model != null, storedItems, heapBytes,
+                    entry.diskBytes, entry.accesses, entry.loads, entry.spills));
+        }
+        return stats;
+    }
+
+    /**
+     * Spills every calendar changed since it was loaded, so the spill directory holds all of them.
+     * Does nothing without a spill directory.
+     * @throws IOException if a calendar cannot be written; the others are still written
+     */
+    @Override
+    public void close() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        IOException failure = null;
+        for (Entry entry : loaded.values()) {
+            try {
+                save(entry);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Spills the least recently used calendars until no more than {@code maxLoaded} are in memory.
+     * The calendar in use is never spilled, and one that cannot be written stays in memory with its error kept
+     * for {@link #takeErrors()}.
+     */
+    private void spillLeastRecentlyUsed() {
+        if (directory == null) {
+            return;
+        }
+        Iterator<Entry> eldestFirst = loaded.values().iterator();
+        while (loaded.size() > maxLoaded && eldestFirst.hasNext()) {
+            Entry entry = eldestFirst.next();
+            if (entry == current) {
+                continue;
+            }
+            try {
+                save(entry);
+            } catch (IOException e) {
+                errors.add("Could not spill calendar '" + entry.name + "': " + e.getMessage());
+                continue;
+            }
+            entry.model = null;
+            entry.spills++;
+            eldestFirst.remove();
+        }
+    }
+
+    /**
+     * Writes a calendar to its spill file if it changed since it was loaded.
+     * The file is written to a temporary file and renamed into place, so a crash leaves the old file intact.
+     * @param entry the calendar
+     * @throws IOException if the file cannot be written
+     */
+    private void save(Entry entry) throws IOException {
+        if (!entry.dirty) {
+            return;
+        }
+        Path temporary = directory.resolve(entry.name + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, SPILL_BUFFER_SIZE));
+            out.writeInt(SPILL_MAGIC);
+            out.writeInt(SPILL_VERSION);
+            snapshotModel(entry.model).writeSnapshot(out);
+            out.flush();
+            file.getFD().sync();
+        }
+        Path spillFile = spillFile(entry.name);
+        Files.move(temporary, spillFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        entry.diskBytes = Files.size(spillFile);
+        entry.dirty = false;
+    }
+
+    /**
+     * Reads a spilled calendar back into memory.
+     * @param entry the calendar
+     * @throws IOException if its spill file cannot be read
+     */
+    private void load(Entry entry) throws IOException {
+        CalendarModelImpl model = snapshotModel(newCalendars.get());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(spillFile(entry.name)), SPILL_BUFFER_SIZE))) {
+            if (in.readInt() != SPILL_MAGIC || in.readInt() != SPILL_VERSION) {
+                throw new IOException("Unrecognized calendar file: " + spillFile(entry.name));
+            }
+            model.readSnapshot(in);
+        }
+        entry.model = model;
+        entry.loads++;
+        loaded.put(entry.name, entry);
+    }
+
+    /**
+     * Gets a named calendar's model as the {@link CalendarModelImpl} spill files are written from and read into.
+     * {@link #open} only accepts a factory of those, so this only fails if that contract is broken.
+     * @param model the model
+     * @return the same model
+     * @throws IOException if the model cannot be spilled
+     */
+    private static CalendarModelImpl snapshotModel(ICalendarModel model) throws IOException {
+        if (!(model instanceof CalendarModelImpl)) {
+            throw new IOException("Only calendars stored as objects can be spilled.");
+        }
+        return (CalendarModelImpl) model;
+    }
+
+    private Path spillFile(String name) {
+        return directory.resolve(name + SPILL_SUFFIX);
+    }
+
+    @Override
+    public boolean createEvent(String subject, DateTime startDateTime, DateTime endDateTime,
+                               String description, String location, String status) {
+        current.accesses++;
+        boolean created = current.model.createEvent(subject, startDateTime, endDateTime, description, location, status);
+        current.dirty |= created;
+        return created;
+    }
+
+    @Override
+    public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
+                                     String description, String location, String status,
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
+        current.accesses++;
+        boolean created = current.model.createEventSeries(subject, seriesStartDateTime, seriesEndDateTime,
+                description, location, status, repeatDays, occurrences, seriesEndDate);
+        current.dirty |= created;
+        return created;
+    }
+
+    @Override
+    public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                             EventEdit edit, String scope) {
+        current.accesses++;
+        boolean edited = current.model.editEvent(findSubject, findStartDateTime, findEndDateTime, edit, scope);
+        current.dirty |= edited;
+        return edited;
+    }
+
+    @Override
+    public List<IEvent> getAllEvents() {
+        current.accesses++;
+        return current.model.getAllEvents();
+    }
+
+    @Override
+    public List<IEvent> getEventsOnDate(Date date) {
+        current.accesses++;
+        return current.model.getEventsOnDate(date);
+    }
+
+    @Override
+    public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
+        current.accesses++;
+        return current.model.getEventsInRange(startRange, endRange);
+    }
+
+    @Override
+    public boolean isBusyAt(DateTime dateTime) {
+        current.accesses++;
+        return current.model.isBusyAt(dateTime);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(DateTime startRange, DateTime endRange, int minutes) {
+        current.accesses++;
+        return current.model.findFreeSlots(startRange, endRange, minutes);
+    }
+
+    @Override
+    public TimeSlot findFirstFreeSlot(DateTime startRange, DateTime endRange, int minutes) {
+        current.accesses++;
+        return current.model.findFirstFreeSlot(startRange, endRange, minutes);
+    }
+}
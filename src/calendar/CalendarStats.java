@@ -0,0 +1,116 @@
+package calendar;
+
+/**
+ * An immutable snapshot of the memory and access figures of one calendar in a {@link CalendarRegistry}.
+ */
+public final class CalendarStats {
+    /** The value of a figure the registry cannot know for a calendar. */
+    public static final long UNKNOWN = -1;
+
+    private final String name;
+    private final boolean inUse;
+    private final boolean loaded;
+    private final long storedItems;
+    private final long heapBytes;
+    private final long diskBytes;
+    private final long accesses;
+    private final int loads;
+    private final int spills;
+
+    /**
+     * Constructs a new CalendarStats.
+     * @param name the calendar name
+     * @param inUse whether commands currently run against the calendar
+     * @param loaded whether the calendar is in memory
+     * @param storedItems the concrete events and recurrence rules stored, or {@link #UNKNOWN}
+     * @param heapBytes the estimated heap the calendar takes, 0 when spilled, or {@link #UNKNOWN}
+     * @param diskBytes the size of its spill file, 0 if it has none
+     * @param accesses the number of model calls made on the calendar
+     * @param loads the number of times it was read back from its spill file
+     * @param spills the number of times it was dropped from memory
+     */
+    public CalendarStats(String name, boolean inUse, boolean loaded, long storedItems, long heapBytes,
+                         long diskBytes, long accesses, int loads, int spills) {
+        this.name = name;
+        this.inUse = inUse;
+        this.loaded = loaded;
+        this.storedItems = storedItems;
+        this.heapBytes = heapBytes;
+        this.diskBytes = diskBytes;
+        this.accesses = accesses;
+        this.loads = loads;
+        this.spills = spills;
+    }
+
+    /**
+     * Gets the calendar name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Checks whether commands currently run against the calendar.
+     * @return true for the calendar in use
+     */
+    public boolean isInUse() {
+        return inUse;
+    }
+
+    /**
+     * Checks whether the calendar is in memory.
+     * @return true if loaded, false if only its spill file holds it
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the number of concrete events and recurrence rules the calendar stores.
+     * @return the count, or {@link #UNKNOWN} if the calendar is spilled or not a {@link CalendarModelImpl}
+     */
+    public long getStoredItems() {
+        return storedItems;
+    }
+
+    /**
+     * Gets the estimated heap the calendar takes.
+     * @return the estimate in bytes, 0 if spilled, or {@link #UNKNOWN} if it is not a {@link CalendarModelImpl}
+     */
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    /**
+     * Gets the size of the calendar's spill file.
+     * @return the size in bytes, 0 if it has never been spilled
+     */
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * Gets the number of model calls made on the calendar.
+     * @return the access count
+     */
+    public long getAccesses() {
+        return accesses;
+    }
+
+    /**
+     * Gets the number of times the calendar was read back from its spill file.
+     * @return the load count
+     */
+    public int getLoads() {
+        return loads;
+    }
+
+    /**
+     * Gets the number of times the calendar was dropped from memory.
+     * @return the spill count
+     */
+    public int getSpills() {
+        return spills;
+    }
+}
@@ -1,5 +1,8 @@
 package calendar;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.List;
 import java.util.Scanner;
 
@@ -8,13 +11,30 @@ import java.util.Scanner;
  * This class provides methods to display information to the user and get input from the user.
  */
 public class CalendarViewImpl implements ICalendarView {
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
     private Scanner scanner;
+    private PrintWriter out;
 
     /**
      * Constructs a new CalendarViewImpl with a Scanner for user input.
+     * Every message is written straight to the console.
      */
     public CalendarViewImpl() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new CalendarViewImpl with a Scanner for user input.
+     * @param bufferedOutput true to collect messages in a large buffer that is only written out
+     *                       on {@link #flush()}, when full, before an error and on {@link #close()};
+     *                       false to write every message straight to the console
+     */
+    public CalendarViewImpl(boolean bufferedOutput) {
         this.scanner = new Scanner(System.in);
+        this.out = bufferedOutput
+                ? new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE), false)
+                : null;
     }
 
     /**
@@ -33,7 +53,11 @@ public class CalendarViewImpl implements ICalendarView {
      */
     @Override
     public void displayMessage(String message) {
-        System.out.println(message);
+        if (out != null) {
+            out.println(message);
+        } else {
+            System.out.println(message);
+        }
     }
 
     /**
@@ -42,6 +66,7 @@ public class CalendarViewImpl implements ICalendarView {
      */
     @Override
     public void displayError(String errorMessage) {
+        flush();
         System.err.println("Error: " + errorMessage);
     }
 
@@ -126,10 +151,84 @@ public class CalendarViewImpl implements ICalendarView {
     }
 
     /**
-     * Closes the scanner and releases resources.
+     * Displays the result of a free slot search.
+     * Prints "free from START to END" for a slot, or "No free slot found." if there is none.
+     * @param slot the slot found, or null if there is none
+     */
+    @Override
+    public void displayFreeSlot(TimeSlot slot) {
+        if (slot == null) {
+            displayMessage("No free slot found.");
+        } else {
+            displayMessage("free from " + slot.getStart() + " to " + slot.getEnd());
+        }
+    }
+
+    /**
+     * Displays every free slot found in a range.
+     * Prints one "free from START to END" line per slot, or "No free slot found." if there is none.
+     * @param slots the slots found, in order
+     */
+    @Override
+    public void displayFreeSlots(List<TimeSlot> slots) {
+        if (slots == null || slots.isEmpty()) {
+            displayFreeSlot(null);
+            return;
+        }
+        for (TimeSlot slot : slots) {
+            displayFreeSlot(slot);
+        }
+    }
+
+    /**
+     * Displays the calendars of a registry, one line each, marking the one in use.
+     * Shows whether each is loaded or spilled, what it stores, its estimated heap and spill file sizes,
+     * and how often it was used, loaded and spilled.
+     * @param calendars one entry per calendar
+     */
+    @Override
+    public void displayCalendars(List<CalendarStats> calendars) {
+        for (CalendarStats stats : calendars) {
+            StringBuilder line = new StringBuilder();
+            line.append("* ").append(stats.getName());
+            if (stats.isInUse()) {
+                line.append(" (in use)");
+            }
+            line.append(": ").append(stats.isLoaded() ? "loaded" : "spilled");
+            if (stats.getStoredItems() != CalendarStats.UNKNOWN) {
+                line.append(", ").append(stats.getStoredItems()).append(" stored items");
+            }
+            if (stats.getHeapBytes() != CalendarStats.UNKNOWN) {
+                line.append(", ~").append(kilobytes(stats.getHeapBytes())).append(" KB heap");
+            }
+            line.append(", ").append(kilobytes(stats.getDiskBytes())).append(" KB on disk");
+            line.append(", ").append(stats.getAccesses()).append(" accesses, ").append(stats.getLoads())
+                    .append(" loads, ").append(stats.getSpills()).append(" spills");
+            displayMessage(line.toString());
+        }
+    }
+
+    private static long kilobytes(long bytes) {
+        return (bytes + 1023) / 1024;
+    }
+
+    /**
+     * Writes out any buffered messages.
+     */
+    @Override
+    public void flush() {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Flushes buffered messages, then closes the scanner and releases resources.
+     * The console itself is left open.
      */
     @Override
     public void close() {
+        flush();
         if (scanner != null) {
             scanner.close();
         }
@@ -0,0 +1,557 @@
+package calendar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only calendar stored column by column in one file and queried straight from a memory mapping.
+ * <p>
+ * The file holds one row per event, rows ordered like {@link ICalendarModel#getAllEvents()}, in these
+ * sections (big-endian, each starting on an 8-byte boundary):
+ * <ul>
+ *   <li>a header: magic, version, row count, string count and the length of the string data;</li>
+ *   <li>five long columns: start and end in epoch minutes ({@code Long.MIN_VALUE} for no end), the
+ *       largest effective end of the rows up to each one, which lets queries skip every earlier row,
+ *       then the series ID and the original series ID;</li>
+ *   <li>five int columns: subject, location, description and status as indexes into the string dictionary
+ *       (-1 for null), and flags (bit 0 series exception, bit 1 series flag, bits 8-14 the {@link Weekdays} mask);</li>
+ *   <li>the string dictionary: the offset of every string in the string data, then the UTF-8 string data.</li>
+ * </ul>
+ * Opening maps the file with {@link FileChannel#map} and reads nothing else; queries binary-search the
+ * start column, scan the matching rows in place and return events that read their fields from the mapping
+ * on demand. Events that share a string share its dictionary entry, so each distinct string is decoded once.
+ * Create and edit calls are rejected.
+ */
+public class ColumnarSnapshot implements ICalendarModel {
+    private static final int MAGIC = 0x43414C43;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int LONG_COLUMNS = 5;
+    private static final int INT_COLUMNS = 5;
+    private static final long ROW_SIZE = LONG_COLUMNS * 8 + INT_COLUMNS * 4;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final long NO_END = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final int SERIES_EXCEPTION = 1;
+    private static final int SERIES_FLAG = 2;
+    private static final int MASK_SHIFT = 8;
+    private static final int ALL_DAY_END_MINUTE = 17 * 60;
+
+    private final int rows;
+    private final LongBuffer starts;
+    private final LongBuffer ends;
+    private final LongBuffer maxEnds;
+    private final LongBuffer seriesIds;
+    private final LongBuffer originalSeriesIds;
+    private final IntBuffer subjects;
+    private final IntBuffer locations;
+    private final IntBuffer descriptions;
+    private final IntBuffer statuses;
+    private final IntBuffer flags;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringData;
+    private final String[] decodedStrings;
+
+    /**
+     * Constructs a ColumnarSnapshot over a mapped file whose header has been checked.
+     * @param mapping the whole file
+     * @param rows the number of rows
+     * @param strings the number of dictionary strings
+     * @param stringDataLength the length of the string data in bytes
+     */
+    private ColumnarSnapshot(ByteBuffer mapping, int rows, int strings, int stringDataLength) {
+        this.rows = rows;
+        int at = HEADER_SIZE;
+        LongBuffer[] longColumns = new LongBuffer[LONG_COLUMNS];
+        for (int column = 0; column < longColumns.length; column++) {
+            longColumns[column] = mapping.slice(at, rows * 8).asLongBuffer();
+            at += rows * 8;
+        }
+        this.starts = longColumns[0];
+        this.ends = longColumns[1];
+        this.maxEnds = longColumns[2];
+        this.seriesIds = longColumns[3];
+        this.originalSeriesIds = longColumns[4];
+        IntBuffer[] intColumns = new IntBuffer[INT_COLUMNS];
+        for (int column = 0; column < intColumns.length; column++) {
+            intColumns[column] = mapping.slice(at, rows * 4).asIntBuffer();
+            at += rows * 4;
+        }
+        this.subjects = intColumns[0];
+        this.locations = intColumns[1];
+        this.descriptions = intColumns[2];
+        this.statuses = intColumns[3];
+        this.flags = intColumns[4];
+        at = align(at);
+        this.stringOffsets = mapping.slice(at, (strings + 1) * 4).asIntBuffer();
+        at += (strings + 1) * 4;
+        this.stringData = mapping.slice(at, stringDataLength);
+        this.decodedStrings = new String[strings];
+    }
+
+    /**
+     * Writes every event of a model to a snapshot file, replacing the file if it exists.
+     * @param file the file to write
+     * @param model the model to store
+     * @return the number of events written
+     * @throws IOException if the file cannot be written
+     */
+    public static int write(Path file, ICalendarModel model) throws IOException {
+        List<IEvent> events = model.getAllEvents();
+        int rows = events.size();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[][] stringColumns = new int[4][rows];
+        for (int row = 0; row < rows; row++) {
+            IEvent event = events.get(row);
+            stringColumns[0][row] = stringIndex(event.getSubject(), dictionary, strings);
+            stringColumns[1][row] = stringIndex(event.getLocation(), dictionary, strings);
+            stringColumns[2][row] = stringIndex(event.getDescription(), dictionary, strings);
+            stringColumns[3][row] = stringIndex(event.getStatus(), dictionary, strings);
+        }
+        long stringDataLength = 0;
+        for (byte[] string : strings) {
+            stringDataLength += string.length;
+        }
+        long fileSize = align(HEADER_SIZE + rows * ROW_SIZE) + (strings.size() + 1) * 4L + stringDataLength;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Calendar too large for a snapshot file: " + fileSize + " bytes.");
+        }
+
+        try (FileOutputStream stream = new FileOutputStream(file.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, WRITE_BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows);
+            out.writeInt(strings.size());
+            out.writeLong(stringDataLength);
+            for (IEvent event : events) {
+                out.writeLong(event.getStart().toEpochMinute());
+            }
+            for (IEvent event : events) {
+                out.writeLong(event.getEnd() != null ? event.getEnd().toEpochMinute() : NO_END);
+            }
+            long maxEnd = Long.MIN_VALUE;
+            for (IEvent event : events) {
+                maxEnd = Math.max(maxEnd, effectiveEnd(event.getStart().toEpochMinute(),
+                        event.getEnd() != null ? event.getEnd().toEpochMinute() : NO_END));
+                out.writeLong(maxEnd);
+            }
+            for (IEvent event : events) {
+                out.writeLong(event.getSeriesId());
+            }
+            for (IEvent event : events) {
+                out.writeLong(event.getOriginalSeriesId());
+            }
+            for (int[] column : stringColumns) {
+                for (int value : column) {
+                    out.writeInt(value);
+                }
+            }
+            for (IEvent event : events) {
+                out.writeInt(flagsOf(event));
+            }
+            for (long padding = align(HEADER_SIZE + rows * ROW_SIZE) - (HEADER_SIZE + rows * ROW_SIZE); padding > 0; padding--) {
+                out.writeByte(0);
+            }
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                offset += string.length;
+                out.writeInt(offset);
+            }
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        return rows;
+    }
+
+    /**
+     * Maps a snapshot file for querying.
+     * @param file the file written by {@link #write(Path, ICalendarModel)}
+     * @return the read-only calendar
+     * @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static ColumnarSnapshot open(Path file) throws IOException {
+        ByteBuffer mapping;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a calendar snapshot: " + file);
+            }
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapping.getInt(0) != MAGIC || mapping.getInt(4) != VERSION) {
+            throw new IOException("Not a calendar snapshot: " + file);
+        }
+        int rows = mapping.getInt(8);
+        int strings = mapping.getInt(12);
+        long stringDataLength = mapping.getLong(16);
+        long expectedSize = align(HEADER_SIZE + rows * ROW_SIZE) + (strings + 1) * 4L + stringDataLength;
+        if (rows < 0 || strings < 0 || expectedSize != mapping.capacity()) {
+            throw new IOException("Calendar snapshot is truncated or corrupt: " + file);
+        }
+        return new ColumnarSnapshot(mapping, rows, strings, (int) stringDataLength);
+    }
+
+    /**
+     * Gets the number of events in the snapshot.
+     * @return the number of rows
+     */
+    public int size() {
+        return rows;
+    }
+
+    @Override
+    public boolean createEvent(String subject, DateTime startDateTime, DateTime endDateTime,
+                               String description, String location, String status) {
+        return rejectChange();
+    }
+
+    @Override
+    public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
+                                     String description, String location, String status,
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
+        return rejectChange();
+    }
+
+    @Override
+    public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                             EventEdit edit, String scope) {
+        return rejectChange();
+    }
+
+    /**
+     * Reports that a snapshot cannot be changed.
+     * @return false, always
+     */
+    private static boolean rejectChange() {
+        System.err.println("Error: This calendar was opened from a snapshot and is read-only.");
+        return false;
+    }
+
+    @Override
+    public List<IEvent> getAllEvents() {
+        List<IEvent> result = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            result.add(new Row(row));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the events touching a date, ordered by start.
+     * @param date the date to search for events
+     * @return a new list of the events on that date
+     */
+    @Override
+    public List<IEvent> getEventsOnDate(Date date) {
+        long dayStart = date.toEpochDay() * DateTime.MINUTES_PER_DAY;
+        List<IEvent> result = new ArrayList<>();
+        int end = firstStartingAtOrAfter(dayStart + DateTime.MINUTES_PER_DAY);
+        for (int row = firstReachingPast(dayStart - 1); row < end; row++) {
+            if (effectiveEnd(row) >= dayStart) {
+                result.add(new Row(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the events overlapping a range, ordered by start and then end.
+     * @param startRange the start of the range
+     * @param endRange the end of the range
+     * @return a new list of the events in the range
+     */
+    @Override
+    public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
+        long from = startRange.toEpochMinute();
+        List<IEvent> result = new ArrayList<>();
+        int end = firstStartingAtOrAfter(endRange.toEpochMinute());
+        for (int row = firstReachingPast(from); row < end; row++) {
+            if (effectiveEnd(row) > from) {
+                result.add(new Row(row));
+            }
+        }
+        result.sort(Comparator.comparingLong((IEvent event) -> ((Row) event).startMinute())
+                .thenComparingLong(event -> ((Row) event).effectiveEndMinute()));
+        return result;
+    }
+
+    /**
+     * Checks whether any event covers an instant, from the running maximum of the ends alone.
+     * @param dateTime the instant to check
+     * @return true if an event starts at or before the instant and ends after it
+     */
+    @Override
+    public boolean isBusyAt(DateTime dateTime) {
+        long at = dateTime.toEpochMinute();
+        int startedRows = firstStartingAtOrAfter(at + 1);
+        return startedRows > 0 && maxEnds.get(startedRows - 1) > at;
+    }
+
+    /**
+     * Finds the first row that starts at or after an instant.
+     * @param minute the instant, in epoch minutes
+     * @return the row index, or the row count if every row starts earlier
+     */
+    private int firstStartingAtOrAfter(long minute) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts.get(mid) < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first row from which some row ends after an instant; every row before it ends at or before it.
+     * @param minute the instant, in epoch minutes
+     * @return the row index, or the row count if no row ends after the instant
+     */
+    private int firstReachingPast(long minute) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxEnds.get(mid) <= minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the end of a row used for overlap checks, falling back to 17:00 on the start date.
+     * @param row the row index
+     * @return the effective end, in epoch minutes
+     */
+    private long effectiveEnd(int row) {
+        return effectiveEnd(starts.get(row), ends.get(row));
+    }
+
+    /**
+     * Gets the end used for overlap checks, falling back to 17:00 on the start date.
+     * @param start the start, in epoch minutes
+     * @param end the end, in epoch minutes, or {@code NO_END}
+     * @return the effective end, in epoch minutes
+     */
+    private static long effectiveEnd(long start, long end) {
+        if (end != NO_END) {
+            return end;
+        }
+        return Math.floorDiv(start, DateTime.MINUTES_PER_DAY) * DateTime.MINUTES_PER_DAY + ALL_DAY_END_MINUTE;
+    }
+
+    /**
+     * Reads a string from the dictionary, decoding it on first use.
+     * @param index the dictionary index, or -1
+     * @return the string, or null for -1
+     */
+    private String string(int index) {
+        if (index == NO_STRING) {
+            return null;
+        }
+        String decoded = decodedStrings[index];
+        if (decoded == null) {
+            int from = stringOffsets.get(index);
+            byte[] bytes = new byte[stringOffsets.get(index + 1) - from];
+            stringData.get(from, bytes);
+            decoded = new String(bytes, StandardCharsets.UTF_8);
+            decodedStrings[index] = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * Adds a string to the dictionary being written, if it is not there yet.
+     * @return the dictionary index of the string, or -1 for null
+     */
+    private static int stringIndex(String value, Map<String, Integer> dictionary, List<byte[]> strings) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = strings.size();
+            dictionary.put(value, index);
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    /**
+     * Packs the series flags and weekday mask of an event into an int.
+     */
+    private static int flagsOf(IEvent event) {
+        int packed = event.isSeriesException() ? SERIES_EXCEPTION : 0;
+        if (event instanceof Event) {
+            packed |= ((Event) event).getIsSeriesFlag() ? SERIES_FLAG : 0;
+            packed |= ((Event) event).getDaysOfWeekMask() << MASK_SHIFT;
+        }
+        return packed;
+    }
+
+    /**
+     * Rounds a file offset up to the next multiple of 8.
+     */
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    /**
+     * Rounds a file offset up to the next multiple of 8.
+     */
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    /**
+     * An event that reads its fields from one row of the mapping when asked.
+     * It cannot be changed; {@link #copy()} returns a regular, modifiable {@link Event}.
+     */
+    private final class Row implements IEvent {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        private long startMinute() {
+            return starts.get(row);
+        }
+
+        private long effectiveEndMinute() {
+            return effectiveEnd(row);
+        }
+
+        @Override
+        public String getSubject() {
+            return string(subjects.get(row));
+        }
+
+        @Override
+        public DateTime getStart() {
+            return DateTime.ofEpochMinute(starts.get(row));
+        }
+
+        @Override
+        public DateTime getEnd() {
+            long end = ends.get(row);
+            return end != NO_END ? DateTime.ofEpochMinute(end) : null;
+        }
+
+        @Override
+        public String getLocation() {
+            return string(locations.get(row));
+        }
+
+        @Override
+        public String getDescription() {
+            return string(descriptions.get(row));
+        }
+
+        @Override
+        public String getStatus() {
+            return string(statuses.get(row));
+        }
+
+        @Override
+        public long getSeriesId() {
+            return seriesIds.get(row);
+        }
+
+        @Override
+        public boolean isSeriesException() {
+            return (flags.get(row) & SERIES_EXCEPTION) != 0;
+        }
+
+        @Override
+        public long getOriginalSeriesId() {
+            return originalSeriesIds.get(row);
+        }
+
+        @Override
+        public void setSubject(String subject) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStart(DateTime start) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setEnd(DateTime end) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLocation(String location) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDescription(String description) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStatus(String status) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSeriesId(long seriesId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSeriesException(boolean isSeriesException) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setOriginalSeriesId(long originalSeriesId) {
+            throw readOnly();
+        }
+
+        @Override
+        public IEvent copy() {
+            Event event = new Event(getSubject(), getLocation(), getStart(), getEnd(), getStatus(), getDescription());
+            event.setSeriesId(getSeriesId());
+            event.setOriginalSeriesId(getOriginalSeriesId());
+            event.setSeriesException(isSeriesException());
+            event.setIsSeriesFlag((flags.get(row) & SERIES_FLAG) != 0);
+            event.setDaysOfWeekMask(flags.get(row) >>> MASK_SHIFT);
+            return event;
+        }
+
+        private UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Events of a calendar snapshot are read-only.");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package calendar;
+
+/**
+ * A parsed command: an immutable description of one command line.
+ * Commands hold no behavior and never touch a model, so they can be parsed ahead of time or on other
+ * threads, kept and replayed; a {@link CommandBus} runs them, in order, on the thread that owns the model.
+ */
+public interface Command {
+    /**
+     * Passes this command to the handler method for its type.
+     * @param handler the handler to call
+     */
+    void dispatchTo(CommandHandler handler);
+}
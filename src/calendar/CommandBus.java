@@ -0,0 +1,155 @@
+package calendar;
+
+import java.util.List;
+
+/**
+ * Runs parsed commands against a model and reports the results through a view.
+ * Each command is dispatched to the handler method for its type; any exception it throws
+ * is reported as an error, so one bad command never stops the commands after it.
+ * Errors a {@link CalendarRegistry} kept while the command ran (failed spills) are reported after it.
+ */
+public class CommandBus implements CommandHandler {
+    private final ICalendarModel model;
+    private final CalendarRegistry registry;
+    private final ICalendarView view;
+
+    /**
+     * Constructs a CommandBus.
+     * Calendar commands (create, use and show calendars) are only available when the model is a {@link CalendarRegistry}.
+     * @param model the calendar model commands run against
+     * @param view the view results and errors are reported to
+     */
+    public CommandBus(ICalendarModel model, ICalendarView view) {
+        this.model = model;
+        this.registry = model instanceof CalendarRegistry ? (CalendarRegistry) model : null;
+        this.view = view;
+    }
+
+    /**
+     * Runs a command, reporting any exception it throws through the view.
+     * @param command the command to run
+     */
+    public void dispatch(Command command) {
+        try {
+            command.dispatchTo(this);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            view.displayError(e.getMessage());
+        } catch (Exception e) {
+            view.displayError("An unexpected error occurred while processing command: " + e.getMessage());
+        }
+        if (registry != null) {
+            for (String error : registry.takeErrors()) {
+                view.displayError(error);
+            }
+        }
+    }
+
+    /**
+     * Runs commands in order.
+     * @param commands the commands to run
+     */
+    public void dispatchAll(List<? extends Command> commands) {
+        for (Command command : commands) {
+            dispatch(command);
+        }
+    }
+
+    @Override
+    public void handle(InvalidCommand command) {
+        view.displayError(command.getMessage());
+    }
+
+    @Override
+    public void handle(CreateEventCommand command) {
+        if (model.createEvent(command.getSubject(), command.getStart(), command.getEnd(),
+                command.getDescription(), command.getLocation(), command.getStatus())) {
+            view.displayMessage("Event(s) created successfully.");
+        }
+    }
+
+    @Override
+    public void handle(CreateSeriesCommand command) {
+        if (model.createEventSeries(command.getSubject(), command.getStart(), command.getEnd(),
+                command.getDescription(), command.getLocation(), command.getStatus(),
+                command.getRepeatDays(), command.getOccurrences(), command.getUntilDate())) {
+            view.displayMessage("Event(s) created successfully.");
+        }
+    }
+
+    @Override
+    public void handle(EditEventCommand command) {
+        if (model.editEvent(command.getFindSubject(), command.getFindStart(), command.getFindEnd(),
+                command.getEdit(), command.getScope())) {
+            view.displayMessage("Event(s) edited successfully.");
+        }
+    }
+
+    @Override
+    public void handle(PrintOnDateCommand command) {
+        List<IEvent> eventsFound = model.getEventsOnDate(command.getDate());
+        view.displayEventsOnDate(eventsFound, command.getDate().toString());
+    }
+
+    @Override
+    public void handle(PrintRangeCommand command) {
+        List<IEvent> eventsFound = model.getEventsInRange(command.getStartRange(), command.getEndRange());
+        view.displayEvents(eventsFound);
+    }
+
+    @Override
+    public void handle(ShowStatusCommand command) {
+        view.displayStatus(model.isBusyAt(command.getDateTime()), command.getDateTime().toString());
+    }
+
+    @Override
+    public void handle(FindSlotCommand command) {
+        if (command.getCalendars().isEmpty()) {
+            view.displayFreeSlot(model.findFirstFreeSlot(command.getStartRange(), command.getEndRange(),
+                    command.getMinutes()));
+        } else if (requireRegistry()) {
+            view.displayFreeSlot(registry.findFirstCommonSlot(command.getCalendars(), command.getStartRange(),
+                    command.getEndRange(), command.getMinutes()));
+        }
+    }
+
+    @Override
+    public void handle(FindFreeSlotsCommand command) {
+        view.displayFreeSlots(model.findFreeSlots(command.getStartRange(), command.getEndRange(),
+                command.getMinutes()));
+    }
+
+    @Override
+    public void handle(CreateCalendarCommand command) {
+        if (requireRegistry()) {
+            registry.createCalendar(command.getName());
+            view.displayMessage("Calendar created successfully.");
+        }
+    }
+
+    @Override
+    public void handle(UseCalendarCommand command) {
+        if (requireRegistry()) {
+            registry.useCalendar(command.getName());
+            view.displayMessage("Using calendar " + command.getName() + ".");
+        }
+    }
+
+    @Override
+    public void handle(ShowCalendarsCommand command) {
+        if (requireRegistry()) {
+            view.displayCalendars(registry.getStats());
+        }
+    }
+
+    /**
+     * Checks that the bus runs against a registry, reporting an error if it does not.
+     * @return true if calendar commands can run
+     */
+    private boolean requireRegistry() {
+        if (registry == null) {
+            view.displayError("This calendar does not support multiple calendars.");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package calendar;
+
+/**
+ * Handles each kind of {@link Command}.
+ * {@link Command#dispatchTo(CommandHandler)} selects the method, so handlers never test or cast command types.
+ */
+public interface CommandHandler {
+    /**
+     * Handles a line that could not be parsed.
+     * @param command the command
+     */
+    void handle(InvalidCommand command);
+
+    /**
+     * Handles the creation of a single event.
+     * @param command the command
+     */
+    void handle(CreateEventCommand command);
+
+    /**
+     * Handles the creation of an event series.
+     * @param command the command
+     */
+    void handle(CreateSeriesCommand command);
+
+    /**
+     * Handles an edit of one or more events.
+     * @param command the command
+     */
+    void handle(EditEventCommand command);
+
+    /**
+     * Handles printing the events on a date.
+     * @param command the command
+     */
+    void handle(PrintOnDateCommand command);
+
+    /**
+     * Handles printing the events in a date-time range.
+     * @param command the command
+     */
+    void handle(PrintRangeCommand command);
+
+    /**
+     * Handles showing the busy status at an instant.
+     * @param command the command
+     */
+    void handle(ShowStatusCommand command);
+
+    /**
+     * Handles finding the earliest free slot in a range.
+     * @param command the command
+     */
+    void handle(FindSlotCommand command);
+
+    /**
+     * Handles listing every free slot in a range.
+     * @param command the command
+     */
+    void handle(FindFreeSlotsCommand command);
+
+    /**
+     * Handles creating a named calendar.
+     * @param command the command
+     */
+    void handle(CreateCalendarCommand command);
+
+    /**
+     * Handles switching the calendar in use.
+     * @param command the command
+     */
+    void handle(UseCalendarCommand command);
+
+    /**
+     * Handles listing the calendars.
+     * @param command the command
+     */
+    void handle(ShowCalendarsCommand command);
+}
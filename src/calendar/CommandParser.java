@@ -0,0 +1,486 @@
+package calendar;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns command lines into {@link Command} objects.
+ * The parser holds no mutable state and never touches a model, so one instance can be shared
+ * by several threads. Syntax and value errors do not throw: they are returned as commands that
+ * report the error when run, so errors still appear in command order.
+ */
+public class CommandParser {
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+    // the grammar the controller used to compile per command; CommandParserBenchmark recompiles it for comparison
+    static final Pattern CREATE_EVENT_PATTERN = Pattern.compile(
+        "create event (\"[^\"]+\"|[^\\s]+) from (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}) to (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2})(?: repeats ([MTWRFSU]+) (?:for (\\d+) times|until (\\d{4}-\\d{2}-\\d{2})))?(.*)", Pattern.CASE_INSENSITIVE);
+    static final Pattern CREATE_ALL_DAY_EVENT_PATTERN = Pattern.compile(
+        "create event (\"[^\"]+\"|[^\\s]+) on (\\d{4}-\\d{2}-\\d{2})(?: repeats ([MTWRFSU]+) (?:for (\\d+) times|until (\\d{4}-\\d{2}-\\d{2})))?(.*)", Pattern.CASE_INSENSITIVE);
+    static final Pattern OPTIONAL_ARG_PATTERN = Pattern.compile(
+        "(?:with\\s+)?(description|location|status)\\s+\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+    static final Pattern EDIT_PATTERN = Pattern.compile(
+        "edit (event|events|series) (subject|start|end|description|location|status) (\"[^\"]+\"|[^\\s]+) from (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2})(?: to (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}))? with (.*)", Pattern.CASE_INSENSITIVE);
+    static final Pattern PRINT_ON_DATE_PATTERN = Pattern.compile(
+        "print events on (\\d{4}-\\d{2}-\\d{2})", Pattern.CASE_INSENSITIVE);
+    static final Pattern PRINT_RANGE_PATTERN = Pattern.compile(
+        "print events from (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}) to (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2})", Pattern.CASE_INSENSITIVE);
+    static final Pattern SHOW_STATUS_PATTERN = Pattern.compile(
+        "show status on (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2})", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_CALENDAR_PATTERN = Pattern.compile(
+        "create calendar --name ([^\\s]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern USE_CALENDAR_PATTERN = Pattern.compile(
+        "use calendar --name ([^\\s]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SHOW_CALENDARS_PATTERN = Pattern.compile(
+        "show calendars", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FIND_FREE_SLOTS_PATTERN = Pattern.compile(
+        "find free slots from (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}) to (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}) for (\\d{1,6}) minutes", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FIND_SLOT_PATTERN = Pattern.compile(
+        "find slot from (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}) to (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}) for (\\d{1,6}) minutes(?: across ([A-Za-z0-9_,-]+))?", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Parses a single command line.
+     * @param command the command string to parse
+     * @return the parsed command; a command that reports the error if the line is invalid
+     */
+    public Command parse(String command) {
+        String trimmedCommand = command.trim();
+        String[] commandParts = WHITESPACE_PATTERN.split(trimmedCommand, 2);
+
+        if (commandParts.length == 0 || commandParts[0].isEmpty()) {
+            return new InvalidCommand("Empty command.");
+        }
+
+        String mainAction = commandParts[0].toLowerCase();
+
+        try {
+            switch (mainAction) {
+                case "create":
+                    return parseCreateCommand(trimmedCommand);
+                case "edit":
+                    return parseEditCommand(trimmedCommand);
+                case "print":
+                    return parsePrintCommand(trimmedCommand);
+                case "show":
+                    return parseShowCommand(trimmedCommand);
+                case "find":
+                    return parseFindCommand(trimmedCommand);
+                case "use":
+                    return parseUseCommand(trimmedCommand);
+                default:
+                    return new InvalidCommand("Unrecognized command: " + mainAction);
+            }
+        } catch (IllegalArgumentException e) {
+            return new InvalidCommand(e.getMessage());
+        } catch (Exception e) {
+            return new InvalidCommand("An unexpected error occurred while processing command: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a date string in YYYY-MM-DD format and returns a Date object.
+     * The fields are read by character offset, without regular expressions or splitting.
+     * @param dateStr the date string to parse
+     * @return a Date object representing the parsed date
+     * @throws IllegalArgumentException if the date string format is invalid
+     */
+    private Date parseDateString(String dateStr) throws IllegalArgumentException {
+        if (dateStr == null || !isDateAt(dateStr, 0) || dateStr.length() != 10) {
+            throw new IllegalArgumentException("Invalid date string format. Expected YYYY-MM-DD. Received: " + dateStr);
+        }
+        return dateAt(dateStr, 0);
+    }
+
+    /**
+     * Parses a date-time string in YYYY-MM-DDTHH:mm format and returns a DateTime object.
+     * @param dateTimeStr the date-time string to parse
+     * @return a DateTime object representing the parsed date and time
+     * @throws IllegalArgumentException if the date-time string format is invalid
+     */
+    private DateTime parseDateTimeString(String dateTimeStr) throws IllegalArgumentException {
+        if (dateTimeStr == null || dateTimeStr.length() != 16 || !isDateAt(dateTimeStr, 0)
+                || dateTimeStr.charAt(10) != 'T' || !isTimeAt(dateTimeStr, 11)) {
+            throw new IllegalArgumentException("Invalid date/time string format. Expected YYYY-MM-DDTHH:mm. Received: " + dateTimeStr);
+        }
+        return new DateTime(dateAt(dateTimeStr, 0), timeAt(dateTimeStr, 11));
+    }
+
+    /**
+     * Checks whether a YYYY-MM-DD date starts at the given offset.
+     * @param text the text to check
+     * @param offset the offset of the first year digit
+     * @return true if the ten characters from the offset have the date shape
+     */
+    private static boolean isDateAt(String text, int offset) {
+        return text.length() >= offset + 10
+                && isDigits(text, offset, 4) && text.charAt(offset + 4) == '-'
+                && isDigits(text, offset + 5, 2) && text.charAt(offset + 7) == '-'
+                && isDigits(text, offset + 8, 2);
+    }
+
+    /**
+     * Checks whether an HH:mm time starts at the given offset.
+     * @param text the text to check
+     * @param offset the offset of the first hour digit
+     * @return true if the five characters from the offset have the time shape
+     */
+    private static boolean isTimeAt(String text, int offset) {
+        return text.length() >= offset + 5
+                && isDigits(text, offset, 2) && text.charAt(offset + 2) == ':'
+                && isDigits(text, offset + 3, 2);
+    }
+
+    /**
+     * Reads the date at the given offset, whose shape has already been checked.
+     * @throws IllegalArgumentException if the fields do not form a valid date
+     */
+    private static Date dateAt(String text, int offset) {
+        return Date.of(digits(text, offset + 8, 2), digits(text, offset + 5, 2), digits(text, offset, 4));
+    }
+
+    /**
+     * Reads the time at the given offset, whose shape has already been checked.
+     * @throws IllegalArgumentException if the fields do not form a valid time
+     */
+    private static Time timeAt(String text, int offset) {
+        return Time.of(digits(text, offset, 2), digits(text, offset + 3, 2));
+    }
+
+    /**
+     * Checks whether the given run of characters consists of ASCII digits only.
+     */
+    private static boolean isDigits(String text, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the given run of ASCII digits as a number.
+     */
+    private static int digits(String text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Extracts the subject from a raw subject token by removing surrounding quotes if present.
+     * @param rawSubjectToken the raw subject token that may be quoted
+     * @return the extracted subject string without quotes
+     */
+    private String extractSubject(String rawSubjectToken) {
+        if (rawSubjectToken.startsWith("\"") && rawSubjectToken.endsWith("\"") && rawSubjectToken.length() >=2) {
+            return rawSubjectToken.substring(1, rawSubjectToken.length() - 1);
+        }
+        return rawSubjectToken;
+    }
+
+    /**
+     * Extracts a quoted value by removing surrounding quotes if present.
+     * @param rawValue the raw value that may be quoted
+     * @return the extracted value string without quotes
+     */
+    private String extractQuotedValue(String rawValue) {
+        rawValue = rawValue.trim();
+        if (rawValue.startsWith("\"") && rawValue.endsWith("\"") && rawValue.length() >= 2) {
+            return rawValue.substring(1, rawValue.length() - 1);
+        }
+        return rawValue;
+    }
+
+    /**
+     * Parses a weekdays string into a weekday mask.
+     * @param weekdaysString the string containing weekday codes (M, T, W, R, F, S, U)
+     * @return the {@link Weekdays} mask of the parsed weekdays
+     * @throws IllegalArgumentException if an invalid weekday code is encountered
+     */
+    private int parseWeekdays(String weekdaysString) {
+        int days = Weekdays.NONE;
+        if (weekdaysString == null) return days;
+        for (char c : weekdaysString.toUpperCase().toCharArray()) {
+            switch (c) {
+                case 'M': days |= Weekdays.of(DayOfWeek.MONDAY); break;
+                case 'T': days |= Weekdays.of(DayOfWeek.TUESDAY); break;
+                case 'W': days |= Weekdays.of(DayOfWeek.WEDNESDAY); break;
+                case 'R': days |= Weekdays.of(DayOfWeek.THURSDAY); break;
+                case 'F': days |= Weekdays.of(DayOfWeek.FRIDAY); break;
+                case 'S': days |= Weekdays.of(DayOfWeek.SATURDAY); break;
+                case 'U': days |= Weekdays.of(DayOfWeek.SUNDAY); break;
+                default:
+                    throw new IllegalArgumentException("Invalid weekday code: " + c + " in " + weekdaysString);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Parses the 'create' command for creating events and event series.
+     * @param command the full create command string
+     * @return the parsed command
+     */
+    private Command parseCreateCommand(String command) {
+        if (command.regionMatches(true, 0, "create calendar", 0, "create calendar".length())) {
+            Matcher calendarMatcher = CREATE_CALENDAR_PATTERN.matcher(command);
+            if (calendarMatcher.matches()) {
+                return new CreateCalendarCommand(calendarMatcher.group(1));
+            }
+            return new InvalidCommand("Invalid 'create calendar' command syntax. Use 'create calendar --name <name>'.");
+        }
+
+        Matcher matcher = CREATE_EVENT_PATTERN.matcher(command);
+        boolean isAllDay = false;
+
+        if (!matcher.matches()) {
+            matcher = CREATE_ALL_DAY_EVENT_PATTERN.matcher(command);
+            if (matcher.matches()) {
+                isAllDay = true;
+            } else {
+                return new InvalidCommand("Invalid 'create event' command syntax. Problem with general structure, subject, or from/to/on clauses.");
+            }
+        }
+
+        String subject = extractSubject(matcher.group(1));
+        DateTime startDateTime;
+        DateTime endDateTime = null;
+        String description = null;
+        String location = null;
+        String status = "public";
+
+        if (isAllDay) {
+            Date date = parseDateString(matcher.group(2));
+            startDateTime = new DateTime(date, Time.of(8, 0));
+        } else {
+            startDateTime = parseDateTimeString(matcher.group(2));
+            endDateTime = parseDateTimeString(matcher.group(3));
+        }
+
+        String weekdaysString = null;
+        Integer occurrences = null;
+        Date seriesEndDate = null;
+        boolean isSeries = false;
+
+        int baseRepeatGroupIndex = isAllDay ? 3 : 4;
+        if (matcher.group(baseRepeatGroupIndex) != null) {
+            isSeries = true;
+            weekdaysString = matcher.group(baseRepeatGroupIndex);
+            if (matcher.group(baseRepeatGroupIndex + 1) != null) {
+                occurrences = Integer.parseInt(matcher.group(baseRepeatGroupIndex + 1));
+            } else if (matcher.group(baseRepeatGroupIndex + 2) != null) {
+                seriesEndDate = parseDateString(matcher.group(baseRepeatGroupIndex + 2));
+            } else {
+                return new InvalidCommand("Invalid repeat arguments for series. Must specify 'for N times' or 'until date'.");
+            }
+        }
+
+        int optionalArgsGroupIndex = isAllDay ? 6 : 7;
+        String optionalArgsStr = matcher.group(optionalArgsGroupIndex);
+        if (optionalArgsStr != null && !optionalArgsStr.trim().isEmpty()) {
+            Matcher optionalArgMatcher = OPTIONAL_ARG_PATTERN.matcher(optionalArgsStr.trim());
+            while (optionalArgMatcher.find()) {
+                String key = optionalArgMatcher.group(1).toLowerCase();
+                String value = optionalArgMatcher.group(2);
+                switch (key) {
+                    case "description":
+                        description = value;
+                        break;
+                    case "location":
+                        location = value;
+                        break;
+                    case "status":
+                        if ("public".equalsIgnoreCase(value) || "private".equalsIgnoreCase(value)) {
+                            status = value.toLowerCase();
+                        } else {
+                            return new InvalidCommand("Invalid status value for create: '" + value + "'. Must be 'public' or 'private'.");
+                        }
+                        break;
+                }
+            }
+        }
+
+        if (isSeries) {
+            int repeatDays = parseWeekdays(weekdaysString);
+            if (repeatDays == Weekdays.NONE && weekdaysString != null && !weekdaysString.isEmpty()) {
+                return new InvalidCommand("Repeat days cannot be empty for a series.");
+            }
+            return new CreateSeriesCommand(subject, startDateTime, endDateTime, description, location, status,
+                    repeatDays, occurrences, seriesEndDate);
+        }
+        return new CreateEventCommand(subject, startDateTime, endDateTime, description, location, status);
+    }
+
+    /**
+     * Parses the 'edit' command for modifying existing events.
+     * @param command the full edit command string
+     * @return the parsed command
+     */
+    private Command parseEditCommand(String command) {
+        Matcher matcher = EDIT_PATTERN.matcher(command);
+
+        if (!matcher.matches()) {
+            return new InvalidCommand("Invalid 'edit' command syntax.");
+        }
+
+        String scopeKey = matcher.group(1).toLowerCase();
+        String property = matcher.group(2).toLowerCase();
+        String findSubject = extractSubject(matcher.group(3));
+        DateTime findStartDateTime = parseDateTimeString(matcher.group(4));
+        DateTime findEndDateTime = null;
+        String capturedNewValuePart = matcher.group(6).trim();
+        String newValueRaw = capturedNewValuePart.split("#", 2)[0].trim();
+
+        String scope;
+        if (scopeKey.equals("event")) {
+            scope = "this";
+            if (matcher.group(5) == null) {
+                return new InvalidCommand("For 'edit event' (this instance), the 'to <endDateTtimeString>' part is required to uniquely identify the event.");
+            }
+            findEndDateTime = parseDateTimeString(matcher.group(5));
+        } else if (scopeKey.equals("events")) {
+            scope = "future";
+            if (matcher.group(5) != null) {
+                return new InvalidCommand("For 'edit events' (this and future), 'to <endDateTtimeString>' should not be specified for identification. Use only subject and start time.");
+            }
+        } else if (scopeKey.equals("series")) {
+            scope = "all";
+            if (matcher.group(5) != null) {
+                return new InvalidCommand("For 'edit series' (all instances), 'to <endDateTtimeString>' should not be specified for identification. Use only subject and start time.");
+            }
+        } else {
+            return new InvalidCommand("Internal error: Unrecognized edit scope key: " + scopeKey);
+        }
+
+        EventEdit edit;
+        switch (property) {
+            case "subject":
+            case "description":
+            case "location":
+                edit = EventEdit.ofText(property, extractQuotedValue(newValueRaw));
+                break;
+            case "status":
+                String statusVal = extractQuotedValue(newValueRaw).toLowerCase();
+                if (!statusVal.equals("public") && !statusVal.equals("private")) {
+                    return new InvalidCommand("Invalid status value. Must be 'public' or 'private'. Received: " + newValueRaw);
+                }
+                edit = EventEdit.ofText(property, statusVal);
+                break;
+            case "start":
+            case "end":
+                edit = EventEdit.ofDateTime(property, parseDateTimeString(extractQuotedValue(newValueRaw)));
+                break;
+            default:
+                return new InvalidCommand("Internal error: Unrecognized property to edit: " + property);
+        }
+
+        return new EditEventCommand(findSubject, findStartDateTime, findEndDateTime, edit, scope);
+    }
+
+    /**
+     * Parses the 'print' command for displaying events on a date or within a range.
+     * @param command the full print command string
+     * @return the parsed command
+     */
+    private Command parsePrintCommand(String command) {
+
+        Matcher matcher = PRINT_ON_DATE_PATTERN.matcher(command);
+        if (matcher.matches()) {
+            Date date = parseDateString(matcher.group(1));
+            return new PrintOnDateCommand(date);
+        }
+        matcher = PRINT_RANGE_PATTERN.matcher(command);
+        if (matcher.matches()) {
+            DateTime startRange = parseDateTimeString(matcher.group(1));
+            DateTime endRange = parseDateTimeString(matcher.group(2));
+            if (endRange.isBefore(startRange)) {
+                return new InvalidCommand("End of range cannot be before start of range for 'print events'.");
+            }
+            return new PrintRangeCommand(startRange, endRange);
+        }
+        return new InvalidCommand("Invalid 'print events' command syntax.");
+    }
+
+    /**
+     * Parses the 'show' command for displaying status information.
+     * @param command the full show command string
+     * @return the parsed command
+     */
+    private Command parseShowCommand(String command) {
+        Matcher matcher = SHOW_STATUS_PATTERN.matcher(command);
+        if (matcher.matches()) {
+            DateTime dateTime = parseDateTimeString(matcher.group(1));
+            return new ShowStatusCommand(dateTime);
+        }
+        if (SHOW_CALENDARS_PATTERN.matcher(command).matches()) {
+            return new ShowCalendarsCommand();
+        }
+        return new InvalidCommand("Invalid 'show status' command syntax.");
+    }
+
+    /**
+     * Parses the 'find slot' command for finding the earliest free slot in a range, optionally common to
+     * several named calendars listed after 'across',
+     * and the 'find free slots' command for listing every free slot in a range.
+     * @param command the full find command string
+     * @return the parsed command
+     */
+    private Command parseFindCommand(String command) {
+        Matcher freeSlotsMatcher = FIND_FREE_SLOTS_PATTERN.matcher(command);
+        if (freeSlotsMatcher.matches()) {
+            DateTime startRange = parseDateTimeString(freeSlotsMatcher.group(1));
+            DateTime endRange = parseDateTimeString(freeSlotsMatcher.group(2));
+            int minutes = Integer.parseInt(freeSlotsMatcher.group(3));
+            if (!endRange.isAfter(startRange)) {
+                return new InvalidCommand("End of range must be after start of range for 'find free slots'.");
+            }
+            if (minutes == 0) {
+                return new InvalidCommand("The slot length for 'find free slots' must be at least one minute.");
+            }
+            return new FindFreeSlotsCommand(startRange, endRange, minutes);
+        }
+
+        Matcher matcher = FIND_SLOT_PATTERN.matcher(command);
+        if (matcher.matches()) {
+            DateTime startRange = parseDateTimeString(matcher.group(1));
+            DateTime endRange = parseDateTimeString(matcher.group(2));
+            int minutes = Integer.parseInt(matcher.group(3));
+            if (!endRange.isAfter(startRange)) {
+                return new InvalidCommand("End of range must be after start of range for 'find slot'.");
+            }
+            if (minutes == 0) {
+                return new InvalidCommand("The slot length for 'find slot' must be at least one minute.");
+            }
+            List<String> calendars = new ArrayList<>();
+            if (matcher.group(4) != null) {
+                for (String name : matcher.group(4).split(",")) {
+                    if (name.isEmpty()) {
+                        return new InvalidCommand("Calendar names for 'find slot ... across' must be separated by single commas.");
+                    }
+                    calendars.add(name);
+                }
+            }
+            return new FindSlotCommand(startRange, endRange, minutes, calendars);
+        }
+        return new InvalidCommand("Invalid 'find slot' command syntax.");
+    }
+
+    /**
+     * Parses the 'use calendar' command for switching the calendar commands run against.
+     * @param command the full use command string
+     * @return the parsed command
+     */
+    private Command parseUseCommand(String command) {
+        Matcher matcher = USE_CALENDAR_PATTERN.matcher(command);
+        if (matcher.matches()) {
+            return new UseCalendarCommand(matcher.group(1));
+        }
+        return new InvalidCommand("Invalid 'use calendar' command syntax. Use 'use calendar --name <name>'.");
+    }
+}
@@ -0,0 +1,178 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A timing harness comparing the old way of parsing commands with {@link CommandParser}.
+ * The old controller compiled the grammar's regular expressions for every command and read dates
+ * and times with {@link String#matches(String)} and {@link String#split(String)}; that path is
+ * rebuilt here from the same patterns, so both sides parse the same grammar.
+ * Run with {@code java calendar.CommandParserBenchmark [commands] [rounds]}.
+ */
+public class CommandParserBenchmark {
+    private static final int DEFAULT_COMMANDS = 100_000;
+    private static final int DEFAULT_ROUNDS = 5;
+    private static final int WARMUP_ROUNDS = 3;
+
+    /**
+     * Times both parsers over the same generated commands and prints the time per command.
+     * @param args the number of commands and the number of timed rounds, both optional
+     */
+    public static void main(String[] args) {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_COMMANDS;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        List<String> lines = generateCommands(commands);
+        CommandParser parser = new CommandParser();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            timeCompilingEachTime(lines);
+            timePrecompiled(parser, lines);
+        }
+        long before = Long.MAX_VALUE;
+        long after = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            before = Math.min(before, timeCompilingEachTime(lines));
+            after = Math.min(after, timePrecompiled(parser, lines));
+        }
+        System.out.printf("%d commands, best of %d rounds%n", commands, rounds);
+        System.out.printf("compiled per command: %8.0f ns/command%n", (double) before / commands);
+        System.out.printf("precompiled parser:   %8.0f ns/command%n", (double) after / commands);
+        System.out.printf("speedup:              %8.2fx%n", (double) before / after);
+    }
+
+    /**
+     * Generates a mix of create, edit, print and status commands over a year of days.
+     */
+    private static List<String> generateCommands(int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String date = String.format("2025-%02d-%02d", 1 + i % 12, 1 + i % 28);
+            String hour = String.format("%02d", 8 + i % 9);
+            switch (i % 5) {
+                case 0:
+                    lines.add("create event \"Meeting " + i + "\" from " + date + "T" + hour + ":00 to " + date + "T" + hour
+                            + ":30 location \"Room " + (i % 40) + "\"");
+                    break;
+                case 1:
+                    lines.add("create event Standup on " + date + " repeats MWF for 10 times");
+                    break;
+                case 2:
+                    lines.add("edit event location \"Meeting " + (i - 2) + "\" from " + date + "T" + hour + ":00 to "
+                            + date + "T" + hour + ":30 with \"Room 1\"");
+                    break;
+                case 3:
+                    lines.add("print events from " + date + "T08:00 to " + date + "T17:00");
+                    break;
+                default:
+                    lines.add("show status on " + date + "T" + hour + ":15");
+                    break;
+            }
+        }
+        return lines;
+    }
+
+    private static long timePrecompiled(CommandParser parser, List<String> lines) {
+        long started = System.nanoTime();
+        int sink = 0;
+        for (String line : lines) {
+            sink += parser.parse(line).hashCode();
+        }
+        long elapsed = System.nanoTime() - started;
+        consume(sink);
+        return elapsed;
+    }
+
+    private static long timeCompilingEachTime(List<String> lines) {
+        long started = System.nanoTime();
+        int sink = 0;
+        for (String line : lines) {
+            sink += parseCompilingEachTime(line);
+        }
+        long elapsed = System.nanoTime() - started;
+        consume(sink);
+        return elapsed;
+    }
+
+    /**
+     * Parses a command the way the controller did before the grammar was compiled once.
+     * @return a checksum of the parsed fields
+     */
+    private static int parseCompilingEachTime(String command) {
+        String trimmed = command.trim();
+        String action = trimmed.split("\\s+")[0].toLowerCase();
+        Matcher matcher;
+        switch (action) {
+            case "create":
+                matcher = recompile(CommandParser.CREATE_EVENT_PATTERN).matcher(trimmed);
+                if (!matcher.matches()) {
+                    matcher = recompile(CommandParser.CREATE_ALL_DAY_EVENT_PATTERN).matcher(trimmed);
+                }
+                break;
+            case "edit":
+                matcher = recompile(CommandParser.EDIT_PATTERN).matcher(trimmed);
+                break;
+            case "print":
+                matcher = recompile(CommandParser.PRINT_RANGE_PATTERN).matcher(trimmed);
+                if (!matcher.matches()) {
+                    matcher = recompile(CommandParser.PRINT_ON_DATE_PATTERN).matcher(trimmed);
+                }
+                break;
+            case "show":
+                matcher = recompile(CommandParser.SHOW_STATUS_PATTERN).matcher(trimmed);
+                break;
+            default:
+                return 0;
+        }
+        if (!matcher.matches()) {
+            return 0;
+        }
+        int checksum = 0;
+        for (int group = 1; group <= matcher.groupCount(); group++) {
+            String value = matcher.group(group);
+            if (value == null) {
+                continue;
+            }
+            if (value.matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}")) {
+                String[] parts = value.split("T");
+                checksum += parseOldDate(parts[0]) + parseOldTime(parts[1]);
+            } else if (value.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                checksum += parseOldDate(value);
+            } else {
+                checksum += value.hashCode();
+            }
+        }
+        if ("create".equals(action)) {
+            Matcher optional = recompile(CommandParser.OPTIONAL_ARG_PATTERN).matcher(matcher.group(matcher.groupCount()));
+            while (optional.find()) {
+                checksum += optional.group(2).hashCode();
+            }
+        }
+        return checksum;
+    }
+
+    private static Pattern recompile(Pattern pattern) {
+        return Pattern.compile(pattern.pattern(), pattern.flags());
+    }
+
+    private static int parseOldDate(String date) {
+        String[] parts = date.split("-");
+        return Date.of(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]), Integer.parseInt(parts[0])).hashCode();
+    }
+
+    private static int parseOldTime(String time) {
+        String[] parts = time.split(":");
+        return Time.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])).hashCode();
+    }
+
+    /**
+     * Keeps the parse results observable so the timed loops cannot be optimised away.
+     */
+    private static void consume(int sink) {
+        if (sink == 42) {
+            System.out.print("");
+        }
+    }
+}
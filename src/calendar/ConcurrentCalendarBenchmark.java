@@ -0,0 +1,132 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A multi-threaded stress test and throughput benchmark for {@link ConcurrentCalendarModel}.
+ * <p>
+ * The calendar holds {@value #SERIES} series of {@value #OCCURRENCES} daily occurrences. One writer keeps
+ * renaming whole series with "all" edits, while reader threads list every event and check that each series
+ * shows all of its occurrences under a single subject. A read that sees a series half renamed, or that fails
+ * with an exception, counts as torn. The run prints the torn reads and the reads and writes per second.
+ * <p>
+ * Run with {@code java calendar.ConcurrentCalendarBenchmark [seconds] [readers] [--unguarded]}.
+ * {@code --unguarded} runs the same load against a bare {@link CalendarModelImpl} for comparison; its readers
+ * may then loop in an index being rebalanced until they run out of memory or hang, so a reader that fails that
+ * way stops and counts as torn, and the threads run as daemons that are abandoned at the end.
+ */
+public class ConcurrentCalendarBenchmark {
+    private static final int SERIES = 50;
+    private static final int OCCURRENCES = 20;
+    private static final Date FIRST_DAY = Date.of(3, 3, 2025);
+    private static final DateTime RANGE_START = new DateTime(Date.of(1, 3, 2025), Time.of(0, 0));
+    private static final DateTime RANGE_END = new DateTime(Date.of(1, 6, 2025), Time.of(0, 0));
+    private static final long JOIN_MILLIS = 2000;
+
+    /**
+     * Runs the stress test and prints its figures.
+     * @param args the run time in seconds, the number of reader threads, and optionally --unguarded
+     * @throws InterruptedException if interrupted while waiting for the run to end
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        boolean unguarded = args.length > 2 && args[2].equalsIgnoreCase("--unguarded");
+
+        ICalendarModel model = unguarded ? new CalendarModelImpl() : new ConcurrentCalendarModel();
+        String[] subjects = new String[SERIES];
+        for (int i = 0; i < SERIES; i++) {
+            subjects[i] = subject(i, false);
+            if (!model.createEventSeries(subjects[i], firstStart(i), new DateTime(FIRST_DAY, Time.of(8 + i % 9, 30)),
+                    null, null, "public", Weekdays.ALL, OCCURRENCES, null)) {
+                throw new IllegalStateException("Could not set up series " + i + ".");
+            }
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder tornReads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> {
+            for (int i = 0; running.get(); i = (i + 1) % SERIES) {
+                boolean renamed = subjects[i].endsWith("b");
+                String next = subject(i, !renamed);
+                if (model.editEvent(subjects[i], firstStart(i), null, EventEdit.ofText("subject", next), "all")) {
+                    subjects[i] = next;
+                    writes.increment();
+                }
+            }
+        }, "writer"));
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        if (!isConsistent(model)) {
+                            tornReads.increment();
+                        }
+                        reads.increment();
+                    }
+                } catch (OutOfMemoryError | StackOverflowError e) {
+                    // an unguarded reader that followed a cycle in a tree being rebalanced
+                    tornReads.increment();
+                    System.err.println(Thread.currentThread().getName() + " stopped: " + e);
+                }
+            }, "reader-" + r));
+        }
+
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join(JOIN_MILLIS);
+        }
+
+        System.out.printf("%s, %d reader(s), %d s%n", unguarded ? "unguarded CalendarModelImpl" : "ConcurrentCalendarModel",
+                readers, seconds);
+        System.out.printf("reads:  %10.0f /s%n", reads.doubleValue() / seconds);
+        System.out.printf("writes: %10.0f /s%n", writes.doubleValue() / seconds);
+        System.out.printf("torn reads: %d of %d%n", tornReads.sum(), reads.sum());
+    }
+
+    /**
+     * Lists every event and checks that each series has all of its occurrences under one subject.
+     * @return false if a series is incomplete, mixes subjects, or the query fails
+     */
+    private static boolean isConsistent(ICalendarModel model) {
+        try {
+            Map<Long, List<IEvent>> bySeries = new HashMap<>();
+            for (IEvent event : model.getEventsInRange(RANGE_START, RANGE_END)) {
+                bySeries.computeIfAbsent(event.getSeriesId(), key -> new ArrayList<>()).add(event);
+            }
+            if (bySeries.size() != SERIES) {
+                return false;
+            }
+            for (List<IEvent> members : bySeries.values()) {
+                String subject = members.get(0).getSubject();
+                if (members.size() != OCCURRENCES || members.stream().anyMatch(event -> !event.getSubject().equals(subject))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static String subject(int series, boolean renamed) {
+        return "Series" + series + (renamed ? "b" : "a");
+    }
+
+    private static DateTime firstStart(int series) {
+        return new DateTime(FIRST_DAY, Time.of(8 + series % 9, 0));
+    }
+}
@@ -0,0 +1,141 @@
+package calendar;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe calendar model that guards another model with a {@link StampedLock},
+ * for serving many readers while edits arrive.
+ * <p>
+ * Create, series and edit calls take the write lock, so each call (a whole series edit included)
+ * is applied completely before any query can look at the model, and a call that fails leaves nothing
+ * behind. Queries share the read lock and run in parallel with each other; the day bitmaps that
+ * {@link CalendarModelImpl} caches while answering them are kept in a synchronized map for that reason.
+ * Queries do not use optimistic reads: the indexes of {@link CalendarModelImpl} are trees that are
+ * rebalanced in place, and a query running over a tree in the middle of a rotation could follow a cycle
+ * and never get to validate its stamp.
+ * <p>
+ * The wrapped model must only be used through this one from then on. The events returned by its queries
+ * are handed to callers after the lock is released, so the wrapped model must not change them later;
+ * {@link CalendarModelImpl}, {@link JournaledCalendarModel} and {@link ColumnarSnapshot} never do, while the
+ * views returned by {@link ArrayCalendarModel} are only valid until its next change.
+ */
+public class ConcurrentCalendarModel implements ICalendarModel {
+    private final ICalendarModel model;
+    private final StampedLock lock;
+
+    /**
+     * Constructs a new ConcurrentCalendarModel over an empty {@link CalendarModelImpl}.
+     */
+    public ConcurrentCalendarModel() {
+        this(new CalendarModelImpl());
+    }
+
+    /**
+     * Constructs a new ConcurrentCalendarModel.
+     * @param model the model to guard
+     * @throws IllegalArgumentException if the model is null or an {@link ArrayCalendarModel}
+     */
+    public ConcurrentCalendarModel(ICalendarModel model) {
+        if (model == null || model instanceof ArrayCalendarModel) {
+            throw new IllegalArgumentException("A concurrent model needs a model whose events do not change once returned.");
+        }
+        this.model = model;
+        this.lock = new StampedLock();
+    }
+
+    @Override
+    public boolean createEvent(String subject, DateTime startDateTime, DateTime endDateTime,
+                               String description, String location, String status) {
+        long stamp = lock.writeLock();
+        try {
+            return model.createEvent(subject, startDateTime, endDateTime, description, location, status);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
+                                     String description, String location, String status,
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
+        long stamp = lock.writeLock();
+        try {
+            return model.createEventSeries(subject, seriesStartDateTime, seriesEndDateTime, description, location,
+                    status, repeatDays, occurrences, seriesEndDate);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                             EventEdit edit, String scope) {
+        long stamp = lock.writeLock();
+        try {
+            return model.editEvent(findSubject, findStartDateTime, findEndDateTime, edit, scope);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public List<IEvent> getAllEvents() {
+        long stamp = lock.readLock();
+        try {
+            return model.getAllEvents();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<IEvent> getEventsOnDate(Date date) {
+        long stamp = lock.readLock();
+        try {
+            return model.getEventsOnDate(date);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
+        long stamp = lock.readLock();
+        try {
+            return model.getEventsInRange(startRange, endRange);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean isBusyAt(DateTime dateTime) {
+        long stamp = lock.readLock();
+        try {
+            return model.isBusyAt(dateTime);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(DateTime startRange, DateTime endRange, int minutes) {
+        long stamp = lock.readLock();
+        try {
+            return model.findFreeSlots(startRange, endRange, minutes);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public TimeSlot findFirstFreeSlot(DateTime startRange, DateTime endRange, int minutes) {
+        long stamp = lock.readLock();
+        try {
+            return model.findFirstFreeSlot(startRange, endRange, minutes);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package calendar;
+
+/**
+ * Creates a new, empty named calendar.
+ */
+public final class CreateCalendarCommand implements Command {
+    private final String name;
+
+    /**
+     * Constructs a CreateCalendarCommand.
+     * @param name the name of the calendar to create
+     */
+    public CreateCalendarCommand(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the calendar name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,85 @@
+package calendar;
+
+/**
+ * Creates a single event.
+ */
+public final class CreateEventCommand implements Command {
+    private final String subject;
+    private final DateTime start;
+    private final DateTime end;
+    private final String description;
+    private final String location;
+    private final String status;
+
+    /**
+     * Constructs a CreateEventCommand.
+     * @param subject the event subject
+     * @param start the start date and time
+     * @param end the end date and time, or null for an all-day event
+     * @param description the description, or null
+     * @param location the location, or null
+     * @param status the status ("public" or "private")
+     */
+    public CreateEventCommand(String subject, DateTime start, DateTime end, String description,
+                              String location, String status) {
+        this.subject = subject;
+        this.start = start;
+        this.end = end;
+        this.description = description;
+        this.location = location;
+        this.status = status;
+    }
+
+    /**
+     * Gets the event subject.
+     * @return the subject
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Gets the start date and time.
+     * @return the start
+     */
+    public DateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end date and time.
+     * @return the end, or null for an all-day event
+     */
+    public DateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the description.
+     * @return the description, or null
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the location.
+     * @return the location, or null
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Gets the status.
+     * @return "public" or "private"
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
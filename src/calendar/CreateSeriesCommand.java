@@ -0,0 +1,119 @@
+package calendar;
+
+/**
+ * Creates an event series, repeating either a number of times or until a date.
+ */
+public final class CreateSeriesCommand implements Command {
+    private final String subject;
+    private final DateTime start;
+    private final DateTime end;
+    private final String description;
+    private final String location;
+    private final String status;
+    private final int repeatDays;
+    private final Integer occurrences;
+    private final Date untilDate;
+
+    /**
+     * Constructs a CreateSeriesCommand.
+     * @param subject the event subject
+     * @param start the start date and time of the first occurrence
+     * @param end the end date and time of the first occurrence, or null for all-day occurrences
+     * @param description the description, or null
+     * @param location the location, or null
+     * @param status the status ("public" or "private")
+     * @param repeatDays the weekdays of recurrence, as a {@link Weekdays} mask
+     * @param occurrences the number of occurrences, or null when repeating until a date
+     * @param untilDate the last date of the series, or null when repeating a number of times
+     */
+    public CreateSeriesCommand(String subject, DateTime start, DateTime end, String description,
+                               String location, String status, int repeatDays, Integer occurrences,
+                               Date untilDate) {
+        this.subject = subject;
+        this.start = start;
+        this.end = end;
+        this.description = description;
+        this.location = location;
+        this.status = status;
+        this.repeatDays = repeatDays;
+        this.occurrences = occurrences;
+        this.untilDate = untilDate;
+    }
+
+    /**
+     * Gets the event subject.
+     * @return the subject
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Gets the start date and time of the first occurrence.
+     * @return the start
+     */
+    public DateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end date and time of the first occurrence.
+     * @return the end, or null for all-day occurrences
+     */
+    public DateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the description.
+     * @return the description, or null
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the location.
+     * @return the location, or null
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Gets the status.
+     * @return "public" or "private"
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the weekdays of recurrence.
+     * @return the {@link Weekdays} mask
+     */
+    public int getRepeatDays() {
+        return repeatDays;
+    }
+
+    /**
+     * Gets the number of occurrences.
+     * @return the number of occurrences, or null when repeating until a date
+     */
+    public Integer getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * Gets the last date of the series.
+     * @return the last date, or null when repeating a number of times
+     */
+    public Date getUntilDate() {
+        return untilDate;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
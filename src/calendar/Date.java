@@ -1,16 +1,31 @@
 package calendar;
 
-public class Date {
-  private int day;
-  private int month;
-  private int year;
+import java.time.DayOfWeek;
 
-  private boolean leap = false;
+/**
+ * an immutable calendar date (day, month, year).
+ * instances are obtained through {@link #of(int, int, int)} and {@link #fromEpochDay(long)},
+ * which hand out shared instances for dates in a frequently used window of years.
+ */
+public final class Date {
+  private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
 
-  private final int[] daysinmonths = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+  private static final int CACHE_FIRST_YEAR = 2000;
+  private static final int CACHE_LAST_YEAR = 2099;
+  private static final long CACHE_FIRST_DAY = computeEpochDay(1, 1, CACHE_FIRST_YEAR);
+  private static final Date[] CACHE =
+      new Date[(int) (computeEpochDay(31, 12, CACHE_LAST_YEAR) - CACHE_FIRST_DAY + 1)];
+
+  private final int day;
+  private final int month;
+  private final int year;
+
+  private final boolean leap;
+  private final long epochDay;
 
   /**
-   * constructs a new MyDate instance.
+   * constructs a new Date instance.
+   * prefer {@link #of(int, int, int)}, which reuses cached instances.
    *
    * @param day   the day of month (1‑31, further constrained by month)
    * @param month the month of year (1‑12)
@@ -18,93 +33,182 @@ public class Date {
    * @throws IllegalArgumentException if any argument does not form a valid date
    */
   public Date(int day, int month, int year) {
-    if (year < 1) {
+    validate(day, month, year);
+    this.day = day;
+    this.month = month;
+    this.year = year;
+    this.leap = isLeapYear(year);
+    this.epochDay = computeEpochDay(day, month, year);
+  }
+
+  /**
+   * constructs an already validated date whose epoch day is known.
+   */
+  private Date(int day, int month, int year, long epochDay) {
+    this.day = day;
+    this.month = month;
+    this.year = year;
+    this.leap = isLeapYear(year);
+    this.epochDay = epochDay;
+  }
+
+  /**
+   * returns the date with the given fields, reusing a cached instance when one exists.
+   *
+   * @param day   the day of month (1‑31, further constrained by month)
+   * @param month the month of year (1‑12)
+   * @param year  the year (must be positive)
+   * @return the date
+   * @throws IllegalArgumentException if any argument does not form a valid date
+   */
+  public static Date of(int day, int month, int year) {
+    validate(day, month, year);
+    long epochDay = computeEpochDay(day, month, year);
+    int slot = cacheSlot(epochDay);
+    if (slot < 0) {
+      return new Date(day, month, year, epochDay);
+    }
+    Date cached = CACHE[slot];
+    if (cached == null) {
+      cached = new Date(day, month, year, epochDay);
+      CACHE[slot] = cached;
+    }
+    return cached;
+  }
+
+  /**
+   * returns the date that lies the given number of days after 1970-01-01.
+   *
+   * @param epochDay the epoch day (negative before 1970)
+   * @return the date
+   * @throws IllegalArgumentException if the resulting year is not positive
+   */
+  public static Date fromEpochDay(long epochDay) {
+    int slot = cacheSlot(epochDay);
+    if (slot >= 0 && CACHE[slot] != null) {
+      return CACHE[slot];
+    }
+    long z = epochDay + 719468;
+    long era = (z >= 0 ? z : z - 146096) / 146097;
+    long dayOfEra = z - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    if (year < 1 || year > Integer.MAX_VALUE) {
       throw new IllegalArgumentException("Year must be positive");
     }
-    // Corrected day validation to use daysinmonths array after leap year check
-    // Original code had day validation before month-specific checks
+    Date date = new Date(day, month, (int) year, epochDay);
+    if (slot >= 0) {
+      CACHE[slot] = date;
+    }
+    return date;
+  }
 
+  /**
+   * checks whether the given fields form a valid date.
+   *
+   * @throws IllegalArgumentException if they do not
+   */
+  private static void validate(int day, int month, int year) {
+    if (year < 1) {
+      throw new IllegalArgumentException("Year must be positive");
+    }
     if (month > 12 || month < 1) {
       throw new IllegalArgumentException("Month is out of range (1‑12)");
     }
-
-    this.leap = (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0));
-    int maxDays = daysinmonths[month - 1];
-    if (month == 2 && this.leap) {
-        maxDays = 29;
-    }
-
+    int maxDays = daysInMonth(month, year);
     if (day > maxDays || day < 1) {
       throw new IllegalArgumentException("Day is out of range (1-" + maxDays + ") for month " + month);
     }
-    
-    // Original switch case for day validation is now covered by the above logic more directly.
-    // The original switch had some redundancy and could be simplified.
-    // For example, `case 4,6,9,11: if (day > 30)` is covered by `daysinmonths[month-1]`.
+  }
 
-    this.day = day;
-    this.month = month;
-    this.year = year;
-    // this.leap is already set
+  /**
+   * returns the slot of the given epoch day in the shared cache.
+   *
+   * @return the slot, or -1 if the day lies outside the cached window
+   */
+  private static int cacheSlot(long epochDay) {
+    long slot = epochDay - CACHE_FIRST_DAY;
+    return slot >= 0 && slot < CACHE.length ? (int) slot : -1;
+  }
+
+  /**
+   * computes the number of days between 1970-01-01 and the given civil date in constant time.
+   *
+   * @param day   the day of month
+   * @param month the month of year
+   * @param year  the year
+   * @return the epoch day of the date (negative before 1970)
+   */
+  private static long computeEpochDay(int day, int month, int year) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = (y >= 0 ? y : y - 399) / 400;
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * checks whether the given year is a leap year in the gregorian calendar.
+   *
+   * @param year the year
+   * @return true if the year has a february 29th
+   */
+  public static boolean isLeapYear(int year) {
+    return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
   }
 
   /**
-   * advances this date by the specified number of days (negative allowed).
+   * returns the number of days in the given month, from the shared month-length table.
    *
-   * @param days the number of days to advance; may be negative
+   * @param month the month of year (1-12)
+   * @param year  the year
+   * @return the length of the month in days
    */
-  public void advance(int days) {
-    this.day += days;
-
-    while (true) {
-      // Re-calculate leap for the current year in loop, as year might change
-      boolean currentLeap = (this.year % 4 == 0 && (this.year % 100 != 0 || this.year % 400 == 0));
-      int dim = daysinmonths[this.month - 1];
-      if (this.month == 2 && currentLeap) {
-        dim = 29;
-      }
-
-      if (this.day >= 1 && this.day <= dim) {
-        break;
-      }
-
-      if (this.day > dim) {
-        this.day -= dim;
-        this.month++;
-        if (this.month > 12) {
-          this.month = 1;
-          this.year++;
-        }
-      } else { // this.day <= 0
-        this.month--;
-        if (this.month < 1) {
-          this.month = 12;
-          this.year--;
-          if (this.year < 1) { // Ensure year doesn't go below 1
-              // This case needs careful handling based on requirements for dates before year 1.
-              // For now, let's assume year must remain >= 1 as per constructor.
-              // This might indicate an issue if advancing too far back.
-              // Or, simply let it be and rely on constructor validation for new Date objects.
-              // The original code didn't explicitly prevent year < 1 here.
-          }
-        }
-        // Leap for previous month's year
-        boolean prevLeap = (this.year % 4 == 0 && (this.year % 100 != 0 || this.year % 400 == 0));
-        int dimPrev = daysinmonths[this.month - 1];
-        if (this.month == 2 && prevLeap) {
-          dimPrev = 29;
-        }
-        this.day += dimPrev;
-      }
+  public static int daysInMonth(int month, int year) {
+    if (month == 2 && isLeapYear(year)) {
+      return 29;
     }
-    // Update the main leap field after all adjustments
-    this.leap = (this.year % 4 == 0 && (this.year % 100 != 0 || this.year % 400 == 0));
+    return DAYS_IN_MONTH[month - 1];
+  }
+
+  /**
+   * returns the date the specified number of days after this one (negative allowed).
+   * this date is left unchanged.
+   *
+   * @param days the number of days to add; may be negative
+   * @return the resulting date
+   * @throws IllegalArgumentException if the resulting year is not positive
+   */
+  public Date plusDays(long days) {
+    return days == 0 ? this : fromEpochDay(epochDay + days);
+  }
+
+  /**
+   * returns the day of the week this date falls on.
+   *
+   * @return the day of week
+   */
+  public DayOfWeek dayOfWeek() {
+    // 1970-01-01 was a thursday
+    return DayOfWeek.of((int) Math.floorMod(epochDay + 3, 7L) + 1);
   }
 
   public int getYear() { return year; }
   public int getMonth() { return month; }
   public int getDay() { return day; }
-  public boolean isLeap() { return leap; } // Added getter for leap
+  public boolean isLeap() { return leap; }
+
+  /**
+   * returns the number of days since 1970-01-01; precomputed, so this is a field read.
+   *
+   * @return the epoch day of this date
+   */
+  public long toEpochDay() { return epochDay; }
 
   /**
    * returns the date formatted as "yyyy‑mm‑dd" with zero padding.
@@ -113,7 +217,14 @@ public class Date {
    */
   @Override
   public String toString() {
-    return String.format("%04d-%02d-%02d", year, month, day);
+    if (year > 9999) {
+      return String.format("%04d-%02d-%02d", year, month, day);
+    }
+    char[] text = {
+        (char) ('0' + year / 1000), (char) ('0' + year / 100 % 10), (char) ('0' + year / 10 % 10),
+        (char) ('0' + year % 10), '-', (char) ('0' + month / 10), (char) ('0' + month % 10), '-',
+        (char) ('0' + day / 10), (char) ('0' + day % 10)};
+    return new String(text);
   }
 
   @Override
@@ -131,4 +242,4 @@ public class Date {
       result = 31 * result + year;
       return result;
   }
-}
\ No newline at end of file
+}
@@ -1,12 +1,18 @@
 package calendar;
 
 /**
- * Represents a date and time combination.
+ * Represents an immutable date and time combination.
  * This class combines a Date and Time object to represent a specific moment in time.
+ * The moment is also packed into a single epoch-minute long at construction, which is
+ * what comparisons, equality and hashing work on.
  */
-public class DateTime {
-  private Date date;
-  private Time time;
+public final class DateTime implements Comparable<DateTime> {
+  /** Number of minutes in a day. */
+  public static final int MINUTES_PER_DAY = 1440;
+
+  private final Date date;
+  private final Time time;
+  private final long epochMinute;
 
   /**
    * Constructs a new DateTime instance from Date and Time.
@@ -20,6 +26,19 @@ public class DateTime {
     }
     this.date = date;
     this.time = time;
+    this.epochMinute = date.toEpochDay() * MINUTES_PER_DAY + time.toMinuteOfDay();
+  }
+
+  /**
+   * Returns the DateTime that lies the given number of minutes after 1970-01-01T00:00,
+   * built from the shared Date and Time instances.
+   * @param epochMinute the epoch minute
+   * @return the DateTime
+   */
+  public static DateTime ofEpochMinute(long epochMinute) {
+    Date date = Date.fromEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+    Time time = Time.ofMinuteOfDay((int) Math.floorMod(epochMinute, (long) MINUTES_PER_DAY));
+    return new DateTime(date, time);
   }
 
   /**
@@ -38,6 +57,24 @@ public class DateTime {
     return time;
   }
 
+  /**
+   * Gets the number of minutes between 1970-01-01T00:00 and this DateTime.
+   * @return the epoch minute of this DateTime
+   */
+  public long toEpochMinute() {
+    return epochMinute;
+  }
+
+  /**
+   * Compares this DateTime with another in chronological order.
+   * @param other the DateTime to compare against
+   * @return a negative number, zero, or a positive number as this DateTime is before, equal to, or after the other
+   */
+  @Override
+  public int compareTo(DateTime other) {
+    return Long.compare(epochMinute, other.epochMinute);
+  }
+
   /**
    * Checks if this DateTime is before another DateTime.
    * @param other the DateTime to compare against
@@ -49,19 +86,7 @@ public class DateTime {
         throw new IllegalArgumentException("Other DateTime must not be null for comparison.");
     }
     
-    if (this.date.getYear() < other.date.getYear()) return true;
-    if (this.date.getYear() > other.date.getYear()) return false;
-    
-    if (this.date.getMonth() < other.date.getMonth()) return true;
-    if (this.date.getMonth() > other.date.getMonth()) return false;
-    
-    if (this.date.getDay() < other.date.getDay()) return true;
-    if (this.date.getDay() > other.date.getDay()) return false;
-    
-    if (this.time.getHour() < other.time.getHour()) return true;
-    if (this.time.getHour() > other.time.getHour()) return false;
-    
-    return this.time.getMinute() < other.time.getMinute();
+    return this.epochMinute < other.epochMinute;
   }
 
   /**
@@ -74,7 +99,7 @@ public class DateTime {
     if (other == null) {
         throw new IllegalArgumentException("Other DateTime must not be null for comparison.");
     }
-    return !this.isBefore(other) && !this.equals(other);
+    return this.epochMinute > other.epochMinute;
   }
 
   /**
@@ -96,7 +121,7 @@ public class DateTime {
       if (this == o) return true;
       if (o == null || getClass() != o.getClass()) return false;
       DateTime dateTime = (DateTime) o;
-      return date.equals(dateTime.date) && time.equals(dateTime.time);
+      return epochMinute == dateTime.epochMinute;
   }
 
   /**
@@ -105,8 +130,6 @@ public class DateTime {
    */
   @Override
   public int hashCode() {
-      int result = date.hashCode();
-      result = 31 * result + time.hashCode();
-      return result;
+      return Long.hashCode(epochMinute);
   }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package calendar;
+
+/**
+ * Edits one event, the future part of a series or a whole series.
+ */
+public final class EditEventCommand implements Command {
+    private final String findSubject;
+    private final DateTime findStart;
+    private final DateTime findEnd;
+    private final EventEdit edit;
+    private final String scope;
+
+    /**
+     * Constructs an EditEventCommand.
+     * @param findSubject the subject of the event to find
+     * @param findStart the start of the event to find
+     * @param findEnd the end of the event to find, required for the "this" scope and null otherwise
+     * @param edit the property change to apply
+     * @param scope the scope of the edit ("this", "future" or "all")
+     */
+    public EditEventCommand(String findSubject, DateTime findStart, DateTime findEnd, EventEdit edit, String scope) {
+        this.findSubject = findSubject;
+        this.findStart = findStart;
+        this.findEnd = findEnd;
+        this.edit = edit;
+        this.scope = scope;
+    }
+
+    /**
+     * Gets the subject of the event to find.
+     * @return the subject
+     */
+    public String getFindSubject() {
+        return findSubject;
+    }
+
+    /**
+     * Gets the start of the event to find.
+     * @return the start
+     */
+    public DateTime getFindStart() {
+        return findStart;
+    }
+
+    /**
+     * Gets the end of the event to find.
+     * @return the end, or null outside the "this" scope
+     */
+    public DateTime getFindEnd() {
+        return findEnd;
+    }
+
+    /**
+     * Gets the property change to apply.
+     * @return the change
+     */
+    public EventEdit getEdit() {
+        return edit;
+    }
+
+    /**
+     * Gets the scope of the edit.
+     * @return "this", "future" or "all"
+     */
+    public String getScope() {
+        return scope;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
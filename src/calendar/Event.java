@@ -1,8 +1,5 @@
 package calendar;
 
-import java.util.ArrayList;
-import java.time.DayOfWeek;
-
 /**
  * Implementation of the IEvent interface representing a calendar event.
  * This class handles both single events and events that are part of a series.
@@ -15,12 +12,12 @@ public class Event implements IEvent {
   private String statusValue;
   private String description;
   
-  private String seriesId;
+  private long seriesId;
   private boolean isSeriesException;
-  private String originalSeriesId;
+  private long originalSeriesId;
   
   private boolean isSeriesFlag;
-  private ArrayList<DayOfWeek> daysOfWeekList;
+  private int daysOfWeekMask;
 
   /**
    * Constructs a new Event with the specified parameters.
@@ -43,9 +40,10 @@ public class Event implements IEvent {
     this.statusValue = status != null ? status : "public";
     this.description = description;
     this.isSeriesException = false;
-    this.originalSeriesId = null;
+    this.seriesId = NO_SERIES;
+    this.originalSeriesId = NO_SERIES;
     this.isSeriesFlag = false;
-    this.daysOfWeekList = new ArrayList<>();
+    this.daysOfWeekMask = Weekdays.NONE;
   }
 
   /**
@@ -183,10 +181,10 @@ public class Event implements IEvent {
 
   /**
    * Gets the series ID if this event is part of a series.
-   * @return the series ID, or null if not part of a series
+   * @return the series ID, or {@link #NO_SERIES} if not part of a series
    */
   @Override
-  public String getSeriesId() {
+  public long getSeriesId() {
     return seriesId;
   }
 
@@ -195,7 +193,7 @@ public class Event implements IEvent {
    * @param seriesId the series ID
    */
   @Override
-  public void setSeriesId(String seriesId) {
+  public void setSeriesId(long seriesId) {
     this.seriesId = seriesId;
   }
 
@@ -219,10 +217,10 @@ public class Event implements IEvent {
 
   /**
    * Gets the original series ID before any modifications.
-   * @return the original series ID
+   * @return the original series ID, or {@link #NO_SERIES} if there is none
    */
   @Override
-  public String getOriginalSeriesId() {
+  public long getOriginalSeriesId() {
     return originalSeriesId;
   }
 
@@ -231,7 +229,7 @@ public class Event implements IEvent {
    * @param originalSeriesId the original series ID
    */
   @Override
-  public void setOriginalSeriesId(String originalSeriesId) {
+  public void setOriginalSeriesId(long originalSeriesId) {
     this.originalSeriesId = originalSeriesId;
   }
 
@@ -252,19 +250,19 @@ public class Event implements IEvent {
   }
 
   /**
-   * Gets the list of days of the week for recurring events.
-   * @return the list of days of the week
+   * Gets the days of the week for recurring events.
+   * @return the days of the week, as a {@link Weekdays} mask
    */
-  public ArrayList<DayOfWeek> getDaysOfWeekList() {
-      return daysOfWeekList;
+  public int getDaysOfWeekMask() {
+      return daysOfWeekMask;
   }
 
   /**
-   * Sets the list of days of the week for recurring events.
-   * @param daysOfWeekList the list of days of the week
+   * Sets the days of the week for recurring events.
+   * @param daysOfWeekMask the days of the week, as a {@link Weekdays} mask
    */
-  public void setDaysOfWeekList(ArrayList<DayOfWeek> daysOfWeekList) {
-      this.daysOfWeekList = daysOfWeekList;
+  public void setDaysOfWeekMask(int daysOfWeekMask) {
+      this.daysOfWeekMask = daysOfWeekMask;
   }
   
   /**
@@ -278,9 +276,7 @@ public class Event implements IEvent {
       newEvent.setSeriesException(this.isSeriesException);
       newEvent.setOriginalSeriesId(this.originalSeriesId);
       newEvent.setIsSeriesFlag(this.isSeriesFlag);
-      if (this.daysOfWeekList != null) {
-        newEvent.setDaysOfWeekList(new ArrayList<>(this.daysOfWeekList));
-      }
+      newEvent.setDaysOfWeekMask(this.daysOfWeekMask);
       return newEvent;
   }
 
@@ -343,13 +339,13 @@ public class Event implements IEvent {
     if (location != null && !location.equals("No Location Provided")) sb.append(", location='").append(location).append('\'');
     if (description != null && !description.equals("No Description Provided")) sb.append(", description='").append(description).append('\'');
     sb.append(", status='").append(statusValue).append('\'');
-    if (seriesId != null) sb.append(", seriesId='").append(seriesId).append('\'');
-    if (originalSeriesId != null) sb.append(", originalSeriesId='").append(originalSeriesId).append('\'');
+    if (seriesId != NO_SERIES) sb.append(", seriesId=").append(seriesId);
+    if (originalSeriesId != NO_SERIES) sb.append(", originalSeriesId=").append(originalSeriesId);
     if (isSeriesException) sb.append(", isSeriesException=true");
     if (isSeriesFlag) {
         sb.append(", isPartOfSeries=true");
-        if (daysOfWeekList != null && !daysOfWeekList.isEmpty()) {
-            sb.append(", repeatsOn=").append(daysOfWeekList);
+        if (daysOfWeekMask != Weekdays.NONE) {
+            sb.append(", repeatsOn=").append(Weekdays.toString(daysOfWeekMask));
         }
     }
     sb.append('}');
@@ -0,0 +1,113 @@
+package calendar;
+
+/**
+ * An immutable change to one property of an event.
+ * Text properties (subject, description, location, status) carry a string and time properties
+ * (start, end) carry a {@link DateTime}, so the value never needs a cast when it is applied.
+ */
+public final class EventEdit {
+    private final String property;
+    private final String text;
+    private final DateTime dateTime;
+
+    private EventEdit(String property, String text, DateTime dateTime) {
+        this.property = property;
+        this.text = text;
+        this.dateTime = dateTime;
+    }
+
+    /**
+     * Creates a change to a text property.
+     * @param property the property to change (subject, description, location or status)
+     * @param value the new value
+     * @return the change
+     * @throws IllegalArgumentException if the property is not a text property
+     */
+    public static EventEdit ofText(String property, String value) {
+        String key = property.toLowerCase();
+        switch (key) {
+            case "subject":
+            case "description":
+            case "location":
+            case "status":
+                return new EventEdit(key, value, null);
+            default:
+                throw new IllegalArgumentException("Unknown property to change: " + property);
+        }
+    }
+
+    /**
+     * Creates a change to a time property.
+     * @param property the property to change (start or end)
+     * @param value the new date and time
+     * @return the change
+     * @throws IllegalArgumentException if the property is not a time property
+     */
+    public static EventEdit ofDateTime(String property, DateTime value) {
+        String key = property.toLowerCase();
+        if (!key.equals("start") && !key.equals("end")) {
+            throw new IllegalArgumentException("Unknown property to change: " + property);
+        }
+        return new EventEdit(key, null, value);
+    }
+
+    /**
+     * Gets the name of the property that changes.
+     * @return the lower-case property name
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Gets the new value of a text property.
+     * @return the new text, or null for time properties
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the new value of a time property.
+     * @return the new date and time, or null for text properties
+     */
+    public DateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Checks whether this change moves the start of an event.
+     * @return true for start changes
+     */
+    public boolean changesStart() {
+        return property.equals("start");
+    }
+
+    /**
+     * Checks whether this change moves the start or the end of an event.
+     * @return true for start and end changes
+     */
+    public boolean changesTime() {
+        return dateTime != null;
+    }
+
+    /**
+     * Applies this change to an event.
+     * @param event the event to change
+     */
+    public void applyTo(IEvent event) {
+        switch (property) {
+            case "subject": event.setSubject(text); break;
+            case "start": event.setStart(dateTime); break;
+            case "end": event.setEnd(dateTime); break;
+            case "description": event.setDescription(text); break;
+            case "location": event.setLocation(text); break;
+            default: event.setStatus(text); break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return property + " " + (dateTime != null ? dateTime : text);
+    }
+}
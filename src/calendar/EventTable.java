@@ -0,0 +1,161 @@
+package calendar;
+
+/**
+ * Fixed-width storage for the rows of an {@link ArrayCalendarModel}, together with the strings they refer to.
+ * A row holds one event: start and end in epoch minutes, subject, location, description and status
+ * as string handles, the series ID and original series ID, flags, the {@link Weekdays} mask, and the
+ * next row of the model's hash chain. The table does not interpret any of these; it only stores them.
+ * Rows are numbered from 0 and must be within {@link #capacity()}.
+ */
+public interface EventTable {
+    /**
+     * Gets the number of rows the table can hold without growing.
+     * @return the capacity
+     */
+    int capacity();
+
+    /**
+     * Grows the table so that it can hold at least the given number of rows, keeping the existing rows.
+     * @param rows the number of rows needed
+     * @throws IllegalStateException if the memory for the rows cannot be reserved; the table is then unchanged
+     */
+    void ensureCapacity(int rows);
+
+    /**
+     * Writes every field of a row except its hash chain link.
+     * @param row the row
+     * @param start the start in epoch minutes
+     * @param end the end in epoch minutes
+     * @param subject the subject handle
+     * @param location the location handle
+     * @param description the description handle
+     * @param status the status handle
+     * @param seriesId the series ID
+     * @param originalSeriesId the original series ID
+     * @param flags the flags (only the low 8 bits are kept)
+     * @param repeatDays the {@link Weekdays} mask
+     */
+    void setRow(int row, long start, long end, int subject, int location, int description, int status,
+                int seriesId, int originalSeriesId, int flags, int repeatDays);
+
+    /**
+     * Gets the start of a row.
+     * @param row the row
+     * @return the start in epoch minutes
+     */
+    long start(int row);
+
+    /**
+     * Gets the end of a row.
+     * @param row the row
+     * @return the end in epoch minutes
+     */
+    long end(int row);
+
+    /**
+     * Gets the subject handle of a row.
+     * @param row the row
+     * @return the handle
+     */
+    int subject(int row);
+
+    /**
+     * Gets the location handle of a row.
+     * @param row the row
+     * @return the handle
+     */
+    int location(int row);
+
+    /**
+     * Gets the description handle of a row.
+     * @param row the row
+     * @return the handle
+     */
+    int description(int row);
+
+    /**
+     * Gets the status handle of a row.
+     * @param row the row
+     * @return the handle
+     */
+    int status(int row);
+
+    /**
+     * Gets the series ID of a row.
+     * @param row the row
+     * @return the series ID
+     */
+    int seriesId(int row);
+
+    /**
+     * Gets the original series ID of a row.
+     * @param row the row
+     * @return the original series ID
+     */
+    int originalSeriesId(int row);
+
+    /**
+     * Gets the flags of a row.
+     * @param row the row
+     * @return the flags, between 0 and 255
+     */
+    int flags(int row);
+
+    /**
+     * Sets the flags of a row.
+     * @param row the row
+     * @param flags the flags (only the low 8 bits are kept)
+     */
+    void setFlags(int row, int flags);
+
+    /**
+     * Gets the {@link Weekdays} mask of a row.
+     * @param row the row
+     * @return the mask
+     */
+    int repeatDays(int row);
+
+    /**
+     * Gets the next row in the hash chain of a row.
+     * @param row the row
+     * @return the next row, or -1
+     */
+    int next(int row);
+
+    /**
+     * Sets the next row in the hash chain of a row.
+     * @param row the row
+     * @param next the next row, or -1
+     */
+    void setNext(int row, int next);
+
+    /**
+     * Rearranges the rows: row {@code i} becomes the old row {@code order[i]}, for {@code i < count}.
+     * The rows from {@code count} on are left undefined, and the capacity may shrink to {@code count}.
+     * @param order the old row of each new row
+     * @param count the number of rows to keep
+     * @throws IllegalStateException if the memory for the reordered rows cannot be reserved; the table is then unchanged
+     */
+    void reorder(int[] order, int count);
+
+    /**
+     * Gets the handle of a string, adding the string if it is new.
+     * @param value the string, or null
+     * @return the handle, or {@link StringDictionary#NO_HANDLE} for null
+     */
+    int toHandle(String value);
+
+    /**
+     * Gets the handle of a string without adding it.
+     * @param value the string, or null
+     * @return the handle, or {@link StringDictionary#NO_HANDLE} if the string is null or not stored
+     */
+    int findHandle(String value);
+
+    /**
+     * Gets the string of a handle.
+     * @param handle a handle returned by this table, or {@link StringDictionary#NO_HANDLE}
+     * @return the string, or null for {@link StringDictionary#NO_HANDLE}
+     */
+    String string(int handle);
+}
@@ -0,0 +1,51 @@
+package calendar;
+
+/**
+ * Lists every free slot of at least a given length within a date-time range.
+ */
+public final class FindFreeSlotsCommand implements Command {
+    private final DateTime startRange;
+    private final DateTime endRange;
+    private final int minutes;
+
+    /**
+     * Constructs a FindFreeSlotsCommand.
+     * @param startRange the start of the range
+     * @param endRange the end of the range (exclusive), after the start
+     * @param minutes the shortest slot to list, positive
+     */
+    public FindFreeSlotsCommand(DateTime startRange, DateTime endRange, int minutes) {
+        this.startRange = startRange;
+        this.endRange = endRange;
+        this.minutes = minutes;
+    }
+
+    /**
+     * Gets the start of the range.
+     * @return the start of the range
+     */
+    public DateTime getStartRange() {
+        return startRange;
+    }
+
+    /**
+     * Gets the end of the range.
+     * @return the end of the range
+     */
+    public DateTime getEndRange() {
+        return endRange;
+    }
+
+    /**
+     * Gets the shortest slot to list.
+     * @return the number of minutes
+     */
+    public int getMinutes() {
+        return minutes;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
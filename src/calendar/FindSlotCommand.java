@@ -0,0 +1,75 @@
+package calendar;
+
+import java.util.List;
+
+/**
+ * Finds the earliest free slot of a given length within a date-time range,
+ * in the calendar in use or common to several named calendars.
+ */
+public final class FindSlotCommand implements Command {
+    private final DateTime startRange;
+    private final DateTime endRange;
+    private final int minutes;
+    private final List<String> calendars;
+
+    /**
+     * Constructs a FindSlotCommand that searches the calendar in use.
+     * @param startRange the earliest the slot may start
+     * @param endRange the latest the slot may end, after the start
+     * @param minutes the length of the slot, positive
+     */
+    public FindSlotCommand(DateTime startRange, DateTime endRange, int minutes) {
+        this(startRange, endRange, minutes, List.of());
+    }
+
+    /**
+     * Constructs a FindSlotCommand.
+     * @param startRange the earliest the slot may start
+     * @param endRange the latest the slot may end, after the start
+     * @param minutes the length of the slot, positive
+     * @param calendars the names of the calendars the slot must be free in; empty for the calendar in use
+     */
+    public FindSlotCommand(DateTime startRange, DateTime endRange, int minutes, List<String> calendars) {
+        this.startRange = startRange;
+        this.endRange = endRange;
+        this.minutes = minutes;
+        this.calendars = List.copyOf(calendars);
+    }
+
+    /**
+     * Gets the start of the range.
+     * @return the earliest the slot may start
+     */
+    public DateTime getStartRange() {
+        return startRange;
+    }
+
+    /**
+     * Gets the end of the range.
+     * @return the latest the slot may end
+     */
+    public DateTime getEndRange() {
+        return endRange;
+    }
+
+    /**
+     * Gets the length of the slot.
+     * @return the number of minutes
+     */
+    public int getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Gets the names of the calendars the slot must be free in.
+     * @return the names, in the order given; empty to search the calendar in use
+     */
+    public List<String> getCalendars() {
+        return calendars;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,198 @@
+package calendar;
+
+import java.util.Arrays;
+
+/**
+ * An {@link EventTable} kept in parallel primitive arrays on the Java heap, one array per field,
+ * with its strings in a {@link StringDictionary}.
+ */
+public class HeapEventTable implements EventTable {
+    private final StringDictionary strings;
+    private long[] starts;
+    private long[] ends;
+    private int[] subjects;
+    private int[] locations;
+    private int[] descriptions;
+    private int[] statuses;
+    private int[] seriesIds;
+    private int[] originalSeriesIds;
+    private int[] nexts;
+    private byte[] flags;
+    private byte[] repeatDays;
+
+    /**
+     * Constructs an empty HeapEventTable.
+     * @param capacity the number of rows to allocate up front
+     */
+    public HeapEventTable(int capacity) {
+        this.strings = new StringDictionary();
+        this.starts = new long[capacity];
+        this.ends = new long[capacity];
+        this.subjects = new int[capacity];
+        this.locations = new int[capacity];
+        this.descriptions = new int[capacity];
+        this.statuses = new int[capacity];
+        this.seriesIds = new int[capacity];
+        this.originalSeriesIds = new int[capacity];
+        this.nexts = new int[capacity];
+        this.flags = new byte[capacity];
+        this.repeatDays = new byte[capacity];
+    }
+
+    @Override
+    public int capacity() {
+        return starts.length;
+    }
+
+    @Override
+    public void ensureCapacity(int rows) {
+        if (rows <= starts.length) {
+            return;
+        }
+        int capacity = Math.max(rows, starts.length + (starts.length >> 1));
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        subjects = Arrays.copyOf(subjects, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        seriesIds = Arrays.copyOf(seriesIds, capacity);
+        originalSeriesIds = Arrays.copyOf(originalSeriesIds, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        repeatDays = Arrays.copyOf(repeatDays, capacity);
+    }
+
+    @Override
+    public void setRow(int row, long start, long end, int subject, int location, int description, int status,
+                       int seriesId, int originalSeriesId, int rowFlags, int rowRepeatDays) {
+        starts[row] = start;
+        ends[row] = end;
+        subjects[row] = subject;
+        locations[row] = location;
+        descriptions[row] = description;
+        statuses[row] = status;
+        seriesIds[row] = seriesId;
+        originalSeriesIds[row] = originalSeriesId;
+        flags[row] = (byte) rowFlags;
+        repeatDays[row] = (byte) rowRepeatDays;
+    }
+
+    @Override
+    public long start(int row) {
+        return starts[row];
+    }
+
+    @Override
+    public long end(int row) {
+        return ends[row];
+    }
+
+    @Override
+    public int subject(int row) {
+        return subjects[row];
+    }
+
+    @Override
+    public int location(int row) {
+        return locations[row];
+    }
+
+    @Override
+    public int description(int row) {
+        return descriptions[row];
+    }
+
+    @Override
+    public int status(int row) {
+        return statuses[row];
+    }
+
+    @Override
+    public int seriesId(int row) {
+        return seriesIds[row];
+    }
+
+    @Override
+    public int originalSeriesId(int row) {
+        return originalSeriesIds[row];
+    }
+
+    @Override
+    public int flags(int row) {
+        return flags[row] & 0xFF;
+    }
+
+    @Override
+    public void setFlags(int row, int rowFlags) {
+        flags[row] = (byte) rowFlags;
+    }
+
+    @Override
+    public int repeatDays(int row) {
+        return repeatDays[row] & 0xFF;
+    }
+
+    @Override
+    public int next(int row) {
+        return nexts[row];
+    }
+
+    @Override
+    public void setNext(int row, int next) {
+        nexts[row] = next;
+    }
+
+    @Override
+    public void reorder(int[] order, int count) {
+        long[] oldStarts = starts;
+        long[] oldEnds = ends;
+        starts = new long[oldStarts.length];
+        ends = new long[oldEnds.length];
+        for (int i = 0; i < count; i++) {
+            starts[i] = oldStarts[order[i]];
+            ends[i] = oldEnds[order[i]];
+        }
+        subjects = reorder(subjects, order, count);
+        locations = reorder(locations, order, count);
+        descriptions = reorder(descriptions, order, count);
+        statuses = reorder(statuses, order, count);
+        seriesIds = reorder(seriesIds, order, count);
+        originalSeriesIds = reorder(originalSeriesIds, order, count);
+        nexts = new int[nexts.length];
+        byte[] oldFlags = flags;
+        byte[] oldRepeatDays = repeatDays;
+        flags = new byte[oldFlags.length];
+        repeatDays = new byte[oldRepeatDays.length];
+        for (int i = 0; i < count; i++) {
+            flags[i] = oldFlags[order[i]];
+            repeatDays[i] = oldRepeatDays[order[i]];
+        }
+    }
+
+    /**
+     * Builds a column holding the given rows of another, in the given order.
+     */
+    private static int[] reorder(int[] column, int[] order, int count) {
+        int[] result = new int[column.length];
+        for (int i = 0; i < count; i++) {
+            result[i] = column[order[i]];
+        }
+        return result;
+    }
+
+    @Override
+    public int toHandle(String value) {
+        return strings.toHandle(value);
+    }
+
+    @Override
+    public int findHandle(String value) {
+        return strings.findHandle(value);
+    }
+
+    @Override
+    public String string(int handle) {
+        return strings.toString(handle);
+    }
+}
@@ -1,7 +1,8 @@
 package calendar;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.time.DayOfWeek;
 
 /**
  * Represents the model interface for the calendar application.
@@ -29,27 +30,26 @@ public interface ICalendarModel {
      * @param description optional description
      * @param location optional location
      * @param status optional status
-     * @param repeatDays list of DayOfWeek for recurrence
+     * @param repeatDays the weekdays of recurrence, as a {@link Weekdays} mask
      * @param occurrences number of times the event repeats (use null if using seriesEndDate)
      * @param seriesEndDate date until which the series repeats (use null if using occurrences)
      * @return true if series creation was successful, false otherwise
      */
     boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
                               String description, String location, String status,
-                              List<DayOfWeek> repeatDays, Integer occurrences, Date seriesEndDate);
+                              int repeatDays, Integer occurrences, Date seriesEndDate);
 
     /**
      * Edits an existing event or series of events.
      * @param findSubject subject of the event to find
      * @param findStartDateTime start DateTime of the event to find
      * @param findEndDateTime end DateTime of the event to find (used for "this" scope, can be null if original was all-day and controller derives it)
-     * @param propertyToChange name of the property to change (e.g., "subject", "start", "end")
-     * @param newValue the new value for the property (type depends on property, e.g., String or DateTime)
+     * @param edit the property to change and its new value
      * @param scope the scope of the edit ("this", "future", "all")
      * @return true if edit was successful, false otherwise
      */
     boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
-                      String propertyToChange, Object newValue, String scope);
+                      EventEdit edit, String scope);
     
     /**
      * Gets all events in the calendar.
@@ -78,4 +78,54 @@ public interface ICalendarModel {
      * @return true if busy, false if available
      */
     boolean isBusyAt(DateTime dateTime);
+
+    /**
+     * Finds the free time within a range: every maximal stretch, cut to the range, in which no event
+     * covers any minute and which lasts at least the given number of minutes.
+     * An event without an end counts as busy until 17:00 on its start date.
+     * This default sweeps the events of the range in start order; models that keep busy bitmaps override it.
+     * @param startRange the start of the range
+     * @param endRange the end of the range (exclusive)
+     * @param minutes the shortest slot to report
+     * @return the free slots, in order
+     * @throws IllegalArgumentException if the range is empty or {@code minutes} is not positive
+     */
+    default List<TimeSlot> findFreeSlots(DateTime startRange, DateTime endRange, int minutes) {
+        if (minutes <= 0 || !endRange.isAfter(startRange)) {
+            throw new IllegalArgumentException("A free slot search needs a non-empty range and a positive length.");
+        }
+        List<IEvent> events = new ArrayList<>(getEventsInRange(startRange, endRange));
+        events.sort(Comparator.comparingLong(event -> event.getStart().toEpochMinute()));
+        long to = endRange.toEpochMinute();
+        long free = startRange.toEpochMinute();
+        List<TimeSlot> slots = new ArrayList<>();
+        for (IEvent event : events) {
+            long start = event.getStart().toEpochMinute();
+            long end = SlotFinder.busyUntil(event);
+            if (start >= end) {
+                continue;
+            }
+            if (start - free >= minutes) {
+                slots.add(new TimeSlot(DateTime.ofEpochMinute(free), DateTime.ofEpochMinute(Math.min(start, to))));
+            }
+            free = Math.max(free, end);
+        }
+        if (to - free >= minutes) {
+            slots.add(new TimeSlot(DateTime.ofEpochMinute(free), endRange));
+        }
+        return slots;
+    }
+
+    /**
+     * Finds the earliest free slot of a given length within a range.
+     * This default runs {@link SlotFinder#findFirstCommonSlot} over this calendar alone.
+     * @param startRange the earliest the slot may start
+     * @param endRange the latest the slot may end
+     * @param minutes the length of the slot
+     * @return the earliest free slot, exactly {@code minutes} long, or null if the range has none
+     * @throws IllegalArgumentException if the range is empty or {@code minutes} is not positive
+     */
+    default TimeSlot findFirstFreeSlot(DateTime startRange, DateTime endRange, int minutes) {
+        return SlotFinder.findFirstCommonSlot(List.of(this), startRange, endRange, minutes);
+    }
 }
\ No newline at end of file
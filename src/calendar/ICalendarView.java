@@ -46,6 +46,29 @@ public interface ICalendarView {
      */
     void displayStatus(boolean isBusy, String dateTimeString);
 
+    /**
+     * Displays the result of a free slot search.
+     * @param slot the slot found, or null if there is none
+     */
+    void displayFreeSlot(TimeSlot slot);
+
+    /**
+     * Displays every free slot found in a range.
+     * @param slots the slots found, in order; empty if there are none
+     */
+    void displayFreeSlots(List<TimeSlot> slots);
+
+    /**
+     * Displays the calendars of a registry with their memory and access figures.
+     * @param calendars one entry per calendar
+     */
+    void displayCalendars(List<CalendarStats> calendars);
+
+    /**
+     * Writes out any messages the view has buffered.
+     */
+    void flush();
+
     /**
      * Closes any resources used by the view (e.g., Scanner).
      */
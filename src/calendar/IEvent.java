@@ -5,6 +5,8 @@ package calendar;
  * Defines the contract for event properties and series management functionality.
  */
 public interface IEvent {
+    /** The series ID of an event that is not part of a series. */
+    long NO_SERIES = 0;
     
     /**
      * Gets the event subject.
@@ -80,15 +82,15 @@ public interface IEvent {
 
     /**
      * Gets the series ID if this event is part of a series.
-     * @return the series ID, or null if not part of a series
+     * @return the series ID, or {@link #NO_SERIES} if not part of a series
      */
-    String getSeriesId();
+    long getSeriesId();
     
     /**
      * Sets the series ID for this event.
      * @param seriesId the series ID
      */
-    void setSeriesId(String seriesId);
+    void setSeriesId(long seriesId);
 
     /**
      * Checks if this event is an exception within a series.
@@ -104,15 +106,15 @@ public interface IEvent {
 
     /**
      * Gets the original series ID before any modifications.
-     * @return the original series ID
+     * @return the original series ID, or {@link #NO_SERIES} if there is none
      */
-    String getOriginalSeriesId();
+    long getOriginalSeriesId();
     
     /**
      * Sets the original series ID before any modifications.
      * @param originalSeriesId the original series ID
      */
-    void setOriginalSeriesId(String originalSeriesId);
+    void setOriginalSeriesId(long originalSeriesId);
     
     /**
      * Creates a deep copy of this event.
@@ -0,0 +1,375 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Augmented interval tree used by the model to index values by their [start, end) span,
+ * given as epoch minutes (see {@link DateTime#toEpochMinute()}).
+ * The tree is an AVL tree ordered by start (ties broken by end, then insertion order),
+ * where every node also records the latest end found in its subtree. That extra field
+ * lets overlap and containment queries skip whole subtrees, so they cost O(log n + k).
+ * Nodes also count their subtree, which lets the tree rank a start in O(log n) and split
+ * large overlap queries into subtrees walked in parallel.
+ * Values are tracked by identity, so two equal events can live in the tree side by side.
+ * @param <T> the type of value stored in the tree
+ */
+public class IntervalTree<T> {
+
+    /**
+     * A single node of the tree.
+     * @param <T> the type of value stored in the node
+     */
+    private static final class Node<T> {
+        private final long start;
+        private final long end;
+        private final long seq;
+        private final T value;
+        private long maxEnd;
+        private int height;
+        private int size;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(long start, long end, long seq, T value) {
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.value = value;
+            this.maxEnd = end;
+            this.height = 1;
+            this.size = 1;
+        }
+    }
+
+    /**
+     * Collects the values of one subtree overlapping a range, as a run of chunks that hold them in start order.
+     * Subtrees of more than {@code leafSize} nodes are split at their root and both sides are walked in parallel.
+     * @param <T> the type of value stored in the tree
+     */
+    private static final class OverlapTask<T> extends RecursiveTask<List<List<T>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Node<T> node;
+        private final long from;
+        private final long to;
+        private final int leafSize;
+
+        private OverlapTask(Node<T> node, long from, long to, int leafSize) {
+            this.node = node;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected List<List<T>> compute() {
+            List<List<T>> chunks = new ArrayList<>();
+            if (node == null || node.maxEnd <= from) {
+                return chunks;
+            }
+            if (node.size <= leafSize) {
+                List<T> chunk = new ArrayList<>();
+                overlapping(node, from, to, chunk);
+                chunks.add(chunk);
+                return chunks;
+            }
+            OverlapTask<T> earlier = new OverlapTask<>(node.left, from, to, leafSize);
+            if (node.start >= to) {
+                return earlier.compute();
+            }
+            earlier.fork();
+            List<List<T>> later = new OverlapTask<>(node.right, from, to, leafSize).compute();
+            chunks = earlier.join();
+            if (node.end > from) {
+                chunks.add(List.of(node.value));
+            }
+            chunks.addAll(later);
+            return chunks;
+        }
+    }
+
+    private Node<T> root;
+    private long nextSeq;
+    private final Map<T, Node<T>> nodes;
+
+    /**
+     * Constructs a new, empty IntervalTree.
+     */
+    public IntervalTree() {
+        this.root = null;
+        this.nextSeq = 0;
+        this.nodes = new IdentityHashMap<>();
+    }
+
+    /**
+     * Gets the number of values stored in the tree.
+     * @return the number of values
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Inserts a value covering the interval [start, end).
+     * @param start the start of the interval, in epoch minutes
+     * @param end the end of the interval, in epoch minutes
+     * @param value the value to store
+     * @throws IllegalArgumentException if value is null, end is before start, or the value is already stored
+     */
+    public void insert(long start, long end, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null.");
+        }
+        if (end < start) {
+            throw new IllegalArgumentException("Interval end cannot be before its start.");
+        }
+        if (nodes.containsKey(value)) {
+            throw new IllegalArgumentException("Value is already stored in the interval tree.");
+        }
+        Node<T> node = new Node<>(start, end, nextSeq++, value);
+        nodes.put(value, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Removes a value from the tree.
+     * @param value the value to remove (matched by identity)
+     * @return true if the value was present and has been removed
+     */
+    public boolean remove(T value) {
+        Node<T> node = nodes.remove(value);
+        if (node == null) {
+            return false;
+        }
+        root = remove(root, node);
+        return true;
+    }
+
+    /**
+     * Collects every value whose interval overlaps the open range (from, to),
+     * that is every value with start before {@code to} and end after {@code from}.
+     * @param from the start of the range, in epoch minutes
+     * @param to the end of the range, in epoch minutes
+     * @return the overlapping values, ordered by start
+     */
+    public List<T> overlapping(long from, long to) {
+        List<T> result = new ArrayList<>();
+        overlapping(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * Collects the same values as {@link #overlapping(long, long)}, in the same order, walking the tree on the
+     * common {@link ForkJoinPool}. Subtrees of at most {@code leafSize} nodes are walked sequentially.
+     * The tree must not be changed until the call returns.
+     * @param from the start of the range, in epoch minutes
+     * @param to the end of the range, in epoch minutes
+     * @param leafSize the largest subtree a single task walks on its own
+     * @return the overlapping values, ordered by start
+     */
+    public List<T> overlappingInParallel(long from, long to, int leafSize) {
+        List<List<T>> chunks = ForkJoinPool.commonPool().invoke(new OverlapTask<>(root, from, to, Math.max(1, leafSize)));
+        int total = 0;
+        for (List<T> chunk : chunks) {
+            total += chunk.size();
+        }
+        List<T> result = new ArrayList<>(total);
+        for (List<T> chunk : chunks) {
+            result.addAll(chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the values whose interval starts before the given instant.
+     * @param at the instant, in epoch minutes
+     * @return the number of values with start before {@code at}
+     */
+    public int countStartingBefore(long at) {
+        int count = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < at) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether any stored interval contains the given instant.
+     * @param at the instant to check, in epoch minutes
+     * @return true if at least one value covers the instant
+     */
+    public boolean anyContains(long at) {
+        return anyContains(root, at);
+    }
+
+    /**
+     * Returns every value in the tree.
+     * @return all values, ordered by start
+     */
+    public List<T> values() {
+        List<T> result = new ArrayList<>(nodes.size());
+        inOrder(root, result);
+        return result;
+    }
+
+    private boolean anyContains(Node<T> node, long at) {
+        if (node == null || node.maxEnd <= at) {
+            return false;
+        }
+        if (node.start <= at && node.end > at) {
+            return true;
+        }
+        if (anyContains(node.left, at)) {
+            return true;
+        }
+        return node.start <= at && anyContains(node.right, at);
+    }
+
+    private static <T> void overlapping(Node<T> node, long from, long to, List<T> out) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        overlapping(node.left, from, to, out);
+        if (node.start >= to) {
+            return;
+        }
+        if (node.end > from) {
+            out.add(node.value);
+        }
+        overlapping(node.right, from, to, out);
+    }
+
+    private void inOrder(Node<T> node, List<T> out) {
+        if (node == null) {
+            return;
+        }
+        inOrder(node.left, out);
+        out.add(node.value);
+        inOrder(node.right, out);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compareKeys(added, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> remove(Node<T> node, Node<T> removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compareKeys(removed, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, removed);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, removed);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> removeMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.size = 1 + size(node.left) + size(node.right);
+        long max = node.end;
+        if (node.left != null && node.left.maxEnd > max) {
+            max = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > max) {
+            max = node.right.maxEnd;
+        }
+        node.maxEnd = max;
+    }
+
+    private int height(Node<T> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private int compareKeys(Node<T> a, Node<T> b) {
+        if (a.start != b.start) {
+            return Long.compare(a.start, b.start);
+        }
+        if (a.end != b.end) {
+            return Long.compare(a.end, b.end);
+        }
+        return Long.compare(a.seq, b.seq);
+    }
+}
@@ -0,0 +1,30 @@
+package calendar;
+
+/**
+ * A command line that could not be parsed. Running it reports the parse error,
+ * so errors still appear in command order.
+ */
+public final class InvalidCommand implements Command {
+    private final String message;
+
+    /**
+     * Constructs an InvalidCommand.
+     * @param message the error to report
+     */
+    public InvalidCommand(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Gets the error to report.
+     * @return the error message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,438 @@
+package calendar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * A calendar model that keeps its state in a directory, so it survives restarts.
+ * Every create, series and edit call is appended to a write-ahead journal ({@link CalendarJournal})
+ * before it is applied to an in-memory {@link CalendarModelImpl}, so a call that cannot be journaled
+ * changes nothing. Calls the model refuses are journaled too; replaying one refuses it again.
+ * Every {@code snapshotInterval} journaled calls the whole model is written to a snapshot and a new,
+ * empty journal is started, so opening the directory loads the latest snapshot and replays at most
+ * {@code snapshotInterval} journal records, however long the history is.
+ * <p>
+ * Generation {@code g} of the directory is the file {@code snapshot-g.bin} (absent for generation 0)
+ * plus {@code journal-g.bin} holding the calls made after it. Files of older generations are deleted
+ * once a newer snapshot is safely in place. The model's series ID counter is part of the snapshot,
+ * so replaying the journal allocates the same series IDs as the original calls did.
+ */
+public class JournaledCalendarModel implements ICalendarModel, Closeable {
+    /** Journal records written and synced together by default. */
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 256;
+
+    /** Journaled calls between two snapshots by default. */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10000;
+
+    private static final int SNAPSHOT_MAGIC = 0x43414C53;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 16;
+    private static final byte CREATE_EVENT = 1;
+    private static final byte CREATE_SERIES = 2;
+    private static final byte EDIT_EVENT = 3;
+
+    private final Path directory;
+    private final int groupCommitSize;
+    private final int snapshotInterval;
+    private CalendarModelImpl model;
+    private CalendarJournal journal;
+    private long generation;
+    private int recordsSinceSnapshot;
+    private int recoveredRecords;
+    private long recoveryMillis;
+
+    /**
+     * Constructs an empty JournaledCalendarModel; {@link #open(Path, int, int)} then recovers its state.
+     * @param directory the data directory
+     * @param groupCommitSize the number of journal records written and synced together
+     * @param snapshotInterval the number of journaled calls between two snapshots
+     */
+    private JournaledCalendarModel(Path directory, int groupCommitSize, int snapshotInterval) {
+        this.directory = directory;
+        this.groupCommitSize = groupCommitSize;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        this.model = new CalendarModelImpl();
+    }
+
+    /**
+     * Opens the calendar stored in a directory, creating the directory if needed,
+     * with the default group commit size and snapshot interval.
+     * @param directory the data directory
+     * @return the recovered model
+     * @throws IOException if the directory cannot be read or written
+     */
+    public static JournaledCalendarModel open(Path directory) throws IOException {
+        return open(directory, DEFAULT_GROUP_COMMIT_SIZE, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens the calendar stored in a directory, creating the directory if needed.
+     * The latest snapshot is loaded and the journal written after it is replayed.
+     * @param directory the data directory
+     * @param groupCommitSize the number of journal records written and synced together; 1 syncs every call
+     * @param snapshotInterval the number of journaled calls between two snapshots
+     * @return the recovered model
+     * @throws IOException if the directory cannot be read or written
+     */
+    public static JournaledCalendarModel open(Path directory, int groupCommitSize, int snapshotInterval)
+            throws IOException {
+        JournaledCalendarModel journaled = new JournaledCalendarModel(directory, groupCommitSize, snapshotInterval);
+        journaled.recover();
+        return journaled;
+    }
+
+    /**
+     * Loads the latest snapshot, replays its journal and opens the journal for appending.
+     * @throws IOException if the files cannot be read or written
+     */
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        generation = latestSnapshotGeneration();
+        if (generation > 0) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(snapshotFile(generation))))) {
+                if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                    throw new IOException("Unrecognized snapshot file: " + snapshotFile(generation));
+                }
+                model.readSnapshot(in);
+            }
+        }
+        List<byte[]> records = CalendarJournal.readRecords(journalFile(generation));
+        // replayed calls would print again the warnings and errors they printed when they were made
+        PrintStream console = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (byte[] record : records) {
+                replay(new DataInputStream(new ByteArrayInputStream(record)));
+            }
+        } finally {
+            System.setErr(console);
+        }
+        recoveredRecords = records.size();
+        recordsSinceSnapshot = records.size();
+        deleteOlderGenerations();
+        journal = new CalendarJournal(journalFile(generation), groupCommitSize);
+        recoveryMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    /**
+     * Applies one journal record to the in-memory model.
+     * A call that threw when it was made throws again here, and is skipped as it was then.
+     * @param in the record
+     * @throws IOException if the record cannot be decoded
+     */
+    private void replay(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        try {
+            replay(type, in);
+        } catch (RuntimeException e) {
+            // the call failed the same way when it was made
+        }
+    }
+
+    private void replay(byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case CREATE_EVENT:
+                model.createEvent(RecordCodec.readString(in), RecordCodec.readDateTime(in), RecordCodec.readDateTime(in),
+                        RecordCodec.readString(in), RecordCodec.readString(in), RecordCodec.readString(in));
+                break;
+            case CREATE_SERIES: {
+                String subject = RecordCodec.readString(in);
+                DateTime start = RecordCodec.readDateTime(in);
+                DateTime end = RecordCodec.readDateTime(in);
+                String description = RecordCodec.readString(in);
+                String location = RecordCodec.readString(in);
+                String status = RecordCodec.readString(in);
+                int repeatDays = in.readByte();
+                Integer occurrences = in.readBoolean() ? in.readInt() : null;
+                Date untilDate = RecordCodec.readDate(in);
+                model.createEventSeries(subject, start, end, description, location, status,
+                        repeatDays, occurrences, untilDate);
+                break;
+            }
+            case EDIT_EVENT: {
+                String findSubject = RecordCodec.readString(in);
+                DateTime findStart = RecordCodec.readDateTime(in);
+                DateTime findEnd = RecordCodec.readDateTime(in);
+                String property = in.readUTF();
+                String text = RecordCodec.readString(in);
+                DateTime dateTime = RecordCodec.readDateTime(in);
+                EventEdit edit = dateTime != null ? EventEdit.ofDateTime(property, dateTime) : EventEdit.ofText(property, text);
+                model.editEvent(findSubject, findStart, findEnd, edit, in.readUTF());
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Gets the number of journal records replayed when the model was opened.
+     * @return the number of replayed records, at most the snapshot interval
+     */
+    public int getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Gets the time taken to load the snapshot and replay the journal when the model was opened.
+     * @return the recovery time in milliseconds
+     */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    /**
+     * Gets the generation of the snapshot the model was recovered from or last wrote.
+     * @return the snapshot generation; 0 if there is no snapshot yet
+     */
+    public long getSnapshotGeneration() {
+        return generation;
+    }
+
+    @Override
+    public boolean createEvent(String subject, DateTime startDateTime, DateTime endDateTime,
+                               String description, String location, String status) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(CREATE_EVENT);
+            RecordCodec.writeString(out, subject);
+            RecordCodec.writeDateTime(out, startDateTime);
+            RecordCodec.writeDateTime(out, endDateTime);
+            RecordCodec.writeString(out, description);
+            RecordCodec.writeString(out, location);
+            RecordCodec.writeString(out, status);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(bytes.toByteArray());
+        return applied(model.createEvent(subject, startDateTime, endDateTime, description, location, status));
+    }
+
+    @Override
+    public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
+                                     String description, String location, String status,
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(CREATE_SERIES);
+            RecordCodec.writeString(out, subject);
+            RecordCodec.writeDateTime(out, seriesStartDateTime);
+            RecordCodec.writeDateTime(out, seriesEndDateTime);
+            RecordCodec.writeString(out, description);
+            RecordCodec.writeString(out, location);
+            RecordCodec.writeString(out, status);
+            out.writeByte(repeatDays);
+            out.writeBoolean(occurrences != null);
+            if (occurrences != null) {
+                out.writeInt(occurrences);
+            }
+            RecordCodec.writeDate(out, seriesEndDate);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(bytes.toByteArray());
+        return applied(model.createEventSeries(subject, seriesStartDateTime, seriesEndDateTime, description, location,
+                status, repeatDays, occurrences, seriesEndDate));
+    }
+
+    @Override
+    public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                             EventEdit edit, String scope) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(EDIT_EVENT);
+            RecordCodec.writeString(out, findSubject);
+            RecordCodec.writeDateTime(out, findStartDateTime);
+            RecordCodec.writeDateTime(out, findEndDateTime);
+            out.writeUTF(edit.getProperty());
+            RecordCodec.writeString(out, edit.getText());
+            RecordCodec.writeDateTime(out, edit.getDateTime());
+            out.writeUTF(scope);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(bytes.toByteArray());
+        return applied(model.editEvent(findSubject, findStartDateTime, findEndDateTime, edit, scope));
+    }
+
+    @Override
+    public List<IEvent> getAllEvents() {
+        return model.getAllEvents();
+    }
+
+    @Override
+    public List<IEvent> getEventsOnDate(Date date) {
+        return model.getEventsOnDate(date);
+    }
+
+    @Override
+    public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
+        return model.getEventsInRange(startRange, endRange);
+    }
+
+    @Override
+    public boolean isBusyAt(DateTime dateTime) {
+        return model.isBusyAt(dateTime);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(DateTime startRange, DateTime endRange, int minutes) {
+        return model.findFreeSlots(startRange, endRange, minutes);
+    }
+
+    @Override
+    public TimeSlot findFirstFreeSlot(DateTime startRange, DateTime endRange, int minutes) {
+        return model.findFirstFreeSlot(startRange, endRange, minutes);
+    }
+
+    /**
+     * Appends the record of a call that has not been applied yet.
+     * @param record the encoded call
+     * @throws UncheckedIOException if the journal cannot be written; the call must then not be applied
+     */
+    private void append(byte[] record) {
+        try {
+            journal.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the calendar journal: " + e.getMessage(), e);
+        }
+        recordsSinceSnapshot++;
+    }
+
+    /**
+     * Finishes a journaled call once it has been applied, writing a snapshot when the interval is reached.
+     * @param result the result of the call
+     * @return the same result
+     * @throws UncheckedIOException if the snapshot cannot be written; the call stays applied and journaled
+     */
+    private boolean applied(boolean result) {
+        if (recordsSinceSnapshot >= snapshotInterval) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write a calendar snapshot: " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the whole model to the snapshot of the next generation and starts its empty journal.
+     * The snapshot is written to a temporary file, synced and renamed into place, so a crash leaves
+     * either the old generation or the new one intact.
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        journal.commit();
+        long next = generation + 1;
+        Path temporary = directory.resolve("snapshot-" + next + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, SNAPSHOT_BUFFER_SIZE));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            model.writeSnapshot(out);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, snapshotFile(next), StandardCopyOption.ATOMIC_MOVE);
+        journal.close();
+        generation = next;
+        journal = new CalendarJournal(journalFile(generation), groupCommitSize);
+        recordsSinceSnapshot = 0;
+        deleteOlderGenerations();
+    }
+
+    /**
+     * Commits the pending journal records and closes the journal.
+     * @throws IOException if the final commit fails
+     */
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    /**
+     * Finds the newest snapshot in the directory.
+     * @return its generation, or 0 if there is none
+     * @throws IOException if the directory cannot be listed
+     */
+    private long latestSnapshotGeneration() throws IOException {
+        long latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.bin")) {
+            for (Path file : files) {
+                latest = Math.max(latest, generationOf(file));
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Deletes the snapshots, journals and unfinished snapshots of generations other than the current one.
+     * @throws IOException if the directory cannot be listed or a file cannot be deleted
+     */
+    private void deleteOlderGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{snapshot,journal}-*.{bin,tmp}")) {
+            for (Path file : files) {
+                long fileGeneration = generationOf(file);
+                boolean unfinished = file.getFileName().toString().endsWith(".tmp");
+                if (fileGeneration >= 0 && (fileGeneration < generation || unfinished)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the generation from a snapshot or journal file name.
+     * @param file the file
+     * @return the generation, or -1 if the name does not hold one
+     */
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        int from = name.indexOf('-') + 1;
+        int to = name.lastIndexOf('.');
+        try {
+            return Long.parseLong(name.substring(from, to));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the snapshot file of a generation.
+     * @param snapshotGeneration the generation
+     * @return the file path
+     */
+    private Path snapshotFile(long snapshotGeneration) {
+        return directory.resolve("snapshot-" + snapshotGeneration + ".bin");
+    }
+
+    /**
+     * Gets the journal file of a generation.
+     * @param journalGeneration the generation
+     * @return the file path
+     */
+    private Path journalFile(long journalGeneration) {
+        return directory.resolve("journal-" + journalGeneration + ".bin");
+    }
+}
@@ -0,0 +1,200 @@
+package calendar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * An {@link EventTable} kept outside the Java heap, for calendars too large to hold as objects.
+ * <p>
+ * Rows are fixed-width {@value #RECORD_SIZE}-byte records in direct buffers of {@value #PAGE_ROWS} rows each:
+ * start and end (8 bytes each), subject, location, description and status handles, series ID, original
+ * series ID and hash chain link (4 bytes each), then flags and the weekday mask (1 byte each) and padding.
+ * Growing adds pages without copying the existing ones. Strings live in an {@link OffHeapStringArena}.
+ * The heap only holds the page array, so the garbage collector has nothing per event to trace or copy.
+ * The memory is released when the table becomes unreachable, like any direct buffer.
+ */
+public class OffHeapEventTable implements EventTable {
+    private static final int RECORD_SIZE = 48;
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_ROWS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_ROWS - 1;
+    private static final int START = 0;
+    private static final int END = 8;
+    private static final int SUBJECT = 16;
+    private static final int LOCATION = 20;
+    private static final int DESCRIPTION = 24;
+    private static final int STATUS = 28;
+    private static final int SERIES_ID = 32;
+    private static final int ORIGINAL_SERIES_ID = 36;
+    private static final int NEXT = 40;
+    private static final int FLAGS = 44;
+    private static final int REPEAT_DAYS = 45;
+
+    private final OffHeapStringArena strings;
+    private ByteBuffer[] pages;
+
+    /**
+     * Constructs an empty OffHeapEventTable.
+     */
+    public OffHeapEventTable() {
+        this.strings = new OffHeapStringArena();
+        this.pages = new ByteBuffer[0];
+    }
+
+    /**
+     * Gets the number of off-heap bytes the table has allocated, strings included.
+     * @return the capacity of its buffers in bytes
+     */
+    public long allocatedBytes() {
+        return (long) pages.length * PAGE_ROWS * RECORD_SIZE + strings.allocatedBytes();
+    }
+
+    private static ByteBuffer newPage() {
+        return ByteBuffer.allocateDirect(PAGE_ROWS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    private ByteBuffer page(int row) {
+        return pages[row >>> PAGE_SHIFT];
+    }
+
+    private static int offset(int row, int field) {
+        return (row & PAGE_MASK) * RECORD_SIZE + field;
+    }
+
+    @Override
+    public int capacity() {
+        return pages.length * PAGE_ROWS;
+    }
+
+    @Override
+    public void ensureCapacity(int rows) {
+        int needed = (rows + PAGE_MASK) >>> PAGE_SHIFT;
+        if (needed <= pages.length) {
+            return;
+        }
+        ByteBuffer[] grown = Arrays.copyOf(pages, needed);
+        try {
+            for (int i = pages.length; i < needed; i++) {
+                grown[i] = newPage();
+            }
+        } catch (OutOfMemoryError e) {
+            // direct buffers fail on their own limit, well before the heap is full; the new pages are dropped
+            throw new IllegalStateException("Not enough off-heap memory for " + rows + " events.", e);
+        }
+        pages = grown;
+    }
+
+    @Override
+    public void setRow(int row, long start, long end, int subject, int location, int description, int status,
+                       int seriesId, int originalSeriesId, int flags, int repeatDays) {
+        ByteBuffer page = page(row);
+        int at = offset(row, 0);
+        page.putLong(at + START, start);
+        page.putLong(at + END, end);
+        page.putInt(at + SUBJECT, subject);
+        page.putInt(at + LOCATION, location);
+        page.putInt(at + DESCRIPTION, description);
+        page.putInt(at + STATUS, status);
+        page.putInt(at + SERIES_ID, seriesId);
+        page.putInt(at + ORIGINAL_SERIES_ID, originalSeriesId);
+        page.put(at + FLAGS, (byte) flags);
+        page.put(at + REPEAT_DAYS, (byte) repeatDays);
+    }
+
+    @Override
+    public long start(int row) {
+        return page(row).getLong(offset(row, START));
+    }
+
+    @Override
+    public long end(int row) {
+        return page(row).getLong(offset(row, END));
+    }
+
+    @Override
+    public int subject(int row) {
+        return page(row).getInt(offset(row, SUBJECT));
+    }
+
+    @Override
+    public int location(int row) {
+        return page(row).getInt(offset(row, LOCATION));
+    }
+
+    @Override
+    public int description(int row) {
+        return page(row).getInt(offset(row, DESCRIPTION));
+    }
+
+    @Override
+    public int status(int row) {
+        return page(row).getInt(offset(row, STATUS));
+    }
+
+    @Override
+    public int seriesId(int row) {
+        return page(row).getInt(offset(row, SERIES_ID));
+    }
+
+    @Override
+    public int originalSeriesId(int row) {
+        return page(row).getInt(offset(row, ORIGINAL_SERIES_ID));
+    }
+
+    @Override
+    public int flags(int row) {
+        return page(row).get(offset(row, FLAGS)) & 0xFF;
+    }
+
+    @Override
+    public void setFlags(int row, int flags) {
+        page(row).put(offset(row, FLAGS), (byte) flags);
+    }
+
+    @Override
+    public int repeatDays(int row) {
+        return page(row).get(offset(row, REPEAT_DAYS)) & 0xFF;
+    }
+
+    @Override
+    public int next(int row) {
+        return page(row).getInt(offset(row, NEXT));
+    }
+
+    @Override
+    public void setNext(int row, int next) {
+        page(row).putInt(offset(row, NEXT), next);
+    }
+
+    @Override
+    public void reorder(int[] order, int count) {
+        ByteBuffer[] reordered = new ByteBuffer[(count + PAGE_MASK) >>> PAGE_SHIFT];
+        try {
+            for (int i = 0; i < reordered.length; i++) {
+                reordered[i] = newPage();
+            }
+        } catch (OutOfMemoryError e) {
+            throw new IllegalStateException("Not enough off-heap memory to reorder " + count + " events.", e);
+        }
+        for (int i = 0; i < count; i++) {
+            reordered[i >>> PAGE_SHIFT].put(offset(i, 0), page(order[i]), offset(order[i], 0), RECORD_SIZE);
+        }
+        pages = reordered;
+    }
+
+    @Override
+    public int toHandle(String value) {
+        return strings.toHandle(value);
+    }
+
+    @Override
+    public int findHandle(String value) {
+        return strings.findHandle(value);
+    }
+
+    @Override
+    public String string(int handle) {
+        return strings.toString(handle);
+    }
+}
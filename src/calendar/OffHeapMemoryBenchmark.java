@@ -0,0 +1,129 @@
+package calendar;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * A memory benchmark comparing the object store with the off-heap store.
+ * <p>
+ * For each store it loads the same generated events into an empty model, then reports the heap still in use
+ * after a full collection, the direct memory in use, the collections and collection time spent while loading,
+ * and the pause of one full collection with the loaded model live. The figures come from the
+ * {@link GarbageCollectorMXBean}s, so they cover whatever collector the JVM runs with.
+ * <p>
+ * Run with {@code java calendar.OffHeapMemoryBenchmark [events] [objects|offheap|both]}.
+ * Running one store per JVM keeps the other store's garbage out of its figures.
+ */
+public class OffHeapMemoryBenchmark {
+    private static final int DEFAULT_EVENTS = 500_000;
+    private static final int SETTLE_COLLECTIONS = 3;
+
+    // keeps the loaded model reachable while it is measured
+    private static volatile ICalendarModel retained;
+
+    /**
+     * Loads the events into each chosen store and prints its figures.
+     * @param args the number of events and the store to measure, both optional
+     */
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_EVENTS;
+        String store = args.length > 1 ? args[1] : "both";
+        if (!store.equals("objects") && !store.equals("offheap") && !store.equals("both")) {
+            throw new IllegalArgumentException("Unknown store '" + store + "'. Use objects, offheap or both.");
+        }
+
+        System.out.printf("%d events%n", events);
+        System.out.printf("%-8s %12s %12s %10s %10s %12s %10s%n",
+                "store", "heap used", "direct used", "load ms", "GCs", "GC time ms", "full GC ms");
+        if (!store.equals("offheap")) {
+            measure("objects", new CalendarModelImpl(), events);
+        }
+        if (!store.equals("objects")) {
+            measure("offheap", new ArrayCalendarModel(new OffHeapEventTable()), events);
+        }
+    }
+
+    /**
+     * Loads the events into an empty model and prints one row of figures.
+     */
+    private static void measure(String name, ICalendarModel model, int events) {
+        retained = null;
+        settle();
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        long countBefore = collectionCount();
+        long timeBefore = collectionTime();
+
+        long started = System.nanoTime();
+        retained = model;
+        load(model, events);
+        long loadMillis = (System.nanoTime() - started) / 1_000_000;
+        long loadCount = collectionCount() - countBefore;
+        long loadTime = collectionTime() - timeBefore;
+
+        long fullBefore = collectionTime();
+        System.gc();
+        long fullPause = collectionTime() - fullBefore;
+        settle();
+        long heapUsed = usedHeap() - heapBefore;
+        long directUsed = usedDirect() - directBefore;
+
+        System.out.printf("%-8s %10.1f MB %10.1f MB %10d %10d %12d %10d%n", name, heapUsed / 1048576.0,
+                directUsed / 1048576.0, loadMillis, loadCount, loadTime, fullPause);
+        retained = null;
+    }
+
+    /**
+     * Creates single events spread over the days of ten years, each with its own subject.
+     */
+    private static void load(ICalendarModel model, int events) {
+        Date first = Date.of(1, 1, 2025);
+        for (int i = 0; i < events; i++) {
+            Date date = Date.fromEpochDay(first.toEpochDay() + i % 3650);
+            Time start = Time.of(8 + i / 3650 % 9, i / 32850 % 2 * 30);
+            Time end = Time.of(start.getHour() + 1, start.getMinute());
+            if (!model.createEvent("Meeting " + i, new DateTime(date, start), new DateTime(date, end),
+                    "Agenda " + (i % 100), "Room " + (i % 40), i % 7 == 0 ? "private" : "public")) {
+                throw new IllegalStateException("Could not load event " + i + ".");
+            }
+        }
+    }
+
+    private static void settle() {
+        for (int i = 0; i < SETTLE_COLLECTIONS; i++) {
+            System.gc();
+        }
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        List<BufferPoolMXBean> pools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        for (BufferPoolMXBean pool : pools) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long collectionTime() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,182 @@
+package calendar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A dictionary of distinct strings kept outside the Java heap, in direct buffers.
+ * Each string is stored once, as its hash code, its UTF-8 length and its UTF-8 bytes, and its handle is
+ * the offset of that record. Lookups go through an open-addressing table of handles, also off-heap,
+ * and compare the stored bytes, so the arena keeps no Java object per string.
+ * Reading a string back decodes a new {@link String} each time.
+ */
+public class OffHeapStringArena {
+    private static final int RECORD_HEADER = 8;
+
+    private ByteBuffer data;
+    private ByteBuffer slots;
+    private int size;
+
+    /**
+     * Constructs an empty OffHeapStringArena.
+     */
+    public OffHeapStringArena() {
+        this.data = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.nativeOrder());
+        this.slots = ByteBuffer.allocateDirect(4 << 10).order(ByteOrder.nativeOrder());
+        this.size = 0;
+    }
+
+    /**
+     * Gets the handle of a string, adding the string if it is new.
+     * @param value the string, or null
+     * @return the handle, or {@link StringDictionary#NO_HANDLE} for null
+     */
+    public int toHandle(String value) {
+        if (value == null) {
+            return StringDictionary.NO_HANDLE;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = value.hashCode();
+        int slot = find(hash, bytes);
+        int handle = slots.getInt(slot) - 1;
+        if (handle != StringDictionary.NO_HANDLE) {
+            return handle;
+        }
+        handle = append(hash, bytes);
+        slots.putInt(slot, handle + 1);
+        size++;
+        if (size * 2 > slotCount()) {
+            growSlots();
+        }
+        return handle;
+    }
+
+    /**
+     * Gets the handle of a string without adding it.
+     * @param value the string, or null
+     * @return the handle, or {@link StringDictionary#NO_HANDLE} if the string is null or not in the arena
+     */
+    public int findHandle(String value) {
+        if (value == null) {
+            return StringDictionary.NO_HANDLE;
+        }
+        return slots.getInt(find(value.hashCode(), value.getBytes(StandardCharsets.UTF_8))) - 1;
+    }
+
+    /**
+     * Gets the string of a handle.
+     * @param handle a handle returned by this arena, or {@link StringDictionary#NO_HANDLE}
+     * @return a new string equal to the stored one, or null for {@link StringDictionary#NO_HANDLE}
+     */
+    public String toString(int handle) {
+        if (handle == StringDictionary.NO_HANDLE) {
+            return null;
+        }
+        byte[] bytes = new byte[data.getInt(handle + 4)];
+        data.get(handle + RECORD_HEADER, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of distinct strings.
+     * @return the arena size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of off-heap bytes the arena has allocated.
+     * @return the capacity of its buffers in bytes
+     */
+    public long allocatedBytes() {
+        return (long) data.capacity() + slots.capacity();
+    }
+
+    private int slotCount() {
+        return slots.capacity() / Integer.BYTES;
+    }
+
+    /**
+     * Finds the slot holding a string, or the empty slot where it would go.
+     * @return the byte offset of the slot
+     */
+    private int find(int hash, byte[] bytes) {
+        int mask = slotCount() - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int handle = slots.getInt(slot * Integer.BYTES) - 1;
+            if (handle == StringDictionary.NO_HANDLE || matches(handle, hash, bytes)) {
+                return slot * Integer.BYTES;
+            }
+        }
+    }
+
+    private boolean matches(int handle, int hash, byte[] bytes) {
+        if (data.getInt(handle) != hash || data.getInt(handle + 4) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (data.get(handle + RECORD_HEADER + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Appends a string record, growing the data buffer if needed.
+     * @return the handle of the record
+     */
+    private int append(int hash, byte[] bytes) {
+        int handle = data.position();
+        long needed = (long) handle + RECORD_HEADER + bytes.length;
+        if (needed > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The string arena is full.");
+        }
+        if (needed > data.capacity()) {
+            ByteBuffer grown = allocate((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * data.capacity())));
+            data.flip();
+            grown.put(data);
+            data = grown;
+        }
+        data.putInt(hash).putInt(bytes.length).put(bytes);
+        return handle;
+    }
+
+    /**
+     * Doubles the slot table and puts every handle back, using the hash stored with each string.
+     */
+    private void growSlots() {
+        ByteBuffer old = slots;
+        slots = allocate(old.capacity() * 2);
+        int mask = slotCount() - 1;
+        for (int offset = 0; offset < old.capacity(); offset += Integer.BYTES) {
+            int entry = old.getInt(offset);
+            if (entry == 0) {
+                continue;
+            }
+            int slot = mix(data.getInt(entry - 1)) & mask;
+            while (slots.getInt(slot * Integer.BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots.putInt(slot * Integer.BYTES, entry);
+        }
+    }
+
+    /**
+     * Allocates a direct buffer in native byte order.
+     * @throws IllegalStateException if direct memory is exhausted
+     */
+    private static ByteBuffer allocate(int bytes) {
+        try {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        } catch (OutOfMemoryError e) {
+            throw new IllegalStateException("Not enough off-heap memory for event strings.", e);
+        }
+    }
+}
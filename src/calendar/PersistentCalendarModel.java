@@ -0,0 +1,534 @@
+package calendar;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A calendar model whose whole state is an immutable version, published through an {@link AtomicReference}.
+ * <p>
+ * A version holds two {@link PersistentIntervalTree}s of the stored events (one ordered by start, one
+ * grouped by series), the next sequence number and the series ID counter. Every create, series and
+ * edit call builds a new version from the current one, sharing all untouched tree nodes, and publishes it
+ * with a single compare-and-set; if another call published first, the call starts over from the newer
+ * version. A call that fails publishes nothing, but still checks with a compare-and-set that the version it
+ * judged is the current one, and its error message is printed only after that check, so a retried call never
+ * prints twice. Queries read whichever version is current when they start, without locks, and never see
+ * part of a change; {@link #getAllEvents()} returns that version's events as a read-only list in O(1).
+ * <p>
+ * Series are expanded into one stored event per occurrence when they are created, and edits replace the
+ * edited events with modified copies, as in {@link ArrayCalendarModel}. Stored events are never changed,
+ * so the events returned by queries stay valid after later calls.
+ */
+public class PersistentCalendarModel implements ICalendarModel {
+    private static final Time ALL_DAY_START = Time.of(8, 0);
+    private static final Time ALL_DAY_END = Time.of(17, 0);
+
+    /**
+     * An event as stored in a version, with the sequence number that orders it among events with the same start.
+     */
+    private static final class Stored {
+        private final IEvent event;
+        private final long start;
+        private final long end;
+        private final long seq;
+
+        private Stored(IEvent event, long seq) {
+            this.event = event;
+            this.start = event.getStart().toEpochMinute();
+            this.end = event.getEnd().toEpochMinute();
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * One immutable state of the calendar.
+     */
+    private static final class Version {
+        private static final Version EMPTY = new Version(PersistentIntervalTree.empty(), PersistentIntervalTree.empty(), 0, IEvent.NO_SERIES);
+
+        private final PersistentIntervalTree<Stored> byStart;
+        private final PersistentIntervalTree<Stored> bySeries;
+        private final long nextSeq;
+        private final long lastSeriesId;
+
+        private Version(PersistentIntervalTree<Stored> byStart, PersistentIntervalTree<Stored> bySeries,
+                        long nextSeq, long lastSeriesId) {
+            this.byStart = byStart;
+            this.bySeries = bySeries;
+            this.nextSeq = nextSeq;
+            this.lastSeriesId = lastSeriesId;
+        }
+
+        private Version add(IEvent event) {
+            Stored stored = new Stored(event, nextSeq);
+            PersistentIntervalTree<Stored> series = bySeries;
+            if (event.getSeriesId() != IEvent.NO_SERIES) {
+                series = series.insert(event.getSeriesId(), event.getSeriesId(), stored.seq, stored);
+            }
+            return new Version(byStart.insert(stored.start, stored.end, stored.seq, stored), series,
+                    nextSeq + 1, lastSeriesId);
+        }
+
+        private Version remove(Stored stored) {
+            PersistentIntervalTree<Stored> series = bySeries;
+            if (stored.event.getSeriesId() != IEvent.NO_SERIES) {
+                series = series.remove(stored.event.getSeriesId(), stored.seq);
+            }
+            return new Version(byStart.remove(stored.start, stored.seq), series, nextSeq, lastSeriesId);
+        }
+
+        private Version withSeriesIdUsed(long seriesId) {
+            return new Version(byStart, bySeries, nextSeq, Math.max(lastSeriesId, seriesId));
+        }
+
+        /**
+         * Finds the stored events with a subject and start, in the order they were added.
+         */
+        private List<Stored> startingAt(String subject, long start) {
+            List<Stored> found = new ArrayList<>();
+            for (Stored stored : byStart.startingBetween(start, start)) {
+                if (stored.event.getSubject().equals(subject)) {
+                    found.add(stored);
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Checks if an event would be a duplicate of a stored event other than the excluded one.
+         */
+        private boolean isDuplicate(String subject, long start, long end, Stored excluded) {
+            for (Stored stored : byStart.startingBetween(start, start)) {
+                if (stored != excluded && stored.end == end && stored.event.getSubject().equals(subject)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Finds the stored events of a series, ordered by start (events with the same start in the order they were added).
+         */
+        private List<Stored> seriesMembers(long seriesId) {
+            List<Stored> members = bySeries.startingBetween(seriesId, seriesId);
+            members.sort(Comparator.comparingLong(stored -> stored.start));
+            return members;
+        }
+    }
+
+    /**
+     * The result of a change computed against one version: the version to publish, what the call returns,
+     * and the message to print once the change is published.
+     */
+    private static final class Outcome {
+        private final Version version;
+        private final boolean succeeded;
+        private final String message;
+
+        private Outcome(Version version, boolean succeeded, String message) {
+            this.version = version;
+            this.succeeded = succeeded;
+            this.message = message;
+        }
+
+        private static Outcome failed(Version unchanged, String message) {
+            return new Outcome(unchanged, false, message);
+        }
+    }
+
+    private final AtomicReference<Version> current;
+
+    /**
+     * Constructs a new, empty PersistentCalendarModel.
+     */
+    public PersistentCalendarModel() {
+        this.current = new AtomicReference<>(Version.EMPTY);
+    }
+
+    /**
+     * Computes a change against the current version and publishes it, starting over if another change
+     * was published in the meantime, then prints the change's message.
+     * @param change computes the outcome of the call from a version; it must not have side effects
+     * @return what the call returns
+     */
+    private boolean publish(Function<Version, Outcome> change) {
+        while (true) {
+            Version base = current.get();
+            Outcome outcome = change.apply(base);
+            if (current.compareAndSet(base, outcome.version)) {
+                if (outcome.message != null) {
+                    System.err.println(outcome.message);
+                }
+                return outcome.succeeded;
+            }
+        }
+    }
+
+    /**
+     * Creates a single calendar event.
+     * @param subject the event subject (required)
+     * @param startDateTime the start date and time (required)
+     * @param endDateTime the end date and time (null for all-day events)
+     * @param description the event description (can be null)
+     * @param location the event location (can be null)
+     * @param status the event status ("public" or "private")
+     * @return true if the event was created successfully, false otherwise
+     */
+    @Override
+    public boolean createEvent(String subject, DateTime startDateTime, DateTime endDateTime, String description, String location, String status) {
+        if (startDateTime == null || subject == null || subject.trim().isEmpty()) {
+            System.err.println("Error: Subject and start date/time are required.");
+            return false;
+        }
+
+        DateTime effectiveStart = startDateTime;
+        DateTime effectiveEnd = endDateTime;
+
+        if (effectiveEnd == null) {
+            Date date = startDateTime.getDate();
+            effectiveStart = new DateTime(date, ALL_DAY_START);
+            effectiveEnd = new DateTime(date, ALL_DAY_END);
+        }
+
+        if (effectiveEnd.isBefore(effectiveStart)) {
+            System.err.println("Error: Event end time cannot be before start time.");
+            return false;
+        }
+
+        IEvent newEvent = new Event(subject, location, effectiveStart, effectiveEnd, status, description);
+        long start = effectiveStart.toEpochMinute();
+        long end = effectiveEnd.toEpochMinute();
+        return publish(version -> {
+            if (version.isDuplicate(subject, start, end, null)) {
+                return Outcome.failed(version, "Error: An event with the same subject, start date/time, and end date/time already exists.");
+            }
+            return new Outcome(version.add(newEvent), true, null);
+        });
+    }
+
+    /**
+     * Creates a series of recurring calendar events, storing one event per occurrence.
+     * The series must fit in {@link RecurrenceRule#MAX_SERIES_SPAN_DAYS} days, as in {@link CalendarModelImpl}.
+     * @param subject the event subject (required)
+     * @param seriesStartDateTime the start date and time for the series (required)
+     * @param seriesEndDateTime the end date and time for each event in the series (null for all-day events)
+     * @param description the event description (can be null)
+     * @param location the event location (can be null)
+     * @param status the event status ("public" or "private")
+     * @param repeatDays the days of the week on which to repeat the event, as a {@link Weekdays} mask (required)
+     * @param occurrences the number of occurrences (null if using seriesEndDate)
+     * @param seriesEndDate the date after which to stop creating events (null if using occurrences)
+     * @return true if the event series was created successfully, false otherwise
+     */
+    @Override
+    public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
+                                     String description, String location, String status,
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
+        if (seriesStartDateTime == null || subject == null || subject.trim().isEmpty() || Weekdays.size(repeatDays) == 0) {
+            System.err.println("Error: Subject, start date/time, and repeat days are required for a series.");
+            return false;
+        }
+        if (occurrences == null && seriesEndDate == null) {
+            System.err.println("Error: Either number of occurrences or a series end date must be specified.");
+            return false;
+        }
+        if (occurrences != null && seriesEndDate != null) {
+            System.err.println("Error: Specify either number of occurrences or a series end date, not both.");
+            return false;
+        }
+        if (occurrences != null && occurrences <= 0) {
+            System.err.println("Error: Number of occurrences must be positive.");
+            return false;
+        }
+
+        DateTime effectiveSeriesStart = seriesStartDateTime;
+        DateTime effectiveSeriesEnd = seriesEndDateTime;
+
+        if (effectiveSeriesEnd == null) {
+            Date date = seriesStartDateTime.getDate();
+            effectiveSeriesStart = new DateTime(date, ALL_DAY_START);
+            effectiveSeriesEnd = new DateTime(date, ALL_DAY_END);
+        }
+
+        long firstDay = effectiveSeriesStart.getDate().toEpochDay();
+        if (seriesEndDate != null && seriesEndDate.toEpochDay() < firstDay) {
+            System.err.println("Error: Series end date cannot be before the series start date.");
+            return false;
+        }
+
+        if (effectiveSeriesEnd.getDate().toEpochDay() != firstDay) {
+            System.err.println("Error: For recurring events, the start and end time must be on the same day.");
+            return false;
+        }
+
+        Time startTime = effectiveSeriesStart.getTime();
+        Time endTime = effectiveSeriesEnd.getTime();
+        if (endTime.toMinuteOfDay() < startTime.toMinuteOfDay()) {
+            System.err.println("Error: Event end time cannot be before start time.");
+            return false;
+        }
+
+        long lastDay;
+        try {
+            lastDay = occurrences != null
+                    ? RecurrenceRule.lastDayForCount(repeatDays, firstDay, occurrences)
+                    : RecurrenceRule.lastDayUntil(repeatDays, firstDay, seriesEndDate.toEpochDay());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return false;
+        }
+        List<Date> days = new ArrayList<>();
+        for (long day = Weekdays.nextDay(repeatDays, firstDay); day <= lastDay; day = Weekdays.nextDay(repeatDays, day + 1)) {
+            days.add(Date.fromEpochDay(day));
+        }
+        if (days.isEmpty()) {
+            System.err.println("Warning: No events were generated for the series based on the criteria.");
+            return true;
+        }
+
+        return publish(version -> {
+            long generatedSeriesId = version.lastSeriesId + 1;
+            Version next = version;
+            for (Date date : days) {
+                Event occurrence = new Event(subject, location, new DateTime(date, startTime), new DateTime(date, endTime), status, description);
+                if (version.isDuplicate(subject, occurrence.getStart().toEpochMinute(), occurrence.getEnd().toEpochMinute(), null)) {
+                    return Outcome.failed(version, "Error: A generated event in the series conflicts with an existing or another potential series event: "
+                                          + subject + " on " + occurrence.getStart());
+                }
+                occurrence.setSeriesId(generatedSeriesId);
+                occurrence.setOriginalSeriesId(generatedSeriesId);
+                occurrence.setIsSeriesFlag(true);
+                occurrence.setDaysOfWeekMask(repeatDays);
+                next = next.add(occurrence);
+            }
+            return new Outcome(next.withSeriesIdUsed(generatedSeriesId), true, null);
+        });
+    }
+
+    /**
+     * Edits an existing event or series of events.
+     * The edited events are replaced by modified copies, which are ordered after all other stored events.
+     * @param findSubject the subject of the event to find
+     * @param findStartDateTime the start date/time of the event to find
+     * @param findEndDateTime the end date/time of the event to find (required for "this" scope)
+     * @param edit the property change to apply
+     * @param scope the scope of the edit ("this", "future", or "all")
+     * @return true if the edit was successful, false otherwise
+     */
+    @Override
+    public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                             EventEdit edit, String scope) {
+        if ("this".equals(scope) && findEndDateTime == null && findStartDateTime != null) {
+            Date date = findStartDateTime.getDate();
+            findStartDateTime = new DateTime(date, ALL_DAY_START);
+            findEndDateTime = new DateTime(date, ALL_DAY_END);
+        }
+        DateTime findStart = findStartDateTime;
+        DateTime findEnd = findEndDateTime;
+        return publish(version -> editEvent(version, findSubject, findStart, findEnd, edit, scope));
+    }
+
+    /**
+     * Computes an edit against one version.
+     */
+    private static Outcome editEvent(Version version, String findSubject, DateTime findStartDateTime,
+                                     DateTime findEndDateTime, EventEdit edit, String scope) {
+        List<Stored> targets = new ArrayList<>();
+        Stored anchor;
+
+        if ("this".equals(scope)) {
+            if (findSubject != null && findStartDateTime != null) {
+                long end = findEndDateTime.toEpochMinute();
+                for (Stored stored : version.startingAt(findSubject, findStartDateTime.toEpochMinute())) {
+                    if (stored.end == end) {
+                        targets.add(stored);
+                    }
+                }
+            }
+            if (targets.isEmpty()) {
+                return Outcome.failed(version, "Error: No event found matching subject '" + findSubject + "', start '" + findStartDateTime + "', and end '" + findEndDateTime + "'.");
+            }
+            if (targets.size() > 1) {
+                return Outcome.failed(version, "Error: Multiple events found for 'edit event' (this scope). This indicates a data integrity issue or overly broad match.");
+            }
+            anchor = targets.get(0);
+        } else {
+            List<Stored> candidates = findSubject != null && findStartDateTime != null
+                    ? version.startingAt(findSubject, findStartDateTime.toEpochMinute()) : new ArrayList<>();
+            if (candidates.isEmpty()) {
+                return Outcome.failed(version, "Error: No event found matching subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
+            }
+            anchor = candidates.get(0);
+
+            long firstSeriesId = anchor.event.getSeriesId();
+            if (candidates.size() > 1) {
+                if (firstSeriesId == IEvent.NO_SERIES) {
+                    return Outcome.failed(version, "Error: Ambiguous edit. Multiple non-series events match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
+                }
+                for (Stored candidate : candidates) {
+                    if (candidate.event.getSeriesId() != firstSeriesId) {
+                        return Outcome.failed(version, "Error: Ambiguous edit. Multiple distinct series match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
+                    }
+                }
+            }
+
+            if (firstSeriesId == IEvent.NO_SERIES || ("future".equals(scope) && anchor.event.isSeriesException())) {
+                targets.add(anchor);
+            } else if ("future".equals(scope)) {
+                for (Stored member : version.seriesMembers(firstSeriesId)) {
+                    if (member.start >= anchor.start && !member.event.isSeriesException()) {
+                        targets.add(member);
+                    }
+                }
+            } else if ("all".equals(scope)) {
+                targets.addAll(version.seriesMembers(firstSeriesId));
+            }
+        }
+
+        if (targets.isEmpty()) {
+            return Outcome.failed(version, "Error: No events targeted for modification based on scope '" + scope + "'.");
+        }
+
+        boolean startPropertyChanged = edit.changesStart();
+        long anchorSeriesId = anchor.event.getSeriesId();
+        long newSeriesIdForSplit = IEvent.NO_SERIES;
+        long newSeriesIdForFutureScope = IEvent.NO_SERIES;
+
+        if (scope.equals("future") && anchorSeriesId != IEvent.NO_SERIES) {
+            newSeriesIdForFutureScope = version.lastSeriesId + 1;
+        } else if (startPropertyChanged && anchorSeriesId != IEvent.NO_SERIES && scope.equals("all")) {
+            newSeriesIdForSplit = version.lastSeriesId + 1;
+        }
+
+        List<IEvent> modified = new ArrayList<>();
+        for (Stored original : targets) {
+            IEvent originalEvent = original.event;
+            IEvent eventToModify = originalEvent.copy();
+
+            edit.applyTo(eventToModify);
+
+            long currentOriginalId = originalEvent.getOriginalSeriesId();
+            long currentSeriesId = originalEvent.getSeriesId();
+
+            eventToModify.setOriginalSeriesId(currentOriginalId != IEvent.NO_SERIES ? currentOriginalId : currentSeriesId);
+
+            if (scope.equals("future") && newSeriesIdForFutureScope != IEvent.NO_SERIES) {
+                eventToModify.setOriginalSeriesId(currentSeriesId);
+                eventToModify.setSeriesId(newSeriesIdForFutureScope);
+                eventToModify.setSeriesException(false);
+            } else if (scope.equals("all")) {
+                if (startPropertyChanged && newSeriesIdForSplit != IEvent.NO_SERIES) {
+                    eventToModify.setOriginalSeriesId(anchorSeriesId);
+                    eventToModify.setSeriesId(newSeriesIdForSplit);
+                    eventToModify.setSeriesException(false);
+                } else if (!startPropertyChanged && anchorSeriesId != IEvent.NO_SERIES) {
+                    eventToModify.setSeriesId(anchorSeriesId);
+                    eventToModify.setOriginalSeriesId(anchorSeriesId);
+                    eventToModify.setSeriesException(false);
+                }
+            } else if (scope.equals("this")) {
+                eventToModify.setSeriesId(currentSeriesId);
+                eventToModify.setSeriesException(true);
+            }
+
+            if (version.isDuplicate(eventToModify.getSubject(), eventToModify.getStart().toEpochMinute(),
+                    eventToModify.getEnd().toEpochMinute(), original)) {
+                return Outcome.failed(version, "Error: Modified event (" + eventToModify.getSubject() + " at " + eventToModify.getStart() + ") conflicts with an existing event.");
+            }
+            modified.add(eventToModify);
+        }
+
+        Version next = version;
+        for (Stored original : targets) {
+            next = next.remove(original);
+        }
+        for (IEvent event : modified) {
+            next = next.add(event);
+        }
+        return new Outcome(next.withSeriesIdUsed(Math.max(newSeriesIdForFutureScope, newSeriesIdForSplit)), true, null);
+    }
+
+    /**
+     * Returns all events of the current version, without copying them.
+     * @return a read-only list of all events, ordered by start, that later calls do not change
+     */
+    @Override
+    public List<IEvent> getAllEvents() {
+        List<Stored> stored = current.get().byStart.asList();
+        return new AbstractList<IEvent>() {
+            @Override
+            public IEvent get(int index) {
+                return stored.get(index).event;
+            }
+
+            @Override
+            public int size() {
+                return stored.size();
+            }
+
+            @Override
+            public Iterator<IEvent> iterator() {
+                Iterator<Stored> walk = stored.iterator();
+                return new Iterator<IEvent>() {
+                    @Override
+                    public boolean hasNext() {
+                        return walk.hasNext();
+                    }
+
+                    @Override
+                    public IEvent next() {
+                        return walk.next().event;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns all events that occur on a specific date: the events starting on or before the date
+     * and ending on or after it.
+     * @param date the date to search for events
+     * @return a list of events that occur on the specified date, ordered by start
+     */
+    @Override
+    public List<IEvent> getEventsOnDate(Date date) {
+        long dayStart = date.toEpochDay() * DateTime.MINUTES_PER_DAY;
+        List<IEvent> result = new ArrayList<>();
+        for (Stored stored : current.get().byStart.overlapping(dayStart - 1, dayStart + DateTime.MINUTES_PER_DAY)) {
+            result.add(stored.event);
+        }
+        return result;
+    }
+
+    /**
+     * Returns all events that overlap a time range.
+     * @param startRange the start of the range
+     * @param endRange the end of the range
+     * @return a list of events that overlap the range, ordered by start, then end
+     */
+    @Override
+    public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
+        List<Stored> overlapping = current.get().byStart.overlapping(startRange.toEpochMinute(), endRange.toEpochMinute());
+        overlapping.sort(Comparator.comparingLong((Stored stored) -> stored.start).thenComparingLong(stored -> stored.end));
+        List<IEvent> result = new ArrayList<>(overlapping.size());
+        for (Stored stored : overlapping) {
+            result.add(stored.event);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if any event is scheduled at a specific date and time.
+     * @param dateTime the date and time to check
+     * @return true if an event starts at or before the given time and ends after it
+     */
+    @Override
+    public boolean isBusyAt(DateTime dateTime) {
+        return current.get().byStart.anyContains(dateTime.toEpochMinute());
+    }
+}
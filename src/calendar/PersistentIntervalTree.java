@@ -0,0 +1,337 @@
+package calendar;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable interval tree: every change returns a new tree and leaves the old one untouched.
+ * Like {@link IntervalTree} it is an AVL tree whose nodes also record the latest end in their subtree,
+ * but it is ordered by start and then by a sequence number the caller supplies, which together identify
+ * a value. A change copies only the O(log n) nodes on the path it touches and shares every other node
+ * with the previous version, so any number of versions can be read at once, from any thread, while new
+ * ones are being built. Each node also records its subtree size, so {@link #asList()} can index in O(log n).
+ * @param <T> the type of value stored in the tree
+ */
+public final class PersistentIntervalTree<T> {
+    private static final PersistentIntervalTree<?> EMPTY = new PersistentIntervalTree<>(null);
+
+    /**
+     * A single node of the tree. Nodes are never changed once built.
+     * @param <T> the type of value stored in the node
+     */
+    private static final class Node<T> {
+        private final long start;
+        private final long end;
+        private final long seq;
+        private final T value;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final long maxEnd;
+        private final int height;
+        private final int size;
+
+        private Node(long start, long end, long seq, T value, Node<T> left, Node<T> right) {
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            long max = end;
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            this.maxEnd = max;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+
+        private Node<T> with(Node<T> newLeft, Node<T> newRight) {
+            return new Node<>(start, end, seq, value, newLeft, newRight);
+        }
+    }
+
+    private final Node<T> root;
+
+    private PersistentIntervalTree(Node<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Gets the empty tree.
+     * @param <T> the type of value stored in the tree
+     * @return the empty tree
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentIntervalTree<T> empty() {
+        return (PersistentIntervalTree<T>) EMPTY;
+    }
+
+    /**
+     * Gets the number of values stored in the tree.
+     * @return the number of values
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns a tree that also holds a value.
+     * @param start the start of the value's interval, in epoch minutes
+     * @param end the end of the value's interval, in epoch minutes
+     * @param seq the sequence number, unique among the values with the same start
+     * @param value the value to add
+     * @return the new tree
+     */
+    public PersistentIntervalTree<T> insert(long start, long end, long seq, T value) {
+        return new PersistentIntervalTree<>(insert(root, new Node<>(start, end, seq, value, null, null)));
+    }
+
+    /**
+     * Returns a tree without the value stored under a start and sequence number.
+     * @param start the start of the value's interval, in epoch minutes
+     * @param seq the sequence number it was inserted with
+     * @return the new tree, or this tree if no value is stored under that key
+     */
+    public PersistentIntervalTree<T> remove(long start, long seq) {
+        Node<T> newRoot = remove(root, start, seq);
+        return newRoot == root ? this : new PersistentIntervalTree<>(newRoot);
+    }
+
+    /**
+     * Collects every value whose interval overlaps the open range (from, to),
+     * that is every value with start before {@code to} and end after {@code from}.
+     * @param from the start of the range, in epoch minutes
+     * @param to the end of the range, in epoch minutes
+     * @return the overlapping values, ordered by start, then sequence number
+     */
+    public List<T> overlapping(long from, long to) {
+        List<T> result = new ArrayList<>();
+        overlapping(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * Collects every value whose start lies in a closed range.
+     * @param from the smallest start to include
+     * @param to the largest start to include
+     * @return the values, ordered by start, then sequence number
+     */
+    public List<T> startingBetween(long from, long to) {
+        List<T> result = new ArrayList<>();
+        startingBetween(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * Checks whether any stored interval contains the given instant.
+     * @param at the instant to check, in epoch minutes
+     * @return true if at least one value covers the instant
+     */
+    public boolean anyContains(long at) {
+        return anyContains(root, at);
+    }
+
+    /**
+     * Returns every value in the tree as a read-only list, without copying.
+     * The list belongs to this version of the tree and never changes.
+     * @return all values, ordered by start, then sequence number
+     */
+    public List<T> asList() {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                if (index < 0 || index >= PersistentIntervalTree.size(root)) {
+                    throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + PersistentIntervalTree.size(root));
+                }
+                Node<T> node = root;
+                while (true) {
+                    int leftSize = PersistentIntervalTree.size(node.left);
+                    if (index < leftSize) {
+                        node = node.left;
+                    } else if (index == leftSize) {
+                        return node.value;
+                    } else {
+                        index -= leftSize + 1;
+                        node = node.right;
+                    }
+                }
+            }
+
+            @Override
+            public int size() {
+                return PersistentIntervalTree.size(root);
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    private final Deque<Node<T>> path = new ArrayDeque<>();
+
+                    {
+                        pushLeft(root);
+                    }
+
+                    private void pushLeft(Node<T> node) {
+                        for (; node != null; node = node.left) {
+                            path.push(node);
+                        }
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return !path.isEmpty();
+                    }
+
+                    @Override
+                    public T next() {
+                        if (path.isEmpty()) {
+                            throw new NoSuchElementException();
+                        }
+                        Node<T> node = path.pop();
+                        pushLeft(node.right);
+                        return node.value;
+                    }
+                };
+            }
+        };
+    }
+
+    private static boolean anyContains(Node<?> node, long at) {
+        if (node == null || node.maxEnd <= at) {
+            return false;
+        }
+        if (node.start <= at && node.end > at) {
+            return true;
+        }
+        if (anyContains(node.left, at)) {
+            return true;
+        }
+        return node.start <= at && anyContains(node.right, at);
+    }
+
+    private static <T> void overlapping(Node<T> node, long from, long to, List<T> out) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        overlapping(node.left, from, to, out);
+        if (node.start >= to) {
+            return;
+        }
+        if (node.end > from) {
+            out.add(node.value);
+        }
+        overlapping(node.right, from, to, out);
+    }
+
+    private static <T> void startingBetween(Node<T> node, long from, long to, List<T> out) {
+        if (node == null) {
+            return;
+        }
+        if (node.start >= from) {
+            startingBetween(node.left, from, to, out);
+        }
+        if (node.start >= from && node.start <= to) {
+            out.add(node.value);
+        }
+        if (node.start <= to) {
+            startingBetween(node.right, from, to, out);
+        }
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compareKeys(added.start, added.seq, node) < 0) {
+            return rebalance(node, insert(node.left, added), node.right);
+        }
+        return rebalance(node, node.left, insert(node.right, added));
+    }
+
+    private static <T> Node<T> remove(Node<T> node, long start, long seq) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compareKeys(start, seq, node);
+        if (cmp < 0) {
+            Node<T> left = remove(node.left, start, seq);
+            return left == node.left ? node : rebalance(node, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<T> right = remove(node.right, start, seq);
+            return right == node.right ? node : rebalance(node, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<T> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return rebalance(successor, node.left, removeMin(node.right));
+    }
+
+    private static <T> Node<T> removeMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return rebalance(node, removeMin(node.left), node.right);
+    }
+
+    /**
+     * Builds a copy of a node with new children, rotating if the children's heights differ by more than one.
+     */
+    private static <T> Node<T> rebalance(Node<T> node, Node<T> left, Node<T> right) {
+        int balance = height(left) - height(right);
+        if (balance > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left);
+            }
+            return left.with(left.left, node.with(left.right, right));
+        }
+        if (balance < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right);
+            }
+            return right.with(node.with(left, right.left), right.right);
+        }
+        return node.with(left, right);
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        return pivot.with(node.with(node.left, pivot.left), pivot.right);
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        return pivot.with(pivot.left, node.with(pivot.right, node.right));
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int compareKeys(long start, long seq, Node<?> node) {
+        if (start != node.start) {
+            return Long.compare(start, node.start);
+        }
+        return Long.compare(seq, node.seq);
+    }
+}
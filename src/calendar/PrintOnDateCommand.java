@@ -0,0 +1,29 @@
+package calendar;
+
+/**
+ * Prints the events on a date.
+ */
+public final class PrintOnDateCommand implements Command {
+    private final Date date;
+
+    /**
+     * Constructs a PrintOnDateCommand.
+     * @param date the date to print
+     */
+    public PrintOnDateCommand(Date date) {
+        this.date = date;
+    }
+
+    /**
+     * Gets the date to print.
+     * @return the date
+     */
+    public Date getDate() {
+        return date;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,40 @@
+package calendar;
+
+/**
+ * Prints the events overlapping a date-time range.
+ */
+public final class PrintRangeCommand implements Command {
+    private final DateTime startRange;
+    private final DateTime endRange;
+
+    /**
+     * Constructs a PrintRangeCommand.
+     * @param startRange the start of the range
+     * @param endRange the end of the range, not before the start
+     */
+    public PrintRangeCommand(DateTime startRange, DateTime endRange) {
+        this.startRange = startRange;
+        this.endRange = endRange;
+    }
+
+    /**
+     * Gets the start of the range.
+     * @return the start
+     */
+    public DateTime getStartRange() {
+        return startRange;
+    }
+
+    /**
+     * Gets the end of the range.
+     * @return the end
+     */
+    public DateTime getEndRange() {
+        return endRange;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
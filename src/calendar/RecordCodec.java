@@ -0,0 +1,129 @@
+package calendar;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding of the values stored in journal records and snapshots.
+ * Strings and date-times may be null; dates and times are written as epoch days and epoch minutes.
+ */
+final class RecordCodec {
+    private static final long NO_DATE_TIME = Long.MIN_VALUE;
+
+    private RecordCodec() {
+    }
+
+    /**
+     * Writes a string that may be null.
+     * @param out the output to write to
+     * @param value the string, or null
+     * @throws IOException if writing fails
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutput, String)}.
+     * @param in the input to read from
+     * @return the string, or null
+     * @throws IOException if reading fails
+     */
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes a date-time that may be null.
+     * @param out the output to write to
+     * @param value the date-time, or null
+     * @throws IOException if writing fails
+     */
+    static void writeDateTime(DataOutput out, DateTime value) throws IOException {
+        out.writeLong(value != null ? value.toEpochMinute() : NO_DATE_TIME);
+    }
+
+    /**
+     * Reads a date-time written by {@link #writeDateTime(DataOutput, DateTime)}.
+     * @param in the input to read from
+     * @return the date-time, or null
+     * @throws IOException if reading fails
+     */
+    static DateTime readDateTime(DataInput in) throws IOException {
+        long epochMinute = in.readLong();
+        return epochMinute != NO_DATE_TIME ? DateTime.ofEpochMinute(epochMinute) : null;
+    }
+
+    /**
+     * Writes a date that may be null.
+     * @param out the output to write to
+     * @param value the date, or null
+     * @throws IOException if writing fails
+     */
+    static void writeDate(DataOutput out, Date value) throws IOException {
+        out.writeLong(value != null ? value.toEpochDay() : NO_DATE_TIME);
+    }
+
+    /**
+     * Reads a date written by {@link #writeDate(DataOutput, Date)}.
+     * @param in the input to read from
+     * @return the date, or null
+     * @throws IOException if reading fails
+     */
+    static Date readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay != NO_DATE_TIME ? Date.fromEpochDay(epochDay) : null;
+    }
+
+    /**
+     * Writes every field of an event, including its series bookkeeping.
+     * @param out the output to write to
+     * @param event the event
+     * @throws IOException if writing fails
+     */
+    static void writeEvent(DataOutput out, IEvent event) throws IOException {
+        writeString(out, event.getSubject());
+        writeString(out, event.getLocation());
+        writeDateTime(out, event.getStart());
+        writeDateTime(out, event.getEnd());
+        writeString(out, event.getStatus());
+        writeString(out, event.getDescription());
+        out.writeLong(event.getSeriesId());
+        out.writeLong(event.getOriginalSeriesId());
+        out.writeBoolean(event.isSeriesException());
+        boolean seriesFlag = false;
+        int daysOfWeekMask = Weekdays.NONE;
+        if (event instanceof Event) {
+            seriesFlag = ((Event) event).getIsSeriesFlag();
+            daysOfWeekMask = ((Event) event).getDaysOfWeekMask();
+        }
+        out.writeBoolean(seriesFlag);
+        out.writeByte(daysOfWeekMask);
+    }
+
+    /**
+     * Reads an event written by {@link #writeEvent(DataOutput, IEvent)}.
+     * @param in the input to read from
+     * @return a new event
+     * @throws IOException if reading fails
+     */
+    static Event readEvent(DataInput in) throws IOException {
+        String subject = readString(in);
+        String location = readString(in);
+        DateTime start = readDateTime(in);
+        DateTime end = readDateTime(in);
+        String status = readString(in);
+        String description = readString(in);
+        Event event = new Event(subject, location, start, end, status, description);
+        event.setSeriesId(in.readLong());
+        event.setOriginalSeriesId(in.readLong());
+        event.setSeriesException(in.readBoolean());
+        event.setIsSeriesFlag(in.readBoolean());
+        event.setDaysOfWeekMask(in.readByte());
+        return event;
+    }
+}
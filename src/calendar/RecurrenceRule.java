@@ -0,0 +1,488 @@
+package calendar;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * An immutable recurrence rule describing the unmodified occurrences of an event series.
+ * A rule stores a template event, the time of day every occurrence runs, the repeat weekdays,
+ * the first and last occurrence days and the set of days whose occurrence has been detached
+ * (for example because it was edited on its own and is now stored as a separate event).
+ * Occurrences are only turned into {@link Event} objects when a query asks for them.
+ * Like the expanded series they replace, rules may cover at most {@link #MAX_SERIES_SPAN_DAYS} days,
+ * which keeps the operations that still expand a whole rule bounded.
+ * Days are epoch days (see {@link Date#toEpochDay()}) and instants are epoch minutes.
+ */
+public class RecurrenceRule {
+    /** Returned by the day lookups when there is no matching occurrence. */
+    public static final long NO_OCCURRENCE = Long.MAX_VALUE;
+
+    /** The most days a series may cover, counted from the day it starts on. */
+    public static final int MAX_SERIES_SPAN_DAYS = 366 * 5;
+
+    private final IEvent template;
+    private final Time startTime;
+    private final Time endTime;
+    private final int repeatDays;
+    private final long firstDay;
+    private final long lastDay;
+    private final NavigableSet<Long> exceptions;
+
+    /**
+     * Constructs a new RecurrenceRule.
+     * @param template the event whose subject, location, description, status and series IDs every occurrence copies
+     * @param startTime the time of day each occurrence starts
+     * @param endTime the time of day each occurrence ends
+     * @param repeatDays the weekdays the rule repeats on, as a {@link Weekdays} mask
+     * @param firstDay the epoch day of the first occurrence
+     * @param lastDay the epoch day of the last occurrence (inclusive)
+     * @param exceptions the epoch days whose occurrence has been detached from the rule
+     * @throws IllegalArgumentException if any argument is null, no repeat day is given, or end is before start
+     */
+    private RecurrenceRule(IEvent template, Time startTime, Time endTime, int repeatDays,
+                           long firstDay, long lastDay, NavigableSet<Long> exceptions) {
+        checkArguments(template, startTime, endTime, repeatDays);
+        this.template = template;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.repeatDays = repeatDays & Weekdays.ALL;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * Creates a rule that stops after a number of occurrences.
+     * @param template the event every occurrence copies
+     * @param startTime the time of day each occurrence starts
+     * @param endTime the time of day each occurrence ends
+     * @param repeatDays the weekdays the rule repeats on, as a {@link Weekdays} mask
+     * @param fromDay the epoch day the series starts on; the first occurrence is the first repeat day from there
+     * @param occurrences the number of occurrences (must be positive)
+     * @return the rule
+     * @throws IllegalArgumentException if occurrences is not positive, the occurrences do not fit in
+     *         {@link #MAX_SERIES_SPAN_DAYS} days, or the other arguments are invalid
+     */
+    public static RecurrenceRule forCount(IEvent template, Time startTime, Time endTime, int repeatDays,
+                                          long fromDay, int occurrences) {
+        checkArguments(template, startTime, endTime, repeatDays);
+        long last = lastDayForCount(repeatDays, fromDay, occurrences);
+        long first = Weekdays.nextDay(repeatDays, fromDay);
+        return new RecurrenceRule(template.copy(), startTime, endTime, repeatDays, first, last, new TreeSet<>());
+    }
+
+    /**
+     * Creates a rule that repeats up to and including a given day.
+     * Occurrences past {@link #MAX_SERIES_SPAN_DAYS} days from {@code fromDay} are dropped.
+     * @param template the event every occurrence copies
+     * @param startTime the time of day each occurrence starts
+     * @param endTime the time of day each occurrence ends
+     * @param repeatDays the weekdays the rule repeats on, as a {@link Weekdays} mask
+     * @param fromDay the epoch day the series starts on
+     * @param untilDay the last epoch day an occurrence may fall on
+     * @return the rule, or null if no repeat day falls between the two days
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    public static RecurrenceRule forUntil(IEvent template, Time startTime, Time endTime, int repeatDays,
+                                          long fromDay, long untilDay) {
+        checkArguments(template, startTime, endTime, repeatDays);
+        long first = Weekdays.nextDay(repeatDays, fromDay);
+        long last = lastDayUntil(repeatDays, fromDay, untilDay);
+        if (first > last) {
+            return null;
+        }
+        return new RecurrenceRule(template.copy(), startTime, endTime, repeatDays, first, last, new TreeSet<>());
+    }
+
+    /**
+     * Finds the day of the last occurrence of a series that stops after a number of occurrences,
+     * without walking the occurrences. The series must fit in {@link #MAX_SERIES_SPAN_DAYS} days.
+     * Models check this before they look for conflicts, so a series that is both too long and conflicting
+     * is refused for its length; the expanded series this replaced reported the conflict first.
+     * @param repeatDays the weekdays the series repeats on, as a {@link Weekdays} mask
+     * @param fromDay the epoch day the series starts on
+     * @param occurrences the number of occurrences (must be positive)
+     * @return the epoch day of the last occurrence
+     * @throws IllegalArgumentException if no repeat day is given, occurrences is not positive,
+     *         or the occurrences do not fit in {@link #MAX_SERIES_SPAN_DAYS} days
+     */
+    public static long lastDayForCount(int repeatDays, long fromDay, int occurrences) {
+        if (Weekdays.size(repeatDays) == 0) {
+            throw new IllegalArgumentException("Repeat days are required for a series.");
+        }
+        if (occurrences <= 0) {
+            throw new IllegalArgumentException("Number of occurrences must be positive.");
+        }
+        long first = Weekdays.nextDay(repeatDays, fromDay);
+        int perWeek = 0;
+        long[] weekOffsets = new long[7];
+        for (long day = first; day < first + 7; day = Weekdays.nextDay(repeatDays, day + 1)) {
+            weekOffsets[perWeek++] = day - first;
+        }
+        int index = occurrences - 1;
+        long last = first + 7L * (index / perWeek) + weekOffsets[index % perWeek];
+        if (last > lastSpanDay(fromDay)) {
+            throw new IllegalArgumentException("Series generation exceeded safety limit. Please specify occurrences or a valid end date.");
+        }
+        return last;
+    }
+
+    /**
+     * Finds the day of the last occurrence of a series that repeats up to and including a given day.
+     * Occurrences past {@link #MAX_SERIES_SPAN_DAYS} days from {@code fromDay} are dropped.
+     * @param repeatDays the weekdays the series repeats on, as a {@link Weekdays} mask
+     * @param fromDay the epoch day the series starts on
+     * @param untilDay the last epoch day an occurrence may fall on
+     * @return the epoch day of the last occurrence, before {@code fromDay} if there is none
+     * @throws IllegalArgumentException if no repeat day is given
+     */
+    public static long lastDayUntil(int repeatDays, long fromDay, long untilDay) {
+        if (Weekdays.size(repeatDays) == 0) {
+            throw new IllegalArgumentException("Repeat days are required for a series.");
+        }
+        return Weekdays.previousDay(repeatDays, Math.min(untilDay, lastSpanDay(fromDay)));
+    }
+
+    /**
+     * Writes this rule, exceptions included, for a snapshot.
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutput out) throws IOException {
+        RecordCodec.writeEvent(out, template);
+        out.writeShort(startTime.toMinuteOfDay());
+        out.writeShort(endTime.toMinuteOfDay());
+        out.writeByte(repeatDays);
+        out.writeLong(firstDay);
+        out.writeLong(lastDay);
+        out.writeInt(exceptions.size());
+        for (long day : exceptions) {
+            out.writeLong(day);
+        }
+    }
+
+    /**
+     * Reads a rule written by {@link #writeTo(DataOutput)}.
+     * @param in the input to read from
+     * @return the rule
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the stored rule is invalid
+     */
+    static RecurrenceRule readFrom(DataInput in) throws IOException {
+        IEvent template = RecordCodec.readEvent(in);
+        Time startTime = Time.ofMinuteOfDay(in.readShort());
+        Time endTime = Time.ofMinuteOfDay(in.readShort());
+        int repeatDays = in.readByte();
+        long firstDay = in.readLong();
+        long lastDay = in.readLong();
+        NavigableSet<Long> exceptions = new TreeSet<>();
+        for (int count = in.readInt(); count > 0; count--) {
+            exceptions.add(in.readLong());
+        }
+        return new RecurrenceRule(template, startTime, endTime, repeatDays, firstDay, lastDay, exceptions);
+    }
+
+    /**
+     * Checks the arguments shared by the constructor and the factories.
+     * @throws IllegalArgumentException if any argument is null, no repeat day is given, or end is before start
+     */
+    private static void checkArguments(IEvent template, Time startTime, Time endTime, int repeatDays) {
+        if (template == null || startTime == null || endTime == null || Weekdays.size(repeatDays) == 0) {
+            throw new IllegalArgumentException("Template, times and repeat days are required for a recurrence rule.");
+        }
+        if (endTime.toMinuteOfDay() < startTime.toMinuteOfDay()) {
+            throw new IllegalArgumentException("Occurrence end time cannot be before its start time.");
+        }
+    }
+
+    /**
+     * Gets the series ID shared by every occurrence.
+     * @return the series ID
+     */
+    public long getSeriesId() {
+        return template.getSeriesId();
+    }
+
+    /**
+     * Gets the subject shared by every occurrence.
+     * @return the subject
+     */
+    public String getSubject() {
+        return template.getSubject();
+    }
+
+    /**
+     * Gets a modifiable copy of the template every occurrence copies.
+     * @return a copy of the template event
+     */
+    public IEvent getTemplate() {
+        return template.copy();
+    }
+
+    /**
+     * Gets the time of day each occurrence starts.
+     * @return the start time
+     */
+    public Time getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the time of day each occurrence ends.
+     * @return the end time
+     */
+    public Time getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Gets the weekdays the rule repeats on.
+     * @return the {@link Weekdays} mask of repeat days
+     */
+    public int getRepeatDays() {
+        return repeatDays;
+    }
+
+    /**
+     * Gets the epoch day of the first occurrence covered by the rule.
+     * @return the first day
+     */
+    public long getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Gets the epoch day of the last occurrence covered by the rule.
+     * @return the last day (inclusive)
+     */
+    public long getLastDay() {
+        return lastDay;
+    }
+
+    /**
+     * Gets the start of the first occurrence, used to index the rule by its span.
+     * @return the span start, in epoch minutes
+     */
+    public long spanStart() {
+        return firstDay * DateTime.MINUTES_PER_DAY + startTime.toMinuteOfDay();
+    }
+
+    /**
+     * Gets the end of the last occurrence, used to index the rule by its span.
+     * @return the span end, in epoch minutes
+     */
+    public long spanEnd() {
+        return lastDay * DateTime.MINUTES_PER_DAY + endTime.toMinuteOfDay();
+    }
+
+    /**
+     * Checks whether the rule has an occurrence on the given day.
+     * @param day the epoch day
+     * @return true if an occurrence falls on that day and has not been detached
+     */
+    public boolean occursOn(long day) {
+        return day >= firstDay && day <= lastDay && Weekdays.containsDay(repeatDays, day) && !exceptions.contains(day);
+    }
+
+    /**
+     * Checks whether the rule still has any occurrence.
+     * @return true if at least one occurrence has not been detached
+     */
+    public boolean hasOccurrences() {
+        return nextOccurrenceDay(firstDay) != NO_OCCURRENCE;
+    }
+
+    /**
+     * Finds the first occurrence at or after the given day.
+     * @param fromDay the epoch day to start looking from
+     * @return the epoch day of the occurrence, or {@link #NO_OCCURRENCE} if there is none
+     */
+    public long nextOccurrenceDay(long fromDay) {
+        long day = nextRepeatDay(Math.max(fromDay, firstDay));
+        while (day <= lastDay && exceptions.contains(day)) {
+            day = nextRepeatDay(day + 1);
+        }
+        return day <= lastDay ? day : NO_OCCURRENCE;
+    }
+
+    /**
+     * Builds the event for the occurrence on the given day.
+     * The caller is expected to have checked {@link #occursOn(long)}.
+     * @param day the epoch day of the occurrence
+     * @return a new event for that occurrence
+     */
+    public IEvent occurrence(long day) {
+        Date date = Date.fromEpochDay(day);
+        Event event = new Event(template.getSubject(), template.getLocation(), new DateTime(date, startTime),
+                new DateTime(date, endTime), template.getStatus(), template.getDescription());
+        event.setSeriesId(template.getSeriesId());
+        event.setOriginalSeriesId(template.getOriginalSeriesId());
+        event.setIsSeriesFlag(true);
+        event.setDaysOfWeekMask(repeatDays);
+        return event;
+    }
+
+    /**
+     * Adds to a list the occurrences that overlap the open range (from, to),
+     * that is the occurrences starting before {@code to} and ending after {@code from}.
+     * Only the days inside the range are visited.
+     * @param from the start of the range, in epoch minutes
+     * @param to the end of the range, in epoch minutes
+     * @param out the list to add the occurrences to, in start order
+     */
+    public void addOccurrencesOverlapping(long from, long to, List<IEvent> out) {
+        long firstCandidate = Math.floorDiv(from - endTime.toMinuteOfDay(), DateTime.MINUTES_PER_DAY) + 1;
+        long lastCandidate = Math.floorDiv(to - startTime.toMinuteOfDay() - 1, DateTime.MINUTES_PER_DAY);
+        for (long day = nextOccurrenceDay(firstCandidate); day <= lastCandidate; day = nextOccurrenceDay(day + 1)) {
+            out.add(occurrence(day));
+        }
+    }
+
+    /**
+     * Adds every occurrence of the rule to a list.
+     * @param out the list to add the occurrences to, in start order
+     */
+    public void addAllOccurrences(List<IEvent> out) {
+        for (long day = nextOccurrenceDay(firstDay); day != NO_OCCURRENCE; day = nextOccurrenceDay(day + 1)) {
+            out.add(occurrence(day));
+        }
+    }
+
+    /**
+     * Checks whether one of the occurrences covers the given instant.
+     * @param at the instant, in epoch minutes
+     * @return true if an occurrence starts at or before {@code at} and ends after it
+     */
+    public boolean covers(long at) {
+        long day = Math.floorDiv(at, DateTime.MINUTES_PER_DAY);
+        long minuteOfDay = at - day * DateTime.MINUTES_PER_DAY;
+        return minuteOfDay >= startTime.toMinuteOfDay() && minuteOfDay < endTime.toMinuteOfDay() && occursOn(day);
+    }
+
+    /**
+     * Finds the occurrence identical to an event with the given subject, start and end.
+     * @param subject the subject to match
+     * @param start the start to match, in epoch minutes
+     * @param end the end to match, in epoch minutes
+     * @return the epoch day of the matching occurrence, or {@link #NO_OCCURRENCE} if there is none
+     */
+    public long matchingOccurrenceDay(String subject, long start, long end) {
+        long day = Math.floorDiv(start, DateTime.MINUTES_PER_DAY);
+        long dayStart = day * DateTime.MINUTES_PER_DAY;
+        if (start - dayStart == startTime.toMinuteOfDay() && end - dayStart == endTime.toMinuteOfDay()
+                && template.getSubject().equals(subject) && occursOn(day)) {
+            return day;
+        }
+        return NO_OCCURRENCE;
+    }
+
+    /**
+     * Finds the occurrence starting at the given instant, whatever its end.
+     * @param start the start to match, in epoch minutes
+     * @return the epoch day of the occurrence, or {@link #NO_OCCURRENCE} if there is none
+     */
+    public long occurrenceDayStartingAt(long start) {
+        long day = Math.floorDiv(start, DateTime.MINUTES_PER_DAY);
+        if (start - day * DateTime.MINUTES_PER_DAY == startTime.toMinuteOfDay() && occursOn(day)) {
+            return day;
+        }
+        return NO_OCCURRENCE;
+    }
+
+    /**
+     * Finds the first day on which this rule and another both have an occurrence.
+     * Only the days are compared; subjects and times are up to the caller.
+     * @param other the other rule
+     * @return the first common epoch day, or {@link #NO_OCCURRENCE} if there is none
+     */
+    public long firstCommonDay(RecurrenceRule other) {
+        int sharedDays = repeatDays & other.repeatDays;
+        if (sharedDays == Weekdays.NONE) {
+            return NO_OCCURRENCE;
+        }
+        long last = Math.min(lastDay, other.lastDay);
+        for (long day = Weekdays.nextDay(sharedDays, Math.max(firstDay, other.firstDay)); day <= last;
+             day = Weekdays.nextDay(sharedDays, day + 1)) {
+            if (!exceptions.contains(day) && !other.exceptions.contains(day)) {
+                return day;
+            }
+        }
+        return NO_OCCURRENCE;
+    }
+
+    /**
+     * Returns a copy of this rule with the occurrence on the given day detached.
+     * @param day the epoch day to detach
+     * @return the new rule
+     */
+    public RecurrenceRule withException(long day) {
+        NavigableSet<Long> newExceptions = new TreeSet<>(exceptions);
+        newExceptions.add(day);
+        return new RecurrenceRule(template, startTime, endTime, repeatDays, firstDay, lastDay, newExceptions);
+    }
+
+    /**
+     * Returns a copy of this rule whose occurrences copy a different template.
+     * @param newTemplate the new template (copied)
+     * @return the new rule
+     */
+    public RecurrenceRule withTemplate(IEvent newTemplate) {
+        return new RecurrenceRule(newTemplate.copy(), startTime, endTime, repeatDays, firstDay, lastDay, exceptions);
+    }
+
+    /**
+     * Returns the part of this rule from the given day on.
+     * @param day the first epoch day to keep
+     * @return the remaining rule, or null if no occurrence is left
+     */
+    public RecurrenceRule from(long day) {
+        if (day <= firstDay) {
+            return hasOccurrences() ? this : null;
+        }
+        long first = nextOccurrenceDay(day);
+        if (first == NO_OCCURRENCE) {
+            return null;
+        }
+        return new RecurrenceRule(template, startTime, endTime, repeatDays, first, lastDay,
+                new TreeSet<>(exceptions.tailSet(first, true)));
+    }
+
+    /**
+     * Returns the part of this rule before the given day.
+     * @param day the first epoch day to drop
+     * @return the remaining rule, or null if no occurrence is left
+     */
+    public RecurrenceRule until(long day) {
+        if (day <= firstDay) {
+            return null;
+        }
+        if (day > lastDay) {
+            return hasOccurrences() ? this : null;
+        }
+        long last = Weekdays.previousDay(repeatDays, day - 1);
+        if (last < firstDay) {
+            return null;
+        }
+        RecurrenceRule head = new RecurrenceRule(template, startTime, endTime, repeatDays, firstDay, last,
+                new TreeSet<>(exceptions.headSet(last, true)));
+        return head.hasOccurrences() ? head : null;
+    }
+
+    /**
+     * Finds the first repeat weekday at or after the given day, ignoring bounds and exceptions.
+     */
+    private long nextRepeatDay(long fromDay) {
+        return Weekdays.nextDay(repeatDays, fromDay);
+    }
+
+    /**
+     * Gets the last day a series starting on the given day may have an occurrence on.
+     */
+    private static long lastSpanDay(long fromDay) {
+        return fromDay + MAX_SERIES_SPAN_DAYS - 1;
+    }
+}
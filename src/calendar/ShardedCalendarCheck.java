@@ -0,0 +1,130 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Regression checks for {@link ShardedCalendarModel}.
+ * <p>
+ * The ordering check lists days whose events tie on start next to a {@link CalendarModelImpl} holding the
+ * same events, and expects the same order: by start, then the order the events were added. The tear check
+ * keeps renaming a series that runs across a month boundary while readers list both months, and counts the
+ * reads that see the series half renamed. The run prints each failure and exits with status 1 if any.
+ * <p>
+ * Run with {@code java calendar.ShardedCalendarCheck [seconds] [readers]}.
+ */
+public class ShardedCalendarCheck {
+    private static final int OCCURRENCES = 14;
+    private static final Date SERIES_START = Date.of(25, 3, 2025);
+    private static final DateTime RANGE_START = new DateTime(Date.of(1, 3, 2025), Time.of(0, 0));
+    private static final DateTime RANGE_END = new DateTime(Date.of(1, 5, 2025), Time.of(0, 0));
+
+    /**
+     * Runs the checks.
+     * @param args the tear check's run time in seconds and number of reader threads
+     * @throws InterruptedException if interrupted while waiting for the tear check to end
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        int failures = checkOrder() + checkTears(seconds, readers);
+        System.out.println(failures == 0 ? "All checks passed." : failures + " check(s) failed.");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compares the events on days with tied starts against the default model.
+     * @return the number of days listed differently
+     */
+    private static int checkOrder() {
+        ICalendarModel expected = new CalendarModelImpl();
+        ICalendarModel sharded = new ShardedCalendarModel();
+        Date day = Date.of(24, 3, 2025);
+        Date editedDay = Date.of(25, 3, 2025);
+        for (ICalendarModel model : new ICalendarModel[] {expected, sharded}) {
+            // added longest first, so the tree's end order and the insertion order disagree
+            model.createEvent("C", new DateTime(day, Time.of(17, 0)), new DateTime(day, Time.of(23, 0)), null, null, "public");
+            model.createEvent("B", new DateTime(day, Time.of(17, 0)), new DateTime(day, Time.of(17, 0)), null, null, "public");
+            // an edited copy counts as added last
+            model.createEvent("A", new DateTime(editedDay, Time.of(9, 0)), new DateTime(editedDay, Time.of(10, 0)), null, null, "public");
+            model.createEvent("D", new DateTime(editedDay, Time.of(9, 0)), new DateTime(editedDay, Time.of(12, 0)), null, null, "public");
+            model.editEvent("A", new DateTime(editedDay, Time.of(9, 0)), new DateTime(editedDay, Time.of(10, 0)),
+                    EventEdit.ofText("location", "Room 1"), "this");
+        }
+        int failures = 0;
+        for (Date date : new Date[] {day, editedDay}) {
+            String want = describe(expected.getEventsOnDate(date));
+            String got = describe(sharded.getEventsOnDate(date));
+            if (!want.equals(got)) {
+                System.out.println("Order on " + date + ": expected " + want + ", got " + got);
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    private static String describe(List<IEvent> events) {
+        List<String> parts = new ArrayList<>();
+        for (IEvent event : events) {
+            parts.add(event.getSubject() + " " + event.getStart().getTime() + "-" + event.getEnd().getTime());
+        }
+        return parts.toString();
+    }
+
+    /**
+     * Renames a series spanning March and April while readers list both months.
+     * @return 1 if any read saw the series half renamed, 0 otherwise
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private static int checkTears(int seconds, int readers) throws InterruptedException {
+        ICalendarModel model = new ShardedCalendarModel();
+        DateTime firstStart = new DateTime(SERIES_START, Time.of(9, 0));
+        model.createEventSeries("S-a", firstStart, new DateTime(SERIES_START, Time.of(10, 0)),
+                null, null, "public", Weekdays.ALL, OCCURRENCES, null);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder tornReads = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> {
+            String subject = "S-a";
+            while (running.get()) {
+                String next = subject.equals("S-a") ? "S-b" : "S-a";
+                if (model.editEvent(subject, firstStart, null, EventEdit.ofText("subject", next), "all")) {
+                    subject = next;
+                }
+            }
+        }, "writer"));
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    List<IEvent> events = model.getEventsInRange(RANGE_START, RANGE_END);
+                    String subject = events.isEmpty() ? null : events.get(0).getSubject();
+                    boolean torn = events.size() != OCCURRENCES;
+                    for (IEvent event : events) {
+                        torn |= !event.getSubject().equals(subject);
+                    }
+                    if (torn) {
+                        tornReads.increment();
+                    }
+                    reads.increment();
+                }
+            }, "reader-" + r));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println("Tear check: " + tornReads.sum() + " torn reads out of " + reads.sum() + ".");
+        return tornReads.sum() == 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,748 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe calendar model that partitions events by the month they start in, so calls on different
+ * months do not wait for each other.
+ * <p>
+ * Each month with events is a shard with its own {@link IntervalTree} and read-write lock. Creating an event
+ * locks only the shard of its start. Creating a series locks the shards of its occurrences. An edit locks
+ * the shards of the events it finds and of the copies it writes. Shards are always locked in month order,
+ * so calls never deadlock. An edit cannot know which shards it touches until it has looked, so it locks
+ * the shard of the event it searches for, works out the shards it needs, and starts over with those
+ * locked as well if any were missing. Nothing is changed until every shard the edit touches is locked, and
+ * those locks are held until the whole edit is applied. Queries read-lock, in month order, every shard that
+ * can overlap them and hold all of those locks while they read, so they never see a change spanning months
+ * half done. A query reaching several shards reads them in parallel on the common {@link ForkJoinPool}.
+ * Shards partition events by start, so concatenating the shard results in month order keeps them in start order.
+ * <p>
+ * Series are expanded into one stored event per occurrence, and edits replace the edited events with
+ * modified copies, as in {@link PersistentCalendarModel}. Series membership is kept in a map of immutable
+ * lists, each replaced in one step by a call holding the lock of a member's shard, so an edit holding the
+ * shards of every member it saw knows the membership cannot change under it. Every call is atomic.
+ */
+public class ShardedCalendarModel implements ICalendarModel {
+    private static final Time ALL_DAY_START = Time.of(8, 0);
+    private static final Time ALL_DAY_END = Time.of(17, 0);
+
+    /**
+     * A stored event with the shard it lives in and a sequence number giving the order events were added.
+     */
+    private static final class Stored {
+        private final IEvent event;
+        private final long start;
+        private final long end;
+        private final long seq;
+        private final int month;
+
+        private Stored(IEvent event, long seq) {
+            this.event = event;
+            this.start = event.getStart().toEpochMinute();
+            this.end = event.getEnd().toEpochMinute();
+            this.seq = seq;
+            this.month = monthOf(start);
+        }
+    }
+
+    /**
+     * The events starting in one month, with the lock guarding them.
+     */
+    private static final class Shard {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IntervalTree<Stored> events = new IntervalTree<>();
+        // latest end ever stored here; it never shrinks, so it may overstate what is left, never understate
+        private volatile long maxEnd = Long.MIN_VALUE;
+    }
+
+    /**
+     * Collects the events of a run of shards overlapping a range, splitting the run in halves so that the
+     * halves are read in parallel.
+     */
+    private static final class OverlapTask extends RecursiveTask<List<Stored>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Shard> shards;
+        private final long from;
+        private final long to;
+
+        private OverlapTask(List<Shard> shards, long from, long to) {
+            this.shards = shards;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Stored> compute() {
+            if (shards.size() == 1) {
+                return overlapping(shards.get(0), from, to);
+            }
+            int middle = shards.size() / 2;
+            OverlapTask earlier = new OverlapTask(shards.subList(0, middle), from, to);
+            earlier.fork();
+            List<Stored> later = new OverlapTask(shards.subList(middle, shards.size()), from, to).compute();
+            List<Stored> result = earlier.join();
+            result.addAll(later);
+            return result;
+        }
+    }
+
+    /**
+     * The series members a call adds and removes, applied to each series in one step once the call has succeeded.
+     */
+    private static final class MembershipChanges {
+        private final Map<Long, Set<Stored>> removed = new HashMap<>();
+        private final Map<Long, List<Stored>> added = new HashMap<>();
+    }
+
+    /**
+     * What an edit computed against the locked shards would do, or the shards it still needs.
+     */
+    private static final class EditPlan {
+        private final Set<Integer> neededMonths = new TreeSet<>();
+        private final List<Stored> targets = new ArrayList<>();
+        private final List<IEvent> modified = new ArrayList<>();
+        private boolean newSeries;
+        private String error;
+    }
+
+    private final NavigableMap<Integer, Shard> shards;
+    private final Map<Long, List<Stored>> seriesMembers;
+    private final AtomicLong nextSeq;
+    private final AtomicLong lastSeriesId;
+
+    /**
+     * Constructs a new, empty ShardedCalendarModel.
+     */
+    public ShardedCalendarModel() {
+        this.shards = new ConcurrentSkipListMap<>();
+        this.seriesMembers = new ConcurrentHashMap<>();
+        this.nextSeq = new AtomicLong();
+        this.lastSeriesId = new AtomicLong(IEvent.NO_SERIES);
+    }
+
+    /**
+     * Gets the shard key of an instant: the months since year 0 of its date.
+     * @param epochMinute the instant, in epoch minutes
+     * @return the month key
+     */
+    private static int monthOf(long epochMinute) {
+        Date date = Date.fromEpochDay(Math.floorDiv(epochMinute, DateTime.MINUTES_PER_DAY));
+        return date.getYear() * 12 + date.getMonth() - 1;
+    }
+
+    private Shard shard(int month) {
+        return shards.computeIfAbsent(month, key -> new Shard());
+    }
+
+    /**
+     * Write-locks the shards of some months, in month order.
+     * @param months the months, iterated in ascending order
+     * @return the locked shards, in the same order
+     */
+    private List<Shard> lockAll(Set<Integer> months) {
+        List<Shard> locked = new ArrayList<>(months.size());
+        for (int month : months) {
+            Shard shard = shard(month);
+            shard.lock.writeLock().lock();
+            locked.add(shard);
+        }
+        return locked;
+    }
+
+    private static void unlockAll(List<Shard> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            locked.get(i).lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read-locks, in month order, the shards a query picks, holding them all at once.
+     * A write can make the query pick other shards before the locks are taken, so the shards are picked
+     * again with the locks held, and the query starts over if they changed.
+     * @param select picks the shards to read, in month order
+     * @return the read-locked shards, in month order
+     */
+    private static List<Shard> readLockAll(Supplier<List<Shard>> select) {
+        List<Shard> picked = select.get();
+        while (true) {
+            for (Shard shard : picked) {
+                shard.lock.readLock().lock();
+            }
+            List<Shard> current = select.get();
+            if (current.equals(picked)) {
+                return picked;
+            }
+            readUnlockAll(picked);
+            picked = current;
+        }
+    }
+
+    private static void readUnlockAll(List<Shard> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            locked.get(i).lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores an event in its shard and records it as a new member of its series, if any.
+     * The caller holds the shard's write lock.
+     */
+    private void add(IEvent event, MembershipChanges changes) {
+        Stored stored = new Stored(event, nextSeq.getAndIncrement());
+        Shard shard = shards.get(stored.month);
+        shard.events.insert(stored.start, stored.end, stored);
+        if (stored.end > shard.maxEnd) {
+            shard.maxEnd = stored.end;
+        }
+        if (event.getSeriesId() != IEvent.NO_SERIES) {
+            changes.added.computeIfAbsent(event.getSeriesId(), key -> new ArrayList<>()).add(stored);
+        }
+    }
+
+    /**
+     * Removes a stored event from its shard and records it as a former member of its series, if any.
+     * The caller holds the shard's write lock.
+     */
+    private void remove(Stored stored, MembershipChanges changes) {
+        shards.get(stored.month).events.remove(stored);
+        if (stored.event.getSeriesId() != IEvent.NO_SERIES) {
+            changes.removed.computeIfAbsent(stored.event.getSeriesId(),
+                    key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(stored);
+        }
+    }
+
+    /**
+     * Applies recorded membership changes, replacing the member list of each changed series in one atomic step,
+     * so calls changing different members of a series at once never lose each other's changes.
+     * The caller still holds the write locks of the shards it changed.
+     */
+    private void publishMembership(MembershipChanges changes) {
+        Set<Long> changed = new TreeSet<>(changes.removed.keySet());
+        changed.addAll(changes.added.keySet());
+        for (long seriesId : changed) {
+            Set<Stored> removed = changes.removed.getOrDefault(seriesId, Collections.emptySet());
+            List<Stored> added = changes.added.getOrDefault(seriesId, Collections.emptyList());
+            seriesMembers.compute(seriesId, (key, members) -> {
+                List<Stored> next = new ArrayList<>();
+                if (members != null) {
+                    for (Stored member : members) {
+                        if (!removed.contains(member)) {
+                            next.add(member);
+                        }
+                    }
+                }
+                next.addAll(added);
+                return next.isEmpty() ? null : Collections.unmodifiableList(next);
+            });
+        }
+    }
+
+    /**
+     * Finds the stored events with a subject and start, in the order they were added.
+     * The caller holds the lock of the start's shard.
+     */
+    private List<Stored> startingAt(String subject, long start) {
+        List<Stored> found = new ArrayList<>();
+        Shard shard = shards.get(monthOf(start));
+        if (shard != null) {
+            for (Stored stored : shard.events.overlapping(start - 1, start + 1)) {
+                if (stored.start == start && stored.event.getSubject().equals(subject)) {
+                    found.add(stored);
+                }
+            }
+            found.sort(Comparator.comparingLong(stored -> stored.seq));
+        }
+        return found;
+    }
+
+    /**
+     * Checks if an event would be a duplicate of a stored event other than the excluded one.
+     * The caller holds the lock of the start's shard.
+     */
+    private boolean isDuplicate(String subject, long start, long end, Stored excluded) {
+        Shard shard = shards.get(monthOf(start));
+        if (shard == null) {
+            return false;
+        }
+        for (Stored stored : shard.events.overlapping(start - 1, start + 1)) {
+            if (stored != excluded && stored.start == start && stored.end == end && stored.event.getSubject().equals(subject)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a single calendar event, locking only the shard of its start.
+     * @param subject the event subject (required)
+     * @param startDateTime the start date and time (required)
+     * @param endDateTime the end date and time (null for all-day events)
+     * @param description the event description (can be null)
+     * @param location the event location (can be null)
+     * @param status the event status ("public" or "private")
+     * @return true if the event was created successfully, false otherwise
+     */
+    @Override
+    public boolean createEvent(String subject, DateTime startDateTime, DateTime endDateTime, String description, String location, String status) {
+        if (startDateTime == null || subject == null || subject.trim().isEmpty()) {
+            System.err.println("Error: Subject and start date/time are required.");
+            return false;
+        }
+
+        DateTime effectiveStart = startDateTime;
+        DateTime effectiveEnd = endDateTime;
+
+        if (effectiveEnd == null) {
+            Date date = startDateTime.getDate();
+            effectiveStart = new DateTime(date, ALL_DAY_START);
+            effectiveEnd = new DateTime(date, ALL_DAY_END);
+        }
+
+        if (effectiveEnd.isBefore(effectiveStart)) {
+            System.err.println("Error: Event end time cannot be before start time.");
+            return false;
+        }
+
+        IEvent newEvent = new Event(subject, location, effectiveStart, effectiveEnd, status, description);
+        long start = effectiveStart.toEpochMinute();
+        Shard shard = shard(monthOf(start));
+        shard.lock.writeLock().lock();
+        try {
+            if (isDuplicate(subject, start, effectiveEnd.toEpochMinute(), null)) {
+                System.err.println("Error: An event with the same subject, start date/time, and end date/time already exists.");
+                return false;
+            }
+            add(newEvent, new MembershipChanges());
+            return true;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Creates a series of recurring calendar events, storing one event per occurrence
+     * and locking the shards of all the occurrences.
+     * The series must fit in {@link RecurrenceRule#MAX_SERIES_SPAN_DAYS} days, as in {@link CalendarModelImpl}.
+     * @param subject the event subject (required)
+     * @param seriesStartDateTime the start date and time for the series (required)
+     * @param seriesEndDateTime the end date and time for each event in the series (null for all-day events)
+     * @param description the event description (can be null)
+     * @param location the event location (can be null)
+     * @param status the event status ("public" or "private")
+     * @param repeatDays the days of the week on which to repeat the event, as a {@link Weekdays} mask (required)
+     * @param occurrences the number of occurrences (null if using seriesEndDate)
+     * @param seriesEndDate the date after which to stop creating events (null if using occurrences)
+     * @return true if the event series was created successfully, false otherwise
+     */
+    @Override
+    public boolean createEventSeries(String subject, DateTime seriesStartDateTime, DateTime seriesEndDateTime,
+                                     String description, String location, String status,
+                                     int repeatDays, Integer occurrences, Date seriesEndDate) {
+        if (seriesStartDateTime == null || subject == null || subject.trim().isEmpty() || Weekdays.size(repeatDays) == 0) {
+            System.err.println("Error: Subject, start date/time, and repeat days are required for a series.");
+            return false;
+        }
+        if (occurrences == null && seriesEndDate == null) {
+            System.err.println("Error: Either number of occurrences or a series end date must be specified.");
+            return false;
+        }
+        if (occurrences != null && seriesEndDate != null) {
+            System.err.println("Error: Specify either number of occurrences or a series end date, not both.");
+            return false;
+        }
+        if (occurrences != null && occurrences <= 0) {
+            System.err.println("Error: Number of occurrences must be positive.");
+            return false;
+        }
+
+        DateTime effectiveSeriesStart = seriesStartDateTime;
+        DateTime effectiveSeriesEnd = seriesEndDateTime;
+
+        if (effectiveSeriesEnd == null) {
+            Date date = seriesStartDateTime.getDate();
+            effectiveSeriesStart = new DateTime(date, ALL_DAY_START);
+            effectiveSeriesEnd = new DateTime(date, ALL_DAY_END);
+        }
+
+        long firstDay = effectiveSeriesStart.getDate().toEpochDay();
+        if (seriesEndDate != null && seriesEndDate.toEpochDay() < firstDay) {
+            System.err.println("Error: Series end date cannot be before the series start date.");
+            return false;
+        }
+
+        if (effectiveSeriesEnd.getDate().toEpochDay() != firstDay) {
+            System.err.println("Error: For recurring events, the start and end time must be on the same day.");
+            return false;
+        }
+
+        Time startTime = effectiveSeriesStart.getTime();
+        Time endTime = effectiveSeriesEnd.getTime();
+        if (endTime.toMinuteOfDay() < startTime.toMinuteOfDay()) {
+            System.err.println("Error: Event end time cannot be before start time.");
+            return false;
+        }
+
+        long lastDay;
+        try {
+            lastDay = occurrences != null
+                    ? RecurrenceRule.lastDayForCount(repeatDays, firstDay, occurrences)
+                    : RecurrenceRule.lastDayUntil(repeatDays, firstDay, seriesEndDate.toEpochDay());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return false;
+        }
+        List<Event> generated = new ArrayList<>();
+        Set<Integer> months = new TreeSet<>();
+        for (long day = Weekdays.nextDay(repeatDays, firstDay); day <= lastDay; day = Weekdays.nextDay(repeatDays, day + 1)) {
+            Date date = Date.fromEpochDay(day);
+            Event occurrence = new Event(subject, location, new DateTime(date, startTime), new DateTime(date, endTime), status, description);
+            generated.add(occurrence);
+            months.add(monthOf(occurrence.getStart().toEpochMinute()));
+        }
+        if (generated.isEmpty()) {
+            System.err.println("Warning: No events were generated for the series based on the criteria.");
+            return true;
+        }
+
+        List<Shard> locked = lockAll(months);
+        try {
+            for (Event occurrence : generated) {
+                if (isDuplicate(subject, occurrence.getStart().toEpochMinute(), occurrence.getEnd().toEpochMinute(), null)) {
+                    System.err.println("Error: A generated event in the series conflicts with an existing or another potential series event: "
+                                       + subject + " on " + occurrence.getStart());
+                    return false;
+                }
+            }
+            long seriesId = lastSeriesId.incrementAndGet();
+            MembershipChanges changes = new MembershipChanges();
+            for (Event occurrence : generated) {
+                occurrence.setSeriesId(seriesId);
+                occurrence.setOriginalSeriesId(seriesId);
+                occurrence.setIsSeriesFlag(true);
+                occurrence.setDaysOfWeekMask(repeatDays);
+                add(occurrence, changes);
+            }
+            publishMembership(changes);
+            return true;
+        } finally {
+            unlockAll(locked);
+        }
+    }
+
+    /**
+     * Edits an existing event or series of events.
+     * The edited events are replaced by modified copies, which are ordered after all other stored events.
+     * Only the shards holding the found events and their copies are locked.
+     * @param findSubject the subject of the event to find
+     * @param findStartDateTime the start date/time of the event to find
+     * @param findEndDateTime the end date/time of the event to find (required for "this" scope)
+     * @param edit the property change to apply
+     * @param scope the scope of the edit ("this", "future", or "all")
+     * @return true if the edit was successful, false otherwise
+     */
+    @Override
+    public boolean editEvent(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                             EventEdit edit, String scope) {
+        if ("this".equals(scope) && findEndDateTime == null && findStartDateTime != null) {
+            Date date = findStartDateTime.getDate();
+            findStartDateTime = new DateTime(date, ALL_DAY_START);
+            findEndDateTime = new DateTime(date, ALL_DAY_END);
+        }
+        if (findSubject == null || findStartDateTime == null) {
+            if ("this".equals(scope)) {
+                System.err.println("Error: No event found matching subject '" + findSubject + "', start '" + findStartDateTime + "', and end '" + findEndDateTime + "'.");
+            } else {
+                System.err.println("Error: No event found matching subject '" + findSubject + "' and start time '" + findStartDateTime + "'.");
+            }
+            return false;
+        }
+
+        Set<Integer> months = new TreeSet<>();
+        months.add(monthOf(findStartDateTime.toEpochMinute()));
+        while (true) {
+            List<Shard> locked = lockAll(months);
+            try {
+                EditPlan plan = planEdit(findSubject, findStartDateTime, findEndDateTime, edit, scope);
+                if (!months.containsAll(plan.neededMonths)) {
+                    months.addAll(plan.neededMonths);
+                    continue;
+                }
+                if (plan.error != null) {
+                    System.err.println(plan.error);
+                    return false;
+                }
+                if (plan.newSeries) {
+                    long seriesId = lastSeriesId.incrementAndGet();
+                    for (IEvent event : plan.modified) {
+                        event.setSeriesId(seriesId);
+                    }
+                }
+                MembershipChanges changes = new MembershipChanges();
+                for (Stored original : plan.targets) {
+                    remove(original, changes);
+                }
+                for (IEvent event : plan.modified) {
+                    add(event, changes);
+                }
+                publishMembership(changes);
+                return true;
+            } finally {
+                unlockAll(locked);
+            }
+        }
+    }
+
+    /**
+     * Works out an edit against the current state without changing anything.
+     * The result is only valid if every month in {@link EditPlan#neededMonths} was locked while it was computed;
+     * copies that join a new series are given their series ID when the plan is applied.
+     */
+    private EditPlan planEdit(String findSubject, DateTime findStartDateTime, DateTime findEndDateTime,
+                              EventEdit edit, String scope) {
+        EditPlan plan = new EditPlan();
+        List<Stored> targets = plan.targets;
+        Stored anchor;
+
+        if ("this".equals(scope)) {
+            long end = findEndDateTime.toEpochMinute();
+            for (Stored stored : startingAt(findSubject, findStartDateTime.toEpochMinute())) {
+                if (stored.end == end) {
+                    targets.add(stored);
+                }
+            }
+            if (targets.isEmpty()) {
+                plan.error = "Error: No event found matching subject '" + findSubject + "', start '" + findStartDateTime + "', and end '" + findEndDateTime + "'.";
+                return plan;
+            }
+            if (targets.size() > 1) {
+                plan.error = "Error: Multiple events found for 'edit event' (this scope). This indicates a data integrity issue or overly broad match.";
+                return plan;
+            }
+            anchor = targets.get(0);
+        } else {
+            List<Stored> candidates = startingAt(findSubject, findStartDateTime.toEpochMinute());
+            if (candidates.isEmpty()) {
+                plan.error = "Error: No event found matching subject '" + findSubject + "' and start time '" + findStartDateTime + "'.";
+                return plan;
+            }
+            anchor = candidates.get(0);
+
+            long firstSeriesId = anchor.event.getSeriesId();
+            if (candidates.size() > 1) {
+                if (firstSeriesId == IEvent.NO_SERIES) {
+                    plan.error = "Error: Ambiguous edit. Multiple non-series events match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.";
+                    return plan;
+                }
+                for (Stored candidate : candidates) {
+                    if (candidate.event.getSeriesId() != firstSeriesId) {
+                        plan.error = "Error: Ambiguous edit. Multiple distinct series match subject '" + findSubject + "' and start time '" + findStartDateTime + "'.";
+                        return plan;
+                    }
+                }
+            }
+
+            if (firstSeriesId == IEvent.NO_SERIES || ("future".equals(scope) && anchor.event.isSeriesException())) {
+                targets.add(anchor);
+            } else {
+                List<Stored> members = new ArrayList<>(seriesMembers.getOrDefault(firstSeriesId, Collections.emptyList()));
+                members.sort(Comparator.comparingLong((Stored stored) -> stored.start).thenComparingLong(stored -> stored.seq));
+                for (Stored member : members) {
+                    plan.neededMonths.add(member.month);
+                    if ("all".equals(scope) || (member.start >= anchor.start && !member.event.isSeriesException())) {
+                        targets.add(member);
+                    }
+                }
+            }
+        }
+
+        for (Stored target : targets) {
+            plan.neededMonths.add(target.month);
+        }
+        if (targets.isEmpty()) {
+            plan.error = "Error: No events targeted for modification based on scope '" + scope + "'.";
+            return plan;
+        }
+
+        boolean startPropertyChanged = edit.changesStart();
+        long anchorSeriesId = anchor.event.getSeriesId();
+        plan.newSeries = anchorSeriesId != IEvent.NO_SERIES
+                && (scope.equals("future") || (startPropertyChanged && scope.equals("all")));
+
+        for (Stored original : targets) {
+            IEvent originalEvent = original.event;
+            IEvent eventToModify = originalEvent.copy();
+
+            edit.applyTo(eventToModify);
+
+            long currentOriginalId = originalEvent.getOriginalSeriesId();
+            long currentSeriesId = originalEvent.getSeriesId();
+
+            eventToModify.setOriginalSeriesId(currentOriginalId != IEvent.NO_SERIES ? currentOriginalId : currentSeriesId);
+
+            if (scope.equals("future") && plan.newSeries) {
+                eventToModify.setOriginalSeriesId(currentSeriesId);
+                eventToModify.setSeriesException(false);
+            } else if (scope.equals("all")) {
+                if (plan.newSeries) {
+                    eventToModify.setOriginalSeriesId(anchorSeriesId);
+                    eventToModify.setSeriesException(false);
+                } else if (!startPropertyChanged && anchorSeriesId != IEvent.NO_SERIES) {
+                    eventToModify.setSeriesId(anchorSeriesId);
+                    eventToModify.setOriginalSeriesId(anchorSeriesId);
+                    eventToModify.setSeriesException(false);
+                }
+            } else if (scope.equals("this")) {
+                eventToModify.setSeriesId(currentSeriesId);
+                eventToModify.setSeriesException(true);
+            }
+
+            long start = eventToModify.getStart().toEpochMinute();
+            int month = monthOf(start);
+            plan.neededMonths.add(month);
+            if (!shards.containsKey(month) || !shards.get(month).lock.isWriteLockedByCurrentThread()) {
+                // the copy lands in a month not locked yet; the edit is planned again once it is
+                return plan;
+            }
+            if (isDuplicate(eventToModify.getSubject(), start, eventToModify.getEnd().toEpochMinute(), original)) {
+                plan.error = "Error: Modified event (" + eventToModify.getSubject() + " at " + eventToModify.getStart() + ") conflicts with an existing event.";
+                return plan;
+            }
+            plan.modified.add(eventToModify);
+        }
+        return plan;
+    }
+
+    /**
+     * Finds the shards that can hold events overlapping the open range (from, to): those of months
+     * up to the one {@code to} falls in whose latest end is after {@code from}.
+     */
+    private List<Shard> shardsOverlapping(long from, long to) {
+        List<Shard> found = new ArrayList<>();
+        for (Shard shard : shards.headMap(monthOf(to), true).values()) {
+            if (shard.maxEnd > from) {
+                found.add(shard);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Collects the stored events of one shard overlapping the open range (from, to), ordered by start, then end.
+     * The calling query holds the shard's read lock.
+     */
+    private static List<Stored> overlapping(Shard shard, long from, long to) {
+        return shard.events.overlapping(from, to);
+    }
+
+    /**
+     * Collects the stored events overlapping the open range (from, to) from every shard that can hold some,
+     * ordered by start, then end, reading the shards in parallel when there are several.
+     */
+    private List<Stored> overlapping(long from, long to) {
+        List<Shard> locked = readLockAll(() -> shardsOverlapping(from, to));
+        try {
+            if (locked.isEmpty()) {
+                return new ArrayList<>();
+            }
+            if (locked.size() == 1) {
+                return overlapping(locked.get(0), from, to);
+            }
+            // the workers read under the locks held by this thread
+            return ForkJoinPool.commonPool().invoke(new OverlapTask(locked, from, to));
+        } finally {
+            readUnlockAll(locked);
+        }
+    }
+
+    private static List<IEvent> events(List<Stored> found) {
+        List<IEvent> result = new ArrayList<>(found.size());
+        for (Stored stored : found) {
+            result.add(stored.event);
+        }
+        return result;
+    }
+
+    /**
+     * Returns all events, shard by shard.
+     * @return a list of all events, ordered by start
+     */
+    @Override
+    public List<IEvent> getAllEvents() {
+        List<Shard> locked = readLockAll(() -> new ArrayList<>(shards.values()));
+        try {
+            List<IEvent> result = new ArrayList<>();
+            for (Shard shard : locked) {
+                for (Stored stored : shard.events.values()) {
+                    result.add(stored.event);
+                }
+            }
+            return result;
+        } finally {
+            readUnlockAll(locked);
+        }
+    }
+
+    /**
+     * Returns all events that occur on a specific date: the events starting on or before the date
+     * and ending on or after it.
+     * @param date the date to search for events
+     * @return a list of events that occur on the specified date, ordered by start, then the order they were added,
+     *         as in {@link CalendarModelImpl}
+     */
+    @Override
+    public List<IEvent> getEventsOnDate(Date date) {
+        long dayStart = date.toEpochDay() * DateTime.MINUTES_PER_DAY;
+        List<Stored> found = overlapping(dayStart - 1, dayStart + DateTime.MINUTES_PER_DAY);
+        found.sort(Comparator.comparingLong((Stored stored) -> stored.start).thenComparingLong(stored -> stored.seq));
+        return events(found);
+    }
+
+    /**
+     * Returns all events that overlap a time range, reading the overlapping shards in parallel.
+     * @param startRange the start of the range
+     * @param endRange the end of the range
+     * @return a list of events that overlap the range, ordered by start, then end
+     */
+    @Override
+    public List<IEvent> getEventsInRange(DateTime startRange, DateTime endRange) {
+        return events(overlapping(startRange.toEpochMinute(), endRange.toEpochMinute()));
+    }
+
+    /**
+     * Checks if any event is scheduled at a specific date and time.
+     * @param dateTime the date and time to check
+     * @return true if an event starts at or before the given time and ends after it
+     */
+    @Override
+    public boolean isBusyAt(DateTime dateTime) {
+        long at = dateTime.toEpochMinute();
+        List<Shard> locked = readLockAll(() -> shardsOverlapping(at, at + 1));
+        try {
+            for (Shard shard : locked) {
+                if (shard.events.anyContains(at)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            readUnlockAll(locked);
+        }
+    }
+}
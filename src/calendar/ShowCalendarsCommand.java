@@ -0,0 +1,12 @@
+package calendar;
+
+/**
+ * Lists every calendar with its memory and access figures.
+ */
+public final class ShowCalendarsCommand implements Command {
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
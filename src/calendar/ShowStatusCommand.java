@@ -0,0 +1,29 @@
+package calendar;
+
+/**
+ * Shows whether the calendar is busy at an instant.
+ */
+public final class ShowStatusCommand implements Command {
+    private final DateTime dateTime;
+
+    /**
+     * Constructs a ShowStatusCommand.
+     * @param dateTime the instant to check
+     */
+    public ShowStatusCommand(DateTime dateTime) {
+        this.dateTime = dateTime;
+    }
+
+    /**
+     * Gets the instant to check.
+     * @return the date and time
+     */
+    public DateTime getDateTime() {
+        return dateTime;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,88 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dictionary of the distinct strings held by a model's events.
+ * Every distinct string gets one shared instance and an int handle, counted up from 0.
+ * {@link CalendarModelImpl} uses {@link #intern(String)} so the subjects, locations, descriptions and
+ * statuses repeated across thousands of events are each stored once; an event field then costs one
+ * (compressed, 4-byte) reference, the same as a handle would, without a lookup on read.
+ * {@link ArrayCalendarModel} stores the handles themselves in its int columns.
+ * Strings stay in the dictionary for the life of the model, even once no event uses them.
+ */
+public class StringDictionary {
+    /** The handle standing for null. */
+    public static final int NO_HANDLE = -1;
+
+    private final Map<String, Integer> handles;
+    private final List<String> strings;
+
+    /**
+     * Constructs an empty StringDictionary.
+     */
+    public StringDictionary() {
+        this.handles = new HashMap<>();
+        this.strings = new ArrayList<>();
+    }
+
+    /**
+     * Gets the shared instance of a string, adding the string if it is new.
+     * @param value the string, or null
+     * @return the shared instance equal to the string, or null for null
+     */
+    public String intern(String value) {
+        return toString(toHandle(value));
+    }
+
+    /**
+     * Gets the handle of a string, adding the string if it is new.
+     * @param value the string, or null
+     * @return the handle, or {@link #NO_HANDLE} for null
+     */
+    public int toHandle(String value) {
+        if (value == null) {
+            return NO_HANDLE;
+        }
+        Integer handle = handles.get(value);
+        if (handle == null) {
+            handle = strings.size();
+            handles.put(value, handle);
+            strings.add(value);
+        }
+        return handle;
+    }
+
+    /**
+     * Gets the handle of a string without adding it.
+     * @param value the string, or null
+     * @return the handle, or {@link #NO_HANDLE} if the string is null or not in the dictionary
+     */
+    public int findHandle(String value) {
+        if (value == null) {
+            return NO_HANDLE;
+        }
+        Integer handle = handles.get(value);
+        return handle != null ? handle : NO_HANDLE;
+    }
+
+    /**
+     * Gets the string of a handle.
+     * @param handle a handle returned by this dictionary, or {@link #NO_HANDLE}
+     * @return the shared string, or null for {@link #NO_HANDLE}
+     */
+    public String toString(int handle) {
+        return handle == NO_HANDLE ? null : strings.get(handle);
+    }
+
+    /**
+     * Gets the number of distinct strings.
+     * @return the dictionary size
+     */
+    public int size() {
+        return strings.size();
+    }
+}
@@ -1,15 +1,25 @@
 package calendar;
 
 /**
- * Represents a time of day with hour and minute components.
+ * Represents an immutable time of day with hour and minute components.
  * Uses 24-hour format with validation for proper time ranges.
+ * All 1440 possible values are cached and handed out by {@link #of(int, int)}.
  */
-public class Time {
-  private int hour;
-  private int minute;
+public final class Time {
+  private static final Time[] CACHE = new Time[24 * 60];
+
+  static {
+    for (int minuteOfDay = 0; minuteOfDay < CACHE.length; minuteOfDay++) {
+      CACHE[minuteOfDay] = new Time(minuteOfDay / 60, minuteOfDay % 60);
+    }
+  }
+
+  private final int hour;
+  private final int minute;
 
   /**
    * Constructs a new Time instance.
+   * Prefer {@link #of(int, int)}, which returns the shared instance.
    * @param hour   the hour of day (0-23)
    * @param minute the minute of hour (0-59)
    * @throws IllegalArgumentException if hour or minute are out of range
@@ -25,6 +35,33 @@ public class Time {
     this.minute = minute;
   }
 
+  /**
+   * Returns the shared Time instance for the given hour and minute.
+   * @param hour   the hour of day (0-23)
+   * @param minute the minute of hour (0-59)
+   * @return the cached Time
+   * @throws IllegalArgumentException if hour or minute are out of range
+   */
+  public static Time of(int hour, int minute) {
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+      return new Time(hour, minute);
+    }
+    return CACHE[hour * 60 + minute];
+  }
+
+  /**
+   * Returns the shared Time instance for the given number of minutes since midnight.
+   * @param minuteOfDay the minute of day (0-1439)
+   * @return the cached Time
+   * @throws IllegalArgumentException if minuteOfDay is out of range
+   */
+  public static Time ofMinuteOfDay(int minuteOfDay) {
+    if (minuteOfDay < 0 || minuteOfDay >= CACHE.length) {
+      throw new IllegalArgumentException("Minute of day must be between 0 and 1439. Received: " + minuteOfDay);
+    }
+    return CACHE[minuteOfDay];
+  }
+
   /**
    * Gets the hour component of this time.
    * @return the hour (0-23)
@@ -37,13 +74,22 @@ public class Time {
    */
   public int getMinute() { return minute; }
 
+  /**
+   * Gets the number of minutes elapsed since midnight.
+   * @return the minute of day (0-1439)
+   */
+  public int toMinuteOfDay() { return hour * 60 + minute; }
+
   /**
    * Returns the time formatted as "hh:mm" with zero padding.
    * @return a string representation of this time in HH:mm format
    */
   @Override
   public String toString() {
-    return String.format("%02d:%02d", hour, minute);
+    char[] text = {
+        (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+        (char) ('0' + minute / 10), (char) ('0' + minute % 10)};
+    return new String(text);
   }
 
   /**
@@ -0,0 +1,69 @@
+package calendar;
+
+/**
+ * An immutable stretch of free time, from a start up to (but not including) an end.
+ */
+public final class TimeSlot {
+    private final DateTime start;
+    private final DateTime end;
+
+    /**
+     * Constructs a new TimeSlot.
+     * @param start the first free minute
+     * @param end the minute the free time ends at
+     * @throws IllegalArgumentException if either bound is null or the end is not after the start
+     */
+    public TimeSlot(DateTime start, DateTime end) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new IllegalArgumentException("A time slot must end after it starts.");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the start of the slot.
+     * @return the first free minute
+     */
+    public DateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the slot.
+     * @return the minute the free time ends at
+     */
+    public DateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the length of the slot.
+     * @return the number of free minutes
+     */
+    public long getMinutes() {
+        return end.toEpochMinute() - start.toEpochMinute();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TimeSlot)) {
+            return false;
+        }
+        TimeSlot other = (TimeSlot) o;
+        return start.equals(other.start) && end.equals(other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start.hashCode() + end.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return start + " to " + end;
+    }
+}
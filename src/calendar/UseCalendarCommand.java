@@ -0,0 +1,29 @@
+package calendar;
+
+/**
+ * Switches the calendar that later commands run against.
+ */
+public final class UseCalendarCommand implements Command {
+    private final String name;
+
+    /**
+     * Constructs a UseCalendarCommand.
+     * @param name the name of the calendar to use
+     */
+    public UseCalendarCommand(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the calendar name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void dispatchTo(CommandHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,128 @@
+package calendar;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for sets of weekdays stored as a 7-bit mask.
+ * Bit {@code DayOfWeek.getValue() - 1} is set for every day in the set, so Monday is bit 0
+ * and Sunday is bit 6. Days are epoch days (see {@link Date#toEpochDay()}).
+ */
+public final class Weekdays {
+    /** The mask with no weekday set. */
+    public static final int NONE = 0;
+
+    /** The mask with every weekday set. */
+    public static final int ALL = 0x7F;
+
+    private Weekdays() {
+    }
+
+    /**
+     * Gets the mask holding a single weekday.
+     * @param day the weekday
+     * @return the mask with only that weekday set
+     */
+    public static int of(DayOfWeek day) {
+        return 1 << (day.getValue() - 1);
+    }
+
+    /**
+     * Gets the mask holding the weekday of an epoch day.
+     * @param epochDay the epoch day
+     * @return the mask with only that day's weekday set
+     */
+    public static int ofEpochDay(long epochDay) {
+        // 1970-01-01 was a thursday
+        return 1 << (int) Math.floorMod(epochDay + 3, 7L);
+    }
+
+    /**
+     * Checks whether a mask holds a weekday.
+     * @param mask the weekday mask
+     * @param day the weekday
+     * @return true if the weekday is in the mask
+     */
+    public static boolean contains(int mask, DayOfWeek day) {
+        return (mask & of(day)) != 0;
+    }
+
+    /**
+     * Checks whether the weekday of an epoch day is in a mask.
+     * @param mask the weekday mask
+     * @param epochDay the epoch day
+     * @return true if the day falls on one of the weekdays of the mask
+     */
+    public static boolean containsDay(int mask, long epochDay) {
+        return (mask & ofEpochDay(epochDay)) != 0;
+    }
+
+    /**
+     * Finds the first day, at or after the given one, that falls on a weekday of the mask.
+     * The mask is rotated so the answer is read off with a single trailing-zero count.
+     * @param mask the weekday mask
+     * @param fromDay the epoch day to start looking from
+     * @return the epoch day of the next matching day
+     * @throws IllegalArgumentException if the mask is empty
+     */
+    public static long nextDay(int mask, long fromDay) {
+        checkNotEmpty(mask);
+        int shift = (int) Math.floorMod(fromDay + 3, 7L);
+        int rotated = ((mask >>> shift) | (mask << (7 - shift))) & ALL;
+        return fromDay + Integer.numberOfTrailingZeros(rotated);
+    }
+
+    /**
+     * Finds the last day, at or before the given one, that falls on a weekday of the mask.
+     * @param mask the weekday mask
+     * @param fromDay the epoch day to start looking from
+     * @return the epoch day of the previous matching day
+     * @throws IllegalArgumentException if the mask is empty
+     */
+    public static long previousDay(int mask, long fromDay) {
+        checkNotEmpty(mask);
+        int shift = 6 - (int) Math.floorMod(fromDay + 3, 7L);
+        int rotated = ((mask << shift) | (mask >>> (7 - shift))) & ALL;
+        return fromDay - (Integer.numberOfLeadingZeros(rotated) - 25);
+    }
+
+    /**
+     * Counts the weekdays in a mask.
+     * @param mask the weekday mask
+     * @return the number of weekdays set
+     */
+    public static int size(int mask) {
+        return Integer.bitCount(mask & ALL);
+    }
+
+    /**
+     * Lists the weekdays of a mask, Monday first.
+     * @param mask the weekday mask
+     * @return a new list of the weekdays set in the mask
+     */
+    public static List<DayOfWeek> toList(int mask) {
+        List<DayOfWeek> days = new ArrayList<>(size(mask));
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (contains(mask, day)) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Formats the weekdays of a mask like a list of {@link DayOfWeek}, Monday first.
+     * @param mask the weekday mask
+     * @return the formatted weekdays, for example "[MONDAY, WEDNESDAY]"
+     */
+    public static String toString(int mask) {
+        return toList(mask).toString();
+    }
+
+    private static void checkNotEmpty(int mask) {
+        if ((mask & ALL) == 0) {
+            throw new IllegalArgumentException("At least one repeat day is required.");
+        }
+    }
+}